@@ -0,0 +1,79 @@
+package com.luxoft.bankapp.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
+
+/**
+ * Single account operations on accounts without an owner: deposits, approved withdrawals and the
+ * declined ones, both as an exception and as {@code tryWithdrawCents} returning {@code false}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class AccountBenchmarks {
+
+    private SavingAccount savingAccount;
+    private CheckingAccount checkingAccount;
+    private SavingAccount emptyAccount;
+    private CheckingAccount overdrawnAccount;
+
+    @Setup
+    public void setUp() {
+        savingAccount = SavingAccount.ofCents(1, 0);
+        checkingAccount = CheckingAccount.ofCents(2, Long.MAX_VALUE / 2, 10_000);
+        emptyAccount = SavingAccount.ofCents(3, 0);
+        overdrawnAccount = CheckingAccount.ofCents(4, 0, 0);
+    }
+
+    @Benchmark
+    public void depositSaving() {
+        savingAccount.depositCents(1);
+    }
+
+    @Benchmark
+    public void withdrawCheckingApproved() throws NotEnoughFundsException {
+        checkingAccount.withdrawCents(1);
+    }
+
+    @Benchmark
+    public NotEnoughFundsException withdrawSavingDeclined() {
+        try {
+            emptyAccount.withdrawCents(1);
+        } catch (NotEnoughFundsException e) {
+            return e;
+        }
+        throw new IllegalStateException("Withdrawal from an empty account was approved");
+    }
+
+    @Benchmark
+    public boolean tryWithdrawSavingDeclined() {
+        return emptyAccount.tryWithdrawCents(1);
+    }
+
+    @Benchmark
+    public NotEnoughFundsException withdrawCheckingDeclined() {
+        try {
+            overdrawnAccount.withdrawCents(1);
+        } catch (NotEnoughFundsException e) {
+            return e;
+        }
+        throw new IllegalStateException("Withdrawal beyond the overdraft was approved");
+    }
+}
@@ -0,0 +1,59 @@
+package com.luxoft.bankapp.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.mail.Email;
+import com.luxoft.bankapp.domain.mail.EmailService;
+import com.luxoft.bankapp.utils.DebugSink;
+
+/**
+ * Enqueueing a notification email with one worker delivering to a transport that only consumes
+ * the batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class EmailBenchmark {
+
+    private final Email email = new Email(new Client("John", Gender.MALE, "New York"), "bank", "John",
+            "Welcome to our bank!", "Welcome to our bank!");
+    private EmailService emailService;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        emailService = EmailService.builder()
+                .transport(batch -> blackhole.consume(batch.size()))
+                .capacity(64 * 1024)
+                .batchSize(256)
+                .debugSink(DebugSink.OFF)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        emailService.close();
+    }
+
+    @Benchmark
+    public boolean sendNotificationEmail() {
+        return emailService.sendNotificationEmail(email);
+    }
+}
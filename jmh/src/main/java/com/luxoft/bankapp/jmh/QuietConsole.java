@@ -0,0 +1,21 @@
+package com.luxoft.bankapp.jmh;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Discards standard output while a benchmark runs, since listeners and reports print to it.
+ */
+class QuietConsole {
+
+    private PrintStream console;
+
+    void silence() {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    void restore() {
+        System.setOut(console);
+    }
+}
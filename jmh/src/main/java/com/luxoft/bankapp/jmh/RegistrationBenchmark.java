@@ -0,0 +1,68 @@
+package com.luxoft.bankapp.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+
+/**
+ * {@link Bank#addClient} for a new client with one account, into a bank with the default
+ * listeners. Each iteration starts from an empty bank; standard output is discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class RegistrationBenchmark {
+
+    private final QuietConsole console = new QuietConsole();
+    private Bank bank;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void silence() {
+        console.silence();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        bank = new Bank();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        bank.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void restore() {
+        console.restore();
+    }
+
+    @Benchmark
+    public Client addClient() throws ClientExistsException {
+        int i = next++;
+        Client client = new Client("Client " + i, Gender.FEMALE, "City " + (i % 50));
+        client.addAccount(SavingAccount.ofCents(i, 10_000));
+        bank.addClient(client);
+        return client;
+    }
+}
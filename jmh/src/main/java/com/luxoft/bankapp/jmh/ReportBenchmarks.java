@@ -0,0 +1,191 @@
+package com.luxoft.bankapp.jmh;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.luxoft.bankapp.benchmarks.SyntheticBank;
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.BankReport;
+import com.luxoft.bankapp.domain.BankReportStreams;
+import com.luxoft.bankapp.domain.Client;
+
+/**
+ * Every report of {@link BankReport} against its {@link BankReportStreams} counterpart, teller
+ * lookups answered by a scan against the bank's indexes, and the richest clients taken from a
+ * full sort against the bounded-heap ranking, on a synthetic bank of {@code accounts} accounts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ReportBenchmarks {
+
+    @Param({"1000", "100000"})
+    public int accounts;
+
+    private Bank bank;
+    private final BankReport report = new BankReport();
+    private final BankReportStreams streams = new BankReportStreams();
+    private int id;
+    private String city;
+    private String prefix;
+
+    @Setup
+    public void setUp() {
+        bank = SyntheticBank.generate(accounts, 2, 42);
+        id = accounts / 2;
+        city = "City " + (SyntheticBank.CITIES / 2);
+        prefix = "Client " + (accounts / 4);
+    }
+
+    @Benchmark
+    public int numberOfClientsReport() {
+        return report.getNumberOfClients(bank);
+    }
+
+    @Benchmark
+    public int numberOfClientsStreams() {
+        return streams.getNumberOfClients(bank);
+    }
+
+    @Benchmark
+    public int numberOfAccountsReport() {
+        return report.getNumberOfAccounts(bank);
+    }
+
+    @Benchmark
+    public int numberOfAccountsStreams() {
+        return streams.getNumberOfAccounts(bank);
+    }
+
+    @Benchmark
+    public SortedSet<Client> clientsSortedReport() {
+        return report.getClientsSorted(bank);
+    }
+
+    @Benchmark
+    public SortedSet<Client> clientsSortedStreams() {
+        return streams.getClientsSorted(bank);
+    }
+
+    @Benchmark
+    public long bankCreditSumReport() {
+        return report.getBankCreditSumCents(bank);
+    }
+
+    @Benchmark
+    public long bankCreditSumStreams() {
+        return streams.getBankCreditSumCents(bank);
+    }
+
+    @Benchmark
+    public Map<Client, Collection<Account>> customerAccountsReport() {
+        return report.getCustomerAccounts(bank);
+    }
+
+    @Benchmark
+    public Map<Client, Collection<Account>> customerAccountsStreams() {
+        return streams.getCustomerAccounts(bank);
+    }
+
+    @Benchmark
+    public Map<String, ArrayList<Client>> clientsByCityReport() {
+        return report.getClientsByCity(bank);
+    }
+
+    @Benchmark
+    public Map<String, ArrayList<Client>> clientsByCityStreams() {
+        return streams.getClientsByCity(bank);
+    }
+
+    @Benchmark
+    public long accountByIdScan() {
+        for (Client client : bank.getClients()) {
+            for (Account account : client.getAccounts()) {
+                if (account.getId() == id) {
+                    return account.getBalanceCents();
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public long accountByIdIndex() {
+        return bank.getAccount(id).getBalanceCents();
+    }
+
+    @Benchmark
+    public List<Client> clientsInCityScan() {
+        List<Client> clients = new ArrayList<>();
+        for (Client client : bank.getClients()) {
+            if (city.equals(client.getCity())) {
+                clients.add(client);
+            }
+        }
+        return clients;
+    }
+
+    @Benchmark
+    public Set<Client> clientsInCityIndex() {
+        return bank.getClientsInCity(city);
+    }
+
+    @Benchmark
+    public List<Client> namePrefixScan() {
+        List<Client> clients = new ArrayList<>();
+        for (Client client : bank.getClients()) {
+            if (client.getName().startsWith(prefix)) {
+                clients.add(client);
+            }
+        }
+        return clients;
+    }
+
+    @Benchmark
+    public List<Client> namePrefixIndex() {
+        return bank.getClientsByNamePrefix(prefix);
+    }
+
+    @Benchmark
+    public List<Client> top100Sort() {
+        List<Client> top = new ArrayList<>(100);
+        Iterator<Client> descending = new ArrayDeque<>(streams.getClientsSorted(bank)).descendingIterator();
+        while (top.size() < 100 && descending.hasNext()) {
+            top.add(descending.next());
+        }
+        return top;
+    }
+
+    @Benchmark
+    public List<Client> top100Heap() {
+        return bank.getRichestClients(100);
+    }
+
+    @Benchmark
+    public List<Client> balanceRange() {
+        return bank.getClientsWithBalanceBetween(500_000, 510_000);
+    }
+}
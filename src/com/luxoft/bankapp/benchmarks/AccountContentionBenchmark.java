@@ -0,0 +1,129 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.AccountType;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
+
+/**
+ * Measures deposit/withdraw throughput on a single hot account, comparing the lock-free
+ * {@link SavingAccount} with a baseline that guards a plain balance with {@code synchronized}.
+ * <p>
+ * Usage: {@code AccountContentionBenchmark [operationsPerThread]}
+ */
+public class AccountContentionBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) throws InterruptedException {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        System.out.format("%-8s %20s %20s%n", "threads", "lock-free ops/s", "synchronized ops/s");
+        for (int threads : THREAD_COUNTS) {
+            // warm up both paths before measuring
+            run(new SavingAccount(1, 0), threads, operations / 10);
+            run(new SynchronizedAccount(), threads, operations / 10);
+
+            double lockFree = run(new SavingAccount(1, 0), threads, operations);
+            double synchronizedBaseline = run(new SynchronizedAccount(), threads, operations);
+            System.out.format("%-8d %20.0f %20.0f%n", threads, lockFree, synchronizedBaseline);
+        }
+    }
+
+    private static double run(Account account, int threads, int operations) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < operations; j++) {
+                        account.depositCents(2);
+                        account.withdrawCents(1);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (NotEnoughFundsException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        if (account.getBalanceCents() != (long) threads * operations) {
+            throw new IllegalStateException("Lost updates: balance " + account.getBalanceCents());
+        }
+
+        return 2.0 * threads * operations / (elapsed / 1e9);
+    }
+
+    /**
+     * The straightforward alternative: every operation takes the account monitor.
+     */
+    private static class SynchronizedAccount implements Account {
+        private long balance;
+
+        @Override
+        public synchronized void depositCents(long amount) {
+            balance += amount;
+        }
+
+        @Override
+        public synchronized void withdrawCents(long amount) throws NotEnoughFundsException {
+            if (!tryWithdrawCents(amount)) {
+                throw new NotEnoughFundsException(0, balance, amount, "Requested amount exceeds the maximum amount to withdraw");
+            }
+        }
+
+        @Override
+        public synchronized boolean tryWithdrawCents(long amount) {
+            if (amount > balance) {
+                return false;
+            }
+            balance -= amount;
+            return true;
+        }
+
+        @Override
+        public synchronized boolean compareAndSetBalanceCents(long expectedBalance, long newBalance) {
+            if (balance != expectedBalance) {
+                return false;
+            }
+            balance = newBalance;
+            return true;
+        }
+
+        @Override
+        public int getId() {
+            return 0;
+        }
+
+        @Override
+        public synchronized long getBalanceCents() {
+            return balance;
+        }
+
+        @Override
+        public synchronized long maximumAmountToWithdrawCents() {
+            return balance;
+        }
+
+        @Override
+        public AccountType getType() {
+            return AccountType.SAVING;
+        }
+    }
+}
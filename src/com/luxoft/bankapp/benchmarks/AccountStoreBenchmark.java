@@ -0,0 +1,106 @@
+package com.luxoft.bankapp.benchmarks;
+
+import static com.luxoft.bankapp.benchmarks.BenchmarkRunner.consume;
+import static com.luxoft.bankapp.benchmarks.BenchmarkRunner.params;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.AccountStore;
+import com.luxoft.bankapp.domain.AccountType;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.BankReport;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.SavingAccount;
+
+/**
+ * Compares the heap footprint and the credit sum scan of one object per account with the
+ * columnar {@link AccountStore}.
+ * <p>
+ * Usage: {@code AccountStoreBenchmark [accounts]}, for example
+ * {@code java -Xmx8g ... AccountStoreBenchmark 10000000}.
+ */
+public class AccountStoreBenchmark {
+
+    public static void main(String[] args) {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        System.out.format("%-36s %12s %14s%n", "layout", "heap MB", "bytes/account");
+        Account[] objects = measure("objects", accounts, () -> objects(accounts));
+        AccountStore store = measure("store, columns only", accounts, () -> store(accounts));
+        measure("one view per account, on top", accounts, () -> {
+            Account[] views = new Account[accounts];
+            for (int slot = 0; slot < accounts; slot++) {
+                views[slot] = store.getAccount(slot);
+            }
+            return views;
+        });
+        System.out.println();
+
+        Bank bank = SyntheticBank.generate(accounts, 2, 42);
+        BankReport report = new BankReport();
+        BenchmarkRunner runner = new BenchmarkRunner(3, 5, null, System.out);
+        runner.run("getBankCreditSum", params("accounts", accounts, "layout", "bank"), () -> {
+            consume(report.getBankCreditSumCents(bank));
+            return 1;
+        });
+        runner.run("getBankCreditSum", params("accounts", accounts, "layout", "objects"), () -> {
+            long sum = 0;
+            for (Account account : objects) {
+                if (account.getType() == AccountType.CHECKING) {
+                    sum += account.getBalanceCents();
+                }
+            }
+            consume(sum);
+            return 1;
+        });
+        runner.run("getBankCreditSum", params("accounts", accounts, "layout", "store"), () -> {
+            consume(store.getCreditSumCents());
+            return 1;
+        });
+    }
+
+    private static Account[] objects(int accounts) {
+        SplittableRandom random = new SplittableRandom(42);
+        Account[] objects = new Account[accounts];
+        for (int i = 0; i < accounts; i++) {
+            long balance = random.nextLong(1_000_000);
+            objects[i] = i % 2 == 0
+                    ? SavingAccount.ofCents(i, balance)
+                    : CheckingAccount.ofCents(i, balance - 200_000, 50_000 + random.nextLong(200_000));
+        }
+        return objects;
+    }
+
+    private static AccountStore store(int accounts) {
+        SplittableRandom random = new SplittableRandom(42);
+        AccountStore store = new AccountStore(accounts);
+        for (int i = 0; i < accounts; i++) {
+            long balance = random.nextLong(1_000_000);
+            if (i % 2 == 0) {
+                store.addSavingAccount(i, balance);
+            } else {
+                store.addCheckingAccount(i, balance - 200_000, 50_000 + random.nextLong(200_000));
+            }
+        }
+        return store;
+    }
+
+    private static <T> T measure(String layout, int accounts, Supplier<T> allocation) {
+        long before = usedHeap();
+        T result = allocation.get();
+        long after = usedHeap();
+        consume(result);
+        System.out.format("%-36s %12.1f %14.1f%n", layout, (after - before) / 1048576.0, (double) (after - before) / accounts);
+        return result;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
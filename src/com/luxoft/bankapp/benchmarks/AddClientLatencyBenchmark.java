@@ -0,0 +1,67 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.text.DateFormat;
+import java.util.Date;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.metrics.Histogram;
+import com.luxoft.bankapp.metrics.HistogramSnapshot;
+import com.luxoft.bankapp.metrics.MetricsRegistry;
+import com.luxoft.bankapp.utils.DebugSink;
+import com.luxoft.bankapp.utils.SynchronousDispatcher;
+
+/**
+ * Measures the latency of {@link Bank#addClient} with the listeners run synchronously, for the
+ * debug listener writing to the console, switched off, and doing what it did before dates were
+ * cached: a {@code DateFormat} lookup, a {@code new Date()} and a concatenated line per client.
+ * Standard output is discarded.
+ * <p>
+ * Usage: {@code AddClientLatencyBenchmark [clients] [repetitions]}.
+ */
+public class AddClientLatencyBenchmark {
+
+    private static final DebugSink UNCACHED = line -> System.out.println(
+            line.toString() + " " + DateFormat.getDateInstance(DateFormat.FULL).format(new Date()));
+
+    public static void main(String[] args) throws ClientExistsException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int i = 0; i < repetitions; i++) {
+                boolean report = i == repetitions - 1;
+                run(console, "debug, uncached date", clients, report, UNCACHED);
+                run(console, "debug, cached date", clients, report, DebugSink.CONSOLE);
+                run(console, "debug off", clients, report, DebugSink.OFF);
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static void run(PrintStream console, String name, int clients, boolean report, DebugSink debugSink)
+            throws ClientExistsException {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram(name);
+        try (Bank bank = new Bank(null, new SynchronousDispatcher(), debugSink)) {
+            for (int i = 0; i < clients; i++) {
+                Client client = new Client("Client " + i, i % 2 == 0 ? Gender.MALE : Gender.FEMALE, "City " + (i % 100));
+                long begin = System.nanoTime();
+                bank.addClient(client);
+                histogram.record(System.nanoTime() - begin);
+            }
+        }
+        if (report) {
+            HistogramSnapshot latency = registry.snapshot().getHistogram(name);
+            console.format("%-22s mean %8.0f ns  p50 %8d ns  p99 %8d ns  p99.9 %8d ns%n", name, latency.getMean(),
+                    latency.getValueAtPercentile(50), latency.getValueAtPercentile(99), latency.getValueAtPercentile(99.9));
+        }
+    }
+}
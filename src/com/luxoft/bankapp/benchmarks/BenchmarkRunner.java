@@ -0,0 +1,125 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * A small benchmark harness for quick comparisons inside one JVM: each benchmark runs a number of
+ * warmup and measured iterations, and the average time per operation is reported on the console.
+ * It neither forks nor isolates benchmarks from each other's profile pollution; the regression
+ * suite that is compared between releases is the JMH module.
+ */
+public class BenchmarkRunner {
+
+    // never equal, so consume only ever reads them, like a JMH Blackhole
+    private static volatile long sinkA = 0;
+    private static volatile long sinkB = 1;
+    private static volatile Object sinkObject;
+
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final String filter;
+    private final PrintStream console;
+    private final List<Result> results = new ArrayList<>();
+
+    public BenchmarkRunner(int warmupIterations, int measuredIterations, String filter, PrintStream console) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+        this.filter = filter;
+        this.console = console;
+    }
+
+    /**
+     * Keeps a result alive so the JIT cannot drop the computation that produced it.
+     */
+    public static void consume(long value) {
+        if (value == sinkA & value == sinkB) {
+            sinkA = value + 1;
+        }
+    }
+
+    public static void consume(Object value) {
+        if (value == sinkObject) {
+            sinkObject = new Object();
+        }
+    }
+
+    /**
+     * Runs a benchmark. Each call of {@code iteration} performs some work and returns the number
+     * of operations it did; the score is the average time per operation.
+     */
+    public void run(String name, Map<String, Object> params, LongSupplier iteration) {
+        String fullName = name + params;
+        if (filter != null && !fullName.contains(filter)) {
+            return;
+        }
+
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration.getAsLong();
+        }
+
+        double[] nanosPerOp = new double[measuredIterations];
+        for (int i = 0; i < measuredIterations; i++) {
+            long begin = System.nanoTime();
+            long operations = iteration.getAsLong();
+            nanosPerOp[i] = (double) (System.nanoTime() - begin) / Math.max(1, operations);
+        }
+
+        Result result = new Result(name, params, nanosPerOp);
+        results.add(result);
+        console.format("%-50s %-30s %14.1f ns/op  +- %.1f%n", name, params, result.mean(), result.stddev());
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public static Map<String, Object> params(Object... keysAndValues) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            params.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return params;
+    }
+
+    public static class Result {
+        private final String name;
+        private final Map<String, Object> params;
+        private final double[] nanosPerOp;
+
+        Result(String name, Map<String, Object> params, double[] nanosPerOp) {
+            this.name = name;
+            this.params = params;
+            this.nanosPerOp = nanosPerOp;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Map<String, Object> getParams() {
+            return params;
+        }
+
+        public double mean() {
+            double sum = 0;
+            for (double value : nanosPerOp) {
+                sum += value;
+            }
+            return sum / nanosPerOp.length;
+        }
+
+        public double stddev() {
+            double mean = mean();
+            double squares = 0;
+            for (double value : nanosPerOp) {
+                squares += (value - mean) * (value - mean);
+            }
+            return nanosPerOp.length > 1 ? Math.sqrt(squares / (nanosPerOp.length - 1)) : 0;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+
+/**
+ * Registers millions of distinct clients into a fresh {@link Bank} from N threads and reports
+ * registrations per second. Listener output is discarded so the registry itself is measured.
+ * <p>
+ * Usage: {@code ClientRegistrationBenchmark [totalClients] [maxThreads]}
+ */
+public class ClientRegistrationBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int totalClients = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            out.format("%-8s %20s%n", "threads", "clients/s");
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                run(threads, totalClients / 10);
+                out.format("%-8d %20.0f%n", threads, run(threads, totalClients));
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static double run(int threads, int totalClients) throws InterruptedException {
+        Bank bank = new Bank();
+        int perThread = totalClients / threads;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = offset; i < offset + perThread; i++) {
+                        bank.addClient(new Client("Client " + i, i % 2 == 0 ? Gender.MALE : Gender.FEMALE, "City " + (i % 100)));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ClientExistsException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        if (bank.getClients().size() != perThread * threads) {
+            throw new IllegalStateException("Expected " + perThread * threads + " clients, found " + bank.getClients().size());
+        }
+
+        return perThread * threads / (elapsed / 1e9);
+    }
+}
@@ -0,0 +1,145 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.mail.Email;
+import com.luxoft.bankapp.domain.mail.FullQueuePolicy;
+import com.luxoft.bankapp.domain.mail.Queue;
+
+/**
+ * Pushes emails from 1, 4 and 16 producers through one consumer that "sends" each email by
+ * printing it to a discarding stream, comparing the former ArrayList queue (consumer holding
+ * the monitor while sending) with the ring-buffer {@link Queue}.
+ * <p>
+ * Usage: {@code EmailQueueBenchmark [emailsPerRun]}
+ */
+public class EmailQueueBenchmark {
+
+    private static final int[] PRODUCERS = {1, 4, 16};
+    private static final PrintStream SINK = new PrintStream(OutputStream.nullOutputStream());
+
+    public static void main(String[] args) throws InterruptedException {
+        int emails = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Email email = new Email(new Client("John", Gender.MALE, "New York"), "bank", "John", "Welcome to our bank!", "Welcome to our bank!");
+
+        System.out.format("%-10s %20s %20s%n", "producers", "legacy emails/s", "ring buffer emails/s");
+        for (int producers : PRODUCERS) {
+            runLegacy(producers, emails / 10, email);
+            runRingBuffer(producers, emails / 10, email);
+
+            double legacy = runLegacy(producers, emails, email);
+            double ringBuffer = runRingBuffer(producers, emails, email);
+            System.out.format("%-10d %20.0f %20.0f%n", producers, legacy, ringBuffer);
+        }
+    }
+
+    private static double runRingBuffer(int producers, int emails, Email email) throws InterruptedException {
+        Queue queue = new Queue(Queue.DEFAULT_CAPACITY, FullQueuePolicy.BLOCK);
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < emails; i++) {
+                    Email next = queue.poll(1, TimeUnit.SECONDS);
+                    SINK.println("--- Sending email:\n" + next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        return run(producers, emails, consumer, () -> {
+            try {
+                queue.add(email);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private static double runLegacy(int producers, int emails, Email email) throws InterruptedException {
+        LegacyQueue queue = new LegacyQueue();
+        Thread consumer = new Thread(() -> {
+            synchronized (queue) {
+                int sent = 0;
+                while (sent < emails) {
+                    while (queue.isEmpty()) {
+                        try {
+                            queue.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                    SINK.println("--- Sending email:\n" + queue.poll());
+                    sent++;
+                }
+            }
+        });
+
+        return run(producers, emails, consumer, () -> {
+            synchronized (queue) {
+                queue.add(email);
+                queue.notify();
+            }
+        });
+    }
+
+    private static double run(int producers, int emails, Thread consumer, Runnable produce) throws InterruptedException {
+        int perProducer = emails / producers;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            // the last producer makes up for the rounding so exactly `emails` are sent
+            int count = p == producers - 1 ? emails - perProducer * (producers - 1) : perProducer;
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < count; i++) {
+                    produce.run();
+                }
+            });
+            threads.add(producer);
+            producer.start();
+        }
+
+        consumer.start();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        consumer.join();
+        long elapsed = System.nanoTime() - begin;
+
+        return emails / (elapsed / 1e9);
+    }
+
+    /**
+     * The queue EmailService used before: an ArrayList polled from the front.
+     */
+    private static class LegacyQueue {
+        private final List<Email> queue = new ArrayList<>();
+
+        void add(Email email) {
+            queue.add(email);
+        }
+
+        boolean isEmpty() {
+            return queue.isEmpty();
+        }
+
+        Email poll() {
+            return queue.remove(0);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.service.BankExporter;
+
+/**
+ * Measures export throughput and the peak heap growth while exporting, which should stay
+ * roughly constant as the bank grows. Output goes to a channel that only counts bytes.
+ * <p>
+ * Usage: {@code ExportBenchmark [accounts] [repetitions]}.
+ */
+public class ExportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Bank bank = SyntheticBank.generate(accounts, 2, 42);
+        BankExporter exporter = new BankExporter();
+        for (int i = 0; i < repetitions; i++) {
+            boolean report = i == repetitions - 1;
+            run("csv accounts", accounts, report, out -> exporter.exportAccounts(bank, BankExporter.Format.CSV, out));
+            run("binary accounts", accounts, report, out -> exporter.exportAccounts(bank, BankExporter.Format.BINARY, out));
+            run("csv clients by city", accounts, report, out -> exporter.exportClientsByCity(bank, out));
+        }
+    }
+
+    private interface Export {
+        long export(WritableByteChannel out) throws IOException;
+    }
+
+    private static void run(String name, int accounts, boolean report, Export export) throws IOException {
+        CountingChannel out = new CountingChannel();
+        System.gc();
+        resetPeakUsage();
+        long heapBefore = heapUsed();
+        long begin = System.nanoTime();
+        export.export(out);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long peakGrowth = peakHeapUsed() - heapBefore;
+        if (report) {
+            System.out.format("%-22s %8.2f s  %,12.0f accounts/s  %8.1f MB/s  %,8d MB written  peak heap +%,d MB%n",
+                    name, seconds, accounts / seconds, out.bytes / seconds / (1 << 20), out.bytes >> 20,
+                    Math.max(0, peakGrowth) >> 20);
+        }
+    }
+
+    private static void resetPeakUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long heapUsed() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long peakHeapUsed() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                used += pool.getPeakUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static final class CountingChannel implements WritableByteChannel {
+        private long bytes;
+
+        @Override
+        public int write(ByteBuffer source) {
+            int count = source.remaining();
+            source.position(source.limit());
+            bytes += count;
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
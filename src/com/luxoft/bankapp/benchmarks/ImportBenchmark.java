@@ -0,0 +1,71 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.service.BankExporter;
+import com.luxoft.bankapp.service.BankImporter;
+
+/**
+ * Measures bulk imports of generated files: CSV on every core and on one, binary, and as a
+ * baseline the same clients registered one {@code addClient} at a time.
+ * <p>
+ * Usage: {@code ImportBenchmark [clients] [accountsPerClient]}, for example
+ * {@code java -Xmx16g ... ImportBenchmark 10000000 2}.
+ */
+public class ImportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int accountsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        Path csv = Files.createTempFile("import-benchmark", ".csv");
+        Path binary = Files.createTempFile("import-benchmark", ".bin");
+        PrintStream console = System.out;
+        try {
+            ImportFileGenerator.write(csv, BankExporter.Format.CSV, clients, accountsPerClient, 42);
+            ImportFileGenerator.write(binary, BankExporter.Format.BINARY, clients, accountsPerClient, 42);
+            console.format("%,d clients, %,d accounts: csv %,d MB, binary %,d MB%n", clients,
+                    (long) clients * accountsPerClient, Files.size(csv) >> 20, Files.size(binary) >> 20);
+
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            run(console, "csv, " + cores + " cores", clients, new BankImporter(), BankExporter.Format.CSV, csv);
+            run(console, "csv, 1 thread", clients, new BankImporter(1, BankImporter.DEFAULT_BATCH_SIZE,
+                    BankImporter.DEFAULT_CHUNK_SIZE), BankExporter.Format.CSV, csv);
+            run(console, "binary", clients, new BankImporter(), BankExporter.Format.BINARY, binary);
+
+            System.gc();
+            long begin = System.nanoTime();
+            Bank bank = SyntheticBank.generate(clients * accountsPerClient, accountsPerClient, 42);
+            report(console, "addClient one by one", begin, clients);
+            bank.close();
+        } finally {
+            System.setOut(console);
+            Files.delete(csv);
+            Files.delete(binary);
+        }
+    }
+
+    private static void run(PrintStream console, String name, int clients, BankImporter importer,
+            BankExporter.Format format, Path file) throws IOException {
+        System.gc();
+        long begin = System.nanoTime();
+        try (Bank bank = new Bank()) {
+            BankImporter.Result result = importer.importAccounts(bank, format, file);
+            report(console, name, begin, clients);
+            if (result.getAddedClients() != clients) {
+                throw new IllegalStateException("Imported " + result);
+            }
+        }
+    }
+
+    private static void report(PrintStream console, String name, long begin, int clients) {
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        console.format("%-24s %8.2f s  (%,.0f clients/s)%n", name, seconds, clients / seconds);
+    }
+}
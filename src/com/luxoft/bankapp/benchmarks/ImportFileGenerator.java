@@ -0,0 +1,92 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import com.luxoft.bankapp.domain.AccountType;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.service.BankExporter;
+import com.luxoft.bankapp.utils.ChannelWriter;
+
+/**
+ * Writes an import file with the clients and accounts {@link SyntheticBank} would create,
+ * streaming it without building the bank, so files of any size can be produced.
+ * <p>
+ * Usage: {@code ImportFileGenerator <file> [clients] [accountsPerClient] [csv|binary]}
+ */
+public final class ImportFileGenerator {
+
+    private ImportFileGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args[0]);
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        int accountsPerClient = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        BankExporter.Format format = args.length > 3 ? BankExporter.Format.valueOf(args[3].toUpperCase()) : BankExporter.Format.CSV;
+
+        long begin = System.nanoTime();
+        long bytes = write(file, format, clients, accountsPerClient, 42);
+        System.out.format("Wrote %,d clients, %,d MB in %.2f s%n", clients, bytes >> 20, (System.nanoTime() - begin) / 1e9);
+    }
+
+    /**
+     * Writes the file in the given format and returns its size.
+     */
+    public static long write(Path file, BankExporter.Format format, int clients, int accountsPerClient, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+                ChannelWriter writer = new ChannelWriter(channel)) {
+            if (format == BankExporter.Format.CSV) {
+                writer.writeText(BankExporter.CSV_HEADER).writeByte('\n');
+            } else {
+                writer.writeInt(BankExporter.BINARY_MAGIC).writeInt(BankExporter.BINARY_VERSION);
+            }
+
+            int nextAccountId = 1;
+            for (int i = 0; i < clients; i++) {
+                Gender gender = i % 2 == 0 ? Gender.MALE : Gender.FEMALE;
+                int city = i % SyntheticBank.CITIES;
+                if (format == BankExporter.Format.BINARY) {
+                    writer.writeByte(1).writeString("Client " + i).writeByte(gender.ordinal()).writeString("City " + city);
+                }
+                for (int a = 0; a < accountsPerClient; a++, nextAccountId++) {
+                    long balance = random.nextLong(1_000_000);
+                    boolean saving = a % 2 == 0;
+                    long overdraft = saving ? 0 : 50_000 + random.nextLong(200_000);
+                    if (!saving) {
+                        balance -= 200_000;
+                    }
+                    if (format == BankExporter.Format.CSV) {
+                        writer.writeText("Client ").writeDecimal(i).writeByte(',')
+                                .writeText(gender.name()).writeByte(',')
+                                .writeText("City ").writeDecimal(city).writeByte(',')
+                                .writeDecimal(nextAccountId).writeByte(',')
+                                .writeText(saving ? "SAVING" : "CHECKING").writeByte(',')
+                                .writeCents(balance).writeByte(',')
+                                .writeCents(overdraft).writeByte('\n');
+                    } else {
+                        writer.writeByte(1)
+                                .writeByte((saving ? AccountType.SAVING : AccountType.CHECKING).ordinal())
+                                .writeInt(nextAccountId)
+                                .writeLong(balance)
+                                .writeLong(overdraft);
+                    }
+                }
+                if (format == BankExporter.Format.BINARY) {
+                    writer.writeByte(0);
+                }
+            }
+            if (format == BankExporter.Format.BINARY) {
+                writer.writeByte(0);
+            }
+            writer.flush();
+            return writer.getBytesWritten();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.journal.Journal;
+
+/**
+ * Writes a journal of random deposits and withdrawals, then measures how long it takes to replay
+ * it into an empty bank. Also measures durable appends from several threads, where group commit
+ * lets the writers share syncs. Fails if recovery takes longer than the given bound.
+ * <p>
+ * Usage: {@code JournalBenchmark [entries] [accounts] [maxRecoverySeconds]}, for example
+ * {@code JournalBenchmark 50000000 100000 60}.
+ */
+public class JournalBenchmark {
+
+    private static final int DURABLE_THREADS = 8;
+    private static final int DURABLE_APPENDS_PER_THREAD = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        double maxRecoverySeconds = args.length > 2 ? Double.parseDouble(args[2]) : Double.MAX_VALUE;
+
+        Path directory = Files.createTempDirectory("journal-benchmark");
+        try {
+            Bank bank = new Bank();
+            long begin;
+            try (Journal journal = new Journal(directory)) {
+                bank.setTransactionLog(journal);
+                SyntheticBank.fill(bank, accounts, 2, 42);
+                List<Account> accountList = accounts(bank);
+
+                begin = System.nanoTime();
+                SplittableRandom random = new SplittableRandom(7);
+                for (int i = 0; i < entries; i++) {
+                    Account account = accountList.get(random.nextInt(accountList.size()));
+                    if (!random.nextBoolean() || !account.tryWithdrawCents(random.nextLong(1, 10_000))) {
+                        account.depositCents(random.nextLong(1, 10_000));
+                    }
+                }
+                journal.sync();
+            }
+            long appendNanos = System.nanoTime() - begin;
+            long expectedTotal = bank.getStatistics().getTotalBalanceCents();
+
+            System.out.format("appended %,d entries in %.2f s (%,.0f entries/s), %,d MB on disk%n",
+                    entries, appendNanos / 1e9, entries / (appendNanos / 1e9), size(directory) >> 20);
+
+            Bank restored = new Bank();
+            begin = System.nanoTime();
+            long records = Journal.replay(directory, restored);
+            double recoverySeconds = (System.nanoTime() - begin) / 1e9;
+
+            System.out.format("replayed %,d records in %.2f s (%,.0f records/s)%n",
+                    records, recoverySeconds, records / recoverySeconds);
+            if (restored.getStatistics().getTotalBalanceCents() != expectedTotal) {
+                throw new IllegalStateException("Replayed balance " + restored.getStatistics().getTotalBalanceCents()
+                        + " differs from " + expectedTotal);
+            }
+            if (recoverySeconds > maxRecoverySeconds) {
+                throw new IllegalStateException(String.format("Recovery took %.2f s, more than the %.2f s allowed",
+                        recoverySeconds, maxRecoverySeconds));
+            }
+        } finally {
+            delete(directory);
+        }
+
+        durableAppends();
+    }
+
+    private static void durableAppends() throws Exception {
+        Path directory = Files.createTempDirectory("journal-benchmark");
+        try (Journal journal = new Journal(directory, Journal.DEFAULT_SEGMENT_SIZE, true)) {
+            Bank bank = SyntheticBank.generate(DURABLE_THREADS, 1, 42);
+            bank.setTransactionLog(journal);
+            List<Account> accounts = accounts(bank);
+
+            List<Thread> threads = new ArrayList<>();
+            long begin = System.nanoTime();
+            for (int t = 0; t < DURABLE_THREADS; t++) {
+                Account account = accounts.get(t);
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < DURABLE_APPENDS_PER_THREAD; i++) {
+                        account.depositCents(1);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+
+            long appends = (long) DURABLE_THREADS * DURABLE_APPENDS_PER_THREAD;
+            System.out.format("durable appends from %d threads: %,.0f appends/s, %,d syncs for %,d appends%n",
+                    DURABLE_THREADS, appends / seconds, journal.getSyncCount(), appends);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static List<Account> accounts(Bank bank) {
+        List<Account> accounts = new ArrayList<>();
+        for (Client client : bank.getClients()) {
+            accounts.addAll(client.getAccounts());
+        }
+        return accounts;
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.luxoft.bankapp.benchmarks;
+
+import static com.luxoft.bankapp.benchmarks.BenchmarkRunner.params;
+
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.metrics.BankMetrics;
+import com.luxoft.bankapp.metrics.Counter;
+import com.luxoft.bankapp.metrics.Histogram;
+import com.luxoft.bankapp.metrics.MetricsRegistry;
+
+/**
+ * Measures what metrics add to the account hot path: the instrumentation calls on their own,
+ * and the instrumented withdrawals. Run it again with {@code -Dbankapp.metrics=false} to get
+ * the uninstrumented baseline for the withdrawals.
+ * <p>
+ * Usage: {@code MetricsBenchmark [warmup] [iterations]}
+ */
+public class MetricsBenchmark {
+
+    private static final int OPERATIONS = 10_000_000;
+
+    public static void main(String[] args) {
+        int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, null, System.out);
+        System.out.println("metrics enabled: " + BankMetrics.ENABLED);
+
+        runner.run("metrics.withdrawn", params("part", "sample and count"), () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                BankMetrics.withdrawn(BankMetrics.startSample());
+            }
+            return OPERATIONS;
+        });
+
+        Counter counter = new MetricsRegistry().counter("benchmark");
+        runner.run("metrics.counter", params("part", "increment"), () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                counter.increment();
+            }
+            return OPERATIONS;
+        });
+
+        Histogram histogram = new MetricsRegistry().histogram("benchmark");
+        runner.run("metrics.histogram", params("part", "record"), () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                histogram.record(i & 0xFFFF);
+            }
+            return OPERATIONS;
+        });
+
+        CheckingAccount account = CheckingAccount.ofCents(1, Long.MAX_VALUE / 2, 0);
+        runner.run("account.tryWithdraw", params("outcome", "approved", "metrics", BankMetrics.ENABLED), () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                account.tryWithdrawCents(1);
+            }
+            return OPERATIONS;
+        });
+
+        SavingAccount emptyAccount = SavingAccount.ofCents(2, 0);
+        runner.run("account.tryWithdraw", params("outcome", "declined", "metrics", BankMetrics.ENABLED), () -> {
+            int declined = 0;
+            for (int i = 0; i < OPERATIONS; i++) {
+                if (!emptyAccount.tryWithdrawCents(1)) {
+                    declined++;
+                }
+            }
+            return declined;
+        });
+
+        System.out.println(BankMetrics.REGISTRY.snapshot().getHistogram("account.withdrawal.latency"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.service.MonthEndEngine;
+
+/**
+ * Times a month-end run over a generated bank while one thread keeps making online deposits
+ * and withdrawals, and reports that thread's throughput before and during the run.
+ * <p>
+ * Usage: {@code MonthEndBenchmark [accounts]}, for example
+ * {@code java -Xmx16g ... MonthEndBenchmark 20000000}.
+ */
+public class MonthEndBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Bank bank = SyntheticBank.generate(accounts, 2, 42);
+        Path checkpoint = Files.createTempFile("month-end-benchmark", ".checkpoint");
+        Files.delete(checkpoint);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        long[] operations = new long[1];
+        Thread online = new Thread(() -> {
+            SplittableRandom random = new SplittableRandom(1);
+            long count = 0;
+            while (running.get()) {
+                Account account = bank.getAccount(1 + random.nextInt(accounts));
+                if ((count & 1) == 0) {
+                    account.depositCents(100);
+                } else {
+                    account.tryWithdrawCents(100);
+                }
+                count++;
+                if ((count & 1023) == 0) {
+                    synchronized (operations) {
+                        operations[0] = count;
+                    }
+                }
+            }
+        }, "online");
+        online.setDaemon(true);
+        online.start();
+
+        try {
+            long before = onlineRate(operations, 1_000);
+
+            MonthEndEngine engine = MonthEndEngine.builder().checkpoint(checkpoint).build();
+            long begin = System.nanoTime();
+            long startOperations = read(operations);
+            MonthEndEngine.Result result = engine.run(bank, YearMonth.of(2026, 10));
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            double during = (read(operations) - startOperations) / seconds;
+
+            System.out.format("month-end  %8.2f s  (%,.0f accounts/s)  %s%n", seconds, accounts / seconds, result);
+            System.out.format("online ops/s before %,d, during %,.0f%n", before, during);
+
+            begin = System.nanoTime();
+            result = engine.run(bank, YearMonth.of(2026, 10));
+            System.out.format("rerun from checkpoint %6.2f s  %s%n", (System.nanoTime() - begin) / 1e9, result);
+        } finally {
+            running.set(false);
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+
+    private static long onlineRate(long[] operations, long millis) throws InterruptedException {
+        long start = read(operations);
+        Thread.sleep(millis);
+        return (read(operations) - start) * 1000 / millis;
+    }
+
+    private static long read(long[] operations) {
+        synchronized (operations) {
+            return operations[0];
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.luxoft.bankapp.benchmarks;
+
+import static com.luxoft.bankapp.benchmarks.BenchmarkRunner.params;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.service.BankService;
+import com.luxoft.bankapp.service.PostingResults;
+
+/**
+ * Compares applying a settlement batch through {@link BankService#postAll} with the per-call
+ * path, one account lookup and {@code depositCents}/{@code tryWithdrawCents} per posting. Runs
+ * with few accounts, where postings per account are many and grouping pays off most, and with
+ * many.
+ * <p>
+ * Usage: {@code PostingBenchmark [postings] [warmup] [iterations]}
+ */
+public class PostingBenchmark {
+
+    public static void main(String[] args) {
+        int postings = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        PrintStream console = System.out;
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, null, console);
+        for (int accounts : new int[] {1_000, 1_000_000}) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            Bank bank = SyntheticBank.generate(accounts, 2, 42);
+            System.setOut(console);
+
+            SplittableRandom random = new SplittableRandom(7);
+            int[] ids = new int[postings];
+            long[] amounts = new long[postings];
+            for (int i = 0; i < postings; i++) {
+                ids[i] = 1 + random.nextInt(accounts);
+                amounts[i] = random.nextLong(-10_000, 10_000);
+            }
+
+            runner.run("postings.perCall", params("accounts", accounts, "postings", postings), () -> {
+                long applied = 0;
+                for (int i = 0; i < postings; i++) {
+                    Account account = bank.getAccount(ids[i]);
+                    if (amounts[i] >= 0) {
+                        account.depositCents(amounts[i]);
+                        applied++;
+                    } else if (account.tryWithdrawCents(-amounts[i])) {
+                        applied++;
+                    }
+                }
+                BenchmarkRunner.consume(applied);
+                return postings;
+            });
+
+            runner.run("postings.postAll", params("accounts", accounts, "postings", postings), () -> {
+                PostingResults results = BankService.postAll(bank, ids, amounts);
+                BenchmarkRunner.consume(results.count(PostingResults.APPLIED));
+                return postings;
+            });
+        }
+    }
+}
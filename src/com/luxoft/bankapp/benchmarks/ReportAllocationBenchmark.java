@@ -0,0 +1,79 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.service.BankService;
+
+/**
+ * Measures the heap allocated per account by the console reports, using the allocation counter
+ * of the current thread, and compares them with the string-concatenation and
+ * {@code System.out.format} versions they replaced. Standard output is discarded meanwhile.
+ * <p>
+ * Usage: {@code ReportAllocationBenchmark [accounts] [repetitions]}.
+ */
+public class ReportAllocationBenchmark {
+
+    public static void main(String[] args) {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Bank bank = SyntheticBank.generate(accounts, 2, 42);
+        PrintStream console = System.out;
+        for (int i = 0; i < repetitions; i++) {
+            boolean report = i == repetitions - 1;
+            run(console, "balance, format", accounts, report, () -> legacyPrintBalance(bank));
+            run(console, "balance, writer", accounts, report, () -> BankService.printBalance(bank));
+            run(console, "maximum, concatenation", accounts, report, () -> legacyPrintMaximumAmountToWithdraw(bank));
+            run(console, "maximum, writer", accounts, report, () -> BankService.printMaximumAmountToWithdraw(bank));
+        }
+    }
+
+    private static void run(PrintStream console, String name, int accounts, boolean report, Runnable print) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long begin = System.nanoTime();
+        try {
+            print.run();
+        } finally {
+            System.setOut(console);
+        }
+        double nanos = System.nanoTime() - begin;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        if (report) {
+            System.out.format("%-24s %8.1f ns/account  %10.2f bytes/account%n",
+                    name, nanos / accounts, (double) allocated / accounts);
+        }
+    }
+
+    private static void legacyPrintBalance(Bank bank) {
+        System.out.format("%nPrint balance for all clients%n");
+        for (Client client : bank.getClients()) {
+            System.out.println("Client: " + client);
+            for (Account account : client.getAccounts()) {
+                System.out.format("Account %d : %.2f%n", account.getId(), account.getBalance());
+            }
+        }
+    }
+
+    private static void legacyPrintMaximumAmountToWithdraw(Bank bank) {
+        System.out.format("%nPrint maximum amount to withdraw for all clients%n");
+        StringBuilder result = new StringBuilder();
+        for (Client client : bank.getClients()) {
+            result.append("Client: ").append(client).append("\n");
+            int i = 1;
+            for (Account account : client.getAccounts()) {
+                result.append("Account nr. ").append(i++)
+                        .append(", maximum amount to withdraw: ").append(account.maximumAmountToWithdraw())
+                        .append("\n");
+            }
+        }
+        System.out.println(result.toString());
+    }
+}
@@ -0,0 +1,99 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToLongFunction;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.BankReportStreams;
+import com.luxoft.bankapp.domain.Client;
+
+/**
+ * Runs every {@link BankReportStreams} report sequentially and then in parallel on pools of
+ * 1, 2, 4 ... N workers, printing the time of each and checking that the results agree.
+ * <p>
+ * Usage: {@code ReportScalingBenchmark [accounts] [maxThreads]}. A 10M account bank needs
+ * a large heap, e.g. {@code -Xmx16g}.
+ */
+public class ReportScalingBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.format("Generating a bank with %,d accounts...%n", accounts);
+        Bank bank = SyntheticBank.generate(accounts, 2, 42);
+        BankReportStreams sequential = new BankReportStreams();
+
+        System.out.format("%-12s %14s %14s %14s %14s %14s%n", "mode", "accounts ms", "credit ms", "sorted ms", "byAccount ms", "byCity ms");
+        print("sequential", measure(sequential, bank));
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                BankReportStreams parallel = new BankReportStreams(pool);
+                verify(sequential, parallel, bank);
+                print("parallel-" + threads, measure(parallel, bank));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static double[] measure(BankReportStreams reports, Bank bank) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return new double[] {
+                    time(bank, reports::getNumberOfAccounts),
+                    time(bank, reports::getBankCreditSumCents),
+                    time(bank, b -> reports.getClientsSorted(b).size()),
+                    time(bank, b -> reports.getCustomerAccounts(b).size()),
+                    time(bank, b -> reports.getClientsByCity(b).size())
+            };
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static double time(Bank bank, ToLongFunction<Bank> report) {
+        report.applyAsLong(bank);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long begin = System.nanoTime();
+            report.applyAsLong(bank);
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+        return best / 1e6;
+    }
+
+    private static void verify(BankReportStreams sequential, BankReportStreams parallel, Bank bank) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            check(sequential.getNumberOfAccounts(bank) == parallel.getNumberOfAccounts(bank), "getNumberOfAccounts");
+            check(sequential.getBankCreditSumCents(bank) == parallel.getBankCreditSumCents(bank), "getBankCreditSumCents");
+            SortedSet<Client> expected = sequential.getClientsSorted(bank);
+            check(expected.size() == parallel.getClientsSorted(bank).size(), "getClientsSorted");
+            check(sequential.getCustomerAccounts(bank).equals(parallel.getCustomerAccounts(bank)), "getCustomerAccounts");
+            Map<String, ?> byCity = parallel.getClientsByCity(bank);
+            check(sequential.getClientsByCity(bank).keySet().equals(byCity.keySet()), "getClientsByCity");
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static void check(boolean condition, String report) {
+        if (!condition) {
+            throw new IllegalStateException(report + ": parallel result differs from sequential");
+        }
+    }
+
+    private static void print(String mode, double[] millis) {
+        System.out.format("%-12s %14.1f %14.1f %14.1f %14.1f %14.1f%n", mode, millis[0], millis[1], millis[2], millis[3], millis[4]);
+    }
+}
@@ -0,0 +1,95 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.journal.Journal;
+
+/**
+ * Compares ways of getting a bank of the given size back at startup: building it from scratch
+ * through the public API, replaying its full journal, and loading a snapshot of it.
+ * <p>
+ * Usage: {@code SnapshotBenchmark [accounts] [balanceChangesPerAccount]}, for example
+ * {@code java -Xmx8g ... SnapshotBenchmark 10000000 2}.
+ */
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int changesPerAccount = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+        Path directory = Files.createTempDirectory("snapshot-benchmark");
+        try {
+            long begin = System.nanoTime();
+            SyntheticBank.generate(accounts, 2, 42);
+            report("build from scratch", begin, accounts);
+
+            Bank bank = new Bank();
+            long expectedTotal;
+            try (Journal journal = new Journal(directory)) {
+                bank.setTransactionLog(journal);
+                SyntheticBank.fill(bank, accounts, 2, 42);
+                List<Account> accountList = new ArrayList<>();
+                for (Client client : bank.getClients()) {
+                    accountList.addAll(client.getAccounts());
+                }
+                SplittableRandom random = new SplittableRandom(7);
+                for (long i = 0; i < (long) changesPerAccount * accounts; i++) {
+                    accountList.get(random.nextInt(accountList.size())).depositCents(random.nextLong(1, 10_000));
+                }
+                expectedTotal = bank.getStatistics().getTotalBalanceCents();
+
+                begin = System.nanoTime();
+                verify(replay(directory), expectedTotal);
+                report("replay full journal", begin, accounts);
+
+                begin = System.nanoTime();
+                Path snapshot = journal.snapshot();
+                System.out.format("%-24s %8.2f s  (%,d MB, taken while the journal stays open)%n",
+                        "write snapshot", (System.nanoTime() - begin) / 1e9, Files.size(snapshot) >> 20);
+            }
+
+            begin = System.nanoTime();
+            verify(replay(directory), expectedTotal);
+            report("load snapshot", begin, accounts);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static Bank replay(Path directory) throws IOException {
+        Bank bank = new Bank();
+        Journal.replay(directory, bank);
+        return bank;
+    }
+
+    private static void verify(Bank bank, long expectedTotal) {
+        if (bank.getStatistics().getTotalBalanceCents() != expectedTotal) {
+            throw new IllegalStateException("Restored balance " + bank.getStatistics().getTotalBalanceCents()
+                    + " differs from " + expectedTotal);
+        }
+    }
+
+    private static void report(String name, long begin, int accounts) {
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.out.format("%-24s %8.2f s  (%,.0f accounts/s)%n", name, seconds, accounts / seconds);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+
+/**
+ * Builds reproducible banks of arbitrary size for benchmarks. Clients are spread over a fixed
+ * set of cities and alternate between saving and checking accounts with random balances.
+ */
+public final class SyntheticBank {
+
+    public static final int CITIES = 50;
+
+    private SyntheticBank() {
+    }
+
+    /**
+     * Creates a bank holding {@code accounts} accounts, {@code accountsPerClient} per client.
+     * The registration listeners' console output is discarded while the bank is filled.
+     */
+    public static Bank generate(int accounts, int accountsPerClient, long seed) {
+        return fill(new Bank(), accounts, accountsPerClient, seed);
+    }
+
+    /**
+     * Adds the clients and accounts {@link #generate} would create to an existing bank.
+     */
+    public static Bank fill(Bank bank, int accounts, int accountsPerClient, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            int clients = (accounts + accountsPerClient - 1) / accountsPerClient;
+            int nextAccountId = 1;
+            for (int i = 0; i < clients; i++) {
+                Client client = new Client("Client " + i, i % 2 == 0 ? Gender.MALE : Gender.FEMALE, "City " + (i % CITIES));
+                for (int a = 0; a < accountsPerClient && nextAccountId <= accounts; a++, nextAccountId++) {
+                    long balance = random.nextLong(1_000_000);
+                    if (a % 2 == 0) {
+                        client.addAccount(SavingAccount.ofCents(nextAccountId, balance));
+                    } else {
+                        client.addAccount(CheckingAccount.ofCents(nextAccountId, balance - 200_000, 50_000 + random.nextLong(200_000)));
+                    }
+                }
+                bank.addClient(client);
+            }
+        } catch (ClientExistsException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            System.setOut(out);
+        }
+        return bank;
+    }
+}
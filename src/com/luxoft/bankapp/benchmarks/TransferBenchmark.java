@@ -0,0 +1,92 @@
+package com.luxoft.bankapp.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.service.TransferService;
+
+/**
+ * Measures throughput of random transfers between accounts and checks that the total amount of
+ * money held by all accounts is the same after the run as before it.
+ * <p>
+ * Usage: {@code TransferBenchmark [accounts] [transfersPerThread]}
+ */
+public class TransferBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) throws InterruptedException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int transfers = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+
+        System.out.format("%-8s %20s %12s%n", "threads", "transfers/s", "declined");
+        for (int threads : THREAD_COUNTS) {
+            // warm up before measuring
+            run(accounts, threads, transfers / 10, false);
+            run(accounts, threads, transfers, true);
+        }
+    }
+
+    private static void run(int accountCount, int threads, int transfers, boolean report) throws InterruptedException {
+        Account[] accounts = new Account[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accounts[i] = i % 2 == 0 ? SavingAccount.ofCents(i, 10_000) : CheckingAccount.ofCents(i, 10_000, 5_000);
+        }
+        long totalBefore = total(accounts);
+
+        TransferService transferService = new TransferService();
+        LongAdder declined = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = new SplittableRandom(i);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < transfers; j++) {
+                        Account from = accounts[random.nextInt(accountCount)];
+                        Account to = accounts[random.nextInt(accountCount)];
+                        if (!transferService.tryTransferCents(from, to, random.nextInt(1, 5_000))) {
+                            declined.increment();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        long totalAfter = total(accounts);
+        if (totalAfter != totalBefore) {
+            throw new IllegalStateException("Money not conserved: " + totalBefore + " before, " + totalAfter + " after");
+        }
+
+        if (report) {
+            System.out.format("%-8d %20.0f %12d%n", threads, (double) threads * transfers / (elapsed / 1e9), declined.sum());
+        }
+    }
+
+    private static long total(Account[] accounts) {
+        long total = 0;
+        for (Account account : accounts) {
+            total += account.getBalanceCents();
+        }
+        return total;
+    }
+}
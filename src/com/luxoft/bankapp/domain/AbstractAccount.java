@@ -1,36 +1,127 @@
 package com.luxoft.bankapp.domain;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
+import com.luxoft.bankapp.metrics.BankMetrics;
 
+/**
+ * Base class for accounts. Balance updates are lock-free: deposits are a single atomic add,
+ * and withdrawals read the current balance and publish the new one with a compare-and-set,
+ * retrying when another thread got in first, so concurrent updates are never lost.
+ * <p>
+ * The balance field holds the cents shifted left by {@link #FLAG_BITS}, with the {@link #OWNED}
+ * and {@link #REGISTERED} flags in the low bits. The owner takes the balance it starts from by
+ * setting {@code OWNED}, and the bank its owner joins takes its own by setting {@code REGISTERED},
+ * so every update knows from the value it replaced whether each of them already counted it or
+ * must be told.
+ */
 public abstract class AbstractAccount implements Account {
+
+	private static final VarHandle BALANCE;
+
+	static {
+		try {
+			BALANCE = MethodHandles.lookup().findVarHandle(AbstractAccount.class, "balance", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
 	
-	private int id;
-	protected double balance;
+	static final int FLAG_BITS = 2;
+	static final long OWNED = 1;
+	static final long REGISTERED = 2;
+	static final long FLAGS = OWNED | REGISTERED;
+
+	protected static final String DECLINED_MESSAGE = "Requested amount exceeds the maximum amount to withdraw";
+
+	/**
+	 * What {@link #withdrawOrGetBalance(long)} returns for an approved withdrawal. No balance
+	 * shifted into the balance word can take this value.
+	 */
+	static final long APPROVED = Long.MIN_VALUE;
+
+	private final int id;
+	private volatile long balance;
+	private volatile Client owner;
 	
 	public AbstractAccount(int id, double balance) {
+		this(id, Money.toCents(balance));
+	}
+
+	protected AbstractAccount(int id, long balance) {
 		this.id = id;
-		this.balance = balance;
+		this.balance = balance << FLAG_BITS;
 	}
 
 	@Override
-	public void deposit(final double amount) {
+	public void depositCents(final long amount) {
 		if (amount < 0) {
 			throw new IllegalArgumentException("Cannot deposit a negative amount");
 		}
-		this.balance += amount;
+
+		long sampleStart = BankMetrics.startSample();
+		long previous = (long) BALANCE.getAndAdd(this, amount << FLAG_BITS);
+		balanceChanged(previous, amount);
+		BankMetrics.deposited(sampleStart);
+	}
+
+	@Override
+	public void withdrawCents(final long amount) throws NotEnoughFundsException {
+		long balance = withdrawOrGetBalance(amount);
+		if (balance != APPROVED) {
+			throw new NotEnoughFundsException(id, balance, amount, DECLINED_MESSAGE);
+		}
 	}
 
+	/**
+	 * Withdraws the amount if it does not exceed the maximum amount to withdraw, and returns
+	 * whether it did. A decline allocates nothing.
+	 */
 	@Override
-	public void withdraw(final double amount) throws NotEnoughFundsException {
+	public boolean tryWithdrawCents(final long amount) {
+		return withdrawOrGetBalance(amount) == APPROVED;
+	}
+
+	/**
+	 * Withdraws the amount and returns {@link #APPROVED}, or returns the balance that declined
+	 * it, so a declined withdrawal reports the balance it was checked against rather than a
+	 * later read.
+	 */
+	protected final long withdrawOrGetBalance(final long amount) {
 		if (amount < 0) {
 			throw new IllegalArgumentException("Cannot withdraw a negative amount");
 		}
-		
-		if (amount > maximumAmountToWithdraw()) {
-			throw new NotEnoughFundsException(id, balance, amount, "Requested amount exceeds the maximum amount to withdraw");
+
+		long sampleStart = BankMetrics.startSample();
+		long current;
+		do {
+			current = balance;
+			if (amount > maximumAmountToWithdrawCents(current >> FLAG_BITS)) {
+				BankMetrics.withdrawalDeclined(sampleStart);
+				return current >> FLAG_BITS;
+			}
+		} while (!BALANCE.compareAndSet(this, current, current - (amount << FLAG_BITS)));
+		balanceChanged(current, -amount);
+		BankMetrics.withdrawn(sampleStart);
+		return APPROVED;
+	}
+
+	@Override
+	public boolean compareAndSetBalanceCents(final long expectedBalance, final long newBalance) {
+		long current;
+		do {
+			current = balance;
+			if (current >> FLAG_BITS != expectedBalance) {
+				return false;
+			}
+			// the flags may have changed under us, which is no reason to fail
+		} while (!BALANCE.compareAndSet(this, current, newBalance << FLAG_BITS | (current & FLAGS)));
+		if (newBalance != expectedBalance) {
+			balanceChanged(current, newBalance - expectedBalance);
 		}
-		
-		this.balance -= amount;
+		return true;
 	}
 
 	@Override
@@ -39,8 +130,43 @@ public abstract class AbstractAccount implements Account {
 	}
 
 	@Override
-	public double getBalance() {
-		return balance;
+	public long getBalanceCents() {
+		return balance >> FLAG_BITS;
+	}
+
+	@Override
+	public long maximumAmountToWithdrawCents() {
+		return maximumAmountToWithdrawCents(getBalanceCents());
 	}
 
+	/**
+	 * Publishes the owner, then sets the {@link #OWNED} flag and returns the balance it replaced.
+	 * Updates applied before the flag are part of that balance, and the owner is told about
+	 * every later one.
+	 */
+	long setOwner(Client owner) {
+		this.owner = owner;
+		return (long) BALANCE.getAndBitwiseOr(this, OWNED) >> FLAG_BITS;
+	}
+
+	/**
+	 * Sets the {@link #REGISTERED} flag and returns the balance it replaced, which the bank
+	 * starts from; every later update is reported to it.
+	 */
+	long register() {
+		return (long) BALANCE.getAndBitwiseOr(this, REGISTERED) >> FLAG_BITS;
+	}
+
+	private void balanceChanged(long previous, long delta) {
+		if ((previous & OWNED) != 0) {
+			owner.onBalanceChanged(this, delta, (previous & REGISTERED) != 0);
+		}
+	}
+
+	/**
+	 * Returns the maximum amount, in cents, that can be withdrawn when the account holds the given balance.
+	 * Withdrawals check against the balance they are about to replace, not a second read of it.
+	 */
+	protected abstract long maximumAmountToWithdrawCents(long balance);
+
 }
@@ -2,10 +2,54 @@ package com.luxoft.bankapp.domain;
 
 import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
 
+/**
+ * All amounts are expressed in cents, see {@link Money}. The {@code double} methods are
+ * adapters for callers that still work with decimal amounts.
+ * <p>
+ * {@link #tryWithdrawCents(long)} reports a declined withdrawal through its return value and
+ * is the cheap path for callers that expect declines; {@link #withdrawCents(long)} throws instead.
+ */
 public interface Account {
-	public void deposit(double amount);
-	public void withdraw(double amount) throws NotEnoughFundsException;
+	public void depositCents(long amount);
+	public void withdrawCents(long amount) throws NotEnoughFundsException;
+	public boolean tryWithdrawCents(long amount);
 	public int getId();
-	public double getBalance();
-	public double maximumAmountToWithdraw();
+	public long getBalanceCents();
+	public long maximumAmountToWithdrawCents();
+	public AccountType getType();
+
+	/**
+	 * Sets the balance to {@code newBalance} if it is still {@code expectedBalance}, as one atomic
+	 * step, and reports the difference like a deposit or withdrawal would. Lets a caller work out
+	 * several postings against one read of the balance and publish them together; on false
+	 * nothing changed and the caller starts over from a fresh read.
+	 */
+	public boolean compareAndSetBalanceCents(long expectedBalance, long newBalance);
+
+	/**
+	 * Returns how far below zero the balance may go, in cents.
+	 */
+	public default long getOverdraftCents() {
+		return 0;
+	}
+
+	public default void deposit(double amount) {
+		depositCents(Money.toCents(amount));
+	}
+
+	public default void withdraw(double amount) throws NotEnoughFundsException {
+		withdrawCents(Money.toCents(amount));
+	}
+
+	public default boolean tryWithdraw(double amount) {
+		return tryWithdrawCents(Money.toCents(amount));
+	}
+
+	public default double getBalance() {
+		return Money.toDouble(getBalanceCents());
+	}
+
+	public default double maximumAmountToWithdraw() {
+		return Money.toDouble(maximumAmountToWithdrawCents());
+	}
 }
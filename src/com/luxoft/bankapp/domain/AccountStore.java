@@ -0,0 +1,289 @@
+package com.luxoft.bankapp.domain;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
+import com.luxoft.bankapp.exceptions.OverdraftLimitExceededException;
+import com.luxoft.bankapp.metrics.BankMetrics;
+
+/**
+ * Columnar storage for accounts: ids, balances, overdrafts, types and owners live in parallel
+ * primitive arrays indexed by slot, instead of one object per account. Scans such as
+ * {@link #getCreditSumCents()} read contiguous arrays. Each stored account is handed out as a
+ * small view implementing {@link Account}; views of the same slot are equal, and the balance
+ * updates follow the same lock-free rules as {@link AbstractAccount}.
+ * <p>
+ * The capacity is fixed when the store is created.
+ */
+public class AccountStore {
+
+	private static final VarHandle BALANCES = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle OWNERS = MethodHandles.arrayElementVarHandle(Client[].class);
+	private static final byte SAVING = 0;
+	private static final byte CHECKING = 1;
+
+	private final int[] ids;
+	private final long[] balances;
+	private final long[] overdrafts;
+	private final byte[] types;
+	private final Client[] owners;
+	private volatile int size;
+
+	public AccountStore(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		ids = new int[capacity];
+		balances = new long[capacity];
+		overdrafts = new long[capacity];
+		types = new byte[capacity];
+		owners = new Client[capacity];
+	}
+
+	public Account addSavingAccount(int id, long balance) {
+		return add(id, balance, 0, SAVING);
+	}
+
+	public Account addCheckingAccount(int id, long balance, long overdraft) {
+		if (overdraft < 0) {
+			throw new IllegalArgumentException("Cannot create an account with a starting negative overdraft");
+		}
+		return add(id, balance, overdraft, CHECKING);
+	}
+
+	/**
+	 * Returns a view of the account in the given slot; slots are numbered in the order the
+	 * accounts were added.
+	 */
+	public Account getAccount(int slot) {
+		if (slot < 0 || slot >= size) {
+			throw new IndexOutOfBoundsException("No account in slot " + slot);
+		}
+		return new StoredAccount(this, slot);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return ids.length;
+	}
+
+	/**
+	 * Returns the sum of all checking account balances, in cents, by scanning the type and
+	 * balance columns.
+	 */
+	public long getCreditSumCents() {
+		int count = size;
+		long sum = 0;
+		for (int slot = 0; slot < count; slot++) {
+			if (types[slot] == CHECKING) {
+				sum += (long) BALANCES.getOpaque(balances, slot) >> AbstractAccount.FLAG_BITS;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the sum of all balances, in cents.
+	 */
+	public long getTotalBalanceCents() {
+		int count = size;
+		long sum = 0;
+		for (int slot = 0; slot < count; slot++) {
+			sum += (long) BALANCES.getOpaque(balances, slot) >> AbstractAccount.FLAG_BITS;
+		}
+		return sum;
+	}
+
+	private synchronized Account add(int id, long balance, long overdraft, byte type) {
+		int slot = size;
+		if (slot == ids.length) {
+			throw new IllegalStateException("Account store is full");
+		}
+		ids[slot] = id;
+		balances[slot] = balance << AbstractAccount.FLAG_BITS;
+		overdrafts[slot] = overdraft;
+		types[slot] = type;
+		// publishes the columns of the new slot to readers of size
+		size = slot + 1;
+		return new StoredAccount(this, slot);
+	}
+
+	int getId(int slot) {
+		return ids[slot];
+	}
+
+	long getBalance(int slot) {
+		return (long) BALANCES.getVolatile(balances, slot) >> AbstractAccount.FLAG_BITS;
+	}
+
+	long getOverdraft(int slot) {
+		return overdrafts[slot];
+	}
+
+	AccountType getType(int slot) {
+		return types[slot] == CHECKING ? AccountType.CHECKING : AccountType.SAVING;
+	}
+
+	void deposit(int slot, StoredAccount view, long amount) {
+		if (amount < 0) {
+			throw new IllegalArgumentException("Cannot deposit a negative amount");
+		}
+
+		long sampleStart = BankMetrics.startSample();
+		long previous = (long) BALANCES.getAndAdd(balances, slot, amount << AbstractAccount.FLAG_BITS);
+		balanceChanged(slot, view, previous, amount);
+		BankMetrics.deposited(sampleStart);
+	}
+
+	/**
+	 * Withdraws from the slot and returns {@link AbstractAccount#APPROVED}, or the balance that
+	 * declined the withdrawal.
+	 */
+	long withdrawOrGetBalance(int slot, StoredAccount view, long amount) {
+		if (amount < 0) {
+			throw new IllegalArgumentException("Cannot withdraw a negative amount");
+		}
+
+		long sampleStart = BankMetrics.startSample();
+		long limit = overdrafts[slot];
+		long current;
+		do {
+			current = (long) BALANCES.getVolatile(balances, slot);
+			if (amount > (current >> AbstractAccount.FLAG_BITS) + limit) {
+				BankMetrics.withdrawalDeclined(sampleStart);
+				return current >> AbstractAccount.FLAG_BITS;
+			}
+		} while (!BALANCES.compareAndSet(balances, slot, current, current - (amount << AbstractAccount.FLAG_BITS)));
+		balanceChanged(slot, view, current, -amount);
+		BankMetrics.withdrawn(sampleStart);
+		return AbstractAccount.APPROVED;
+	}
+
+	boolean compareAndSetBalance(int slot, StoredAccount view, long expected, long balance) {
+		long current;
+		do {
+			current = (long) BALANCES.getVolatile(balances, slot);
+			if (current >> AbstractAccount.FLAG_BITS != expected) {
+				return false;
+			}
+		} while (!BALANCES.compareAndSet(balances, slot, current,
+				balance << AbstractAccount.FLAG_BITS | (current & AbstractAccount.FLAGS)));
+		if (balance != expected) {
+			balanceChanged(slot, view, current, balance - expected);
+		}
+		return true;
+	}
+
+	/**
+	 * Publishes the owner of the slot and returns the balance it starts from, as
+	 * {@link AbstractAccount} does.
+	 */
+	long setOwner(int slot, Client owner) {
+		OWNERS.setVolatile(owners, slot, owner);
+		return (long) BALANCES.getAndBitwiseOr(balances, slot, AbstractAccount.OWNED) >> AbstractAccount.FLAG_BITS;
+	}
+
+	long register(int slot) {
+		return (long) BALANCES.getAndBitwiseOr(balances, slot, AbstractAccount.REGISTERED) >> AbstractAccount.FLAG_BITS;
+	}
+
+	private void balanceChanged(int slot, StoredAccount view, long previous, long delta) {
+		if ((previous & AbstractAccount.OWNED) != 0) {
+			((Client) OWNERS.getAcquire(owners, slot)).onBalanceChanged(view, delta,
+					(previous & AbstractAccount.REGISTERED) != 0);
+		}
+	}
+
+	/**
+	 * The {@link Account} view of one slot.
+	 */
+	static final class StoredAccount implements Account {
+		private final AccountStore store;
+		private final int slot;
+
+		StoredAccount(AccountStore store, int slot) {
+			this.store = store;
+			this.slot = slot;
+		}
+
+		@Override
+		public void depositCents(long amount) {
+			store.deposit(slot, this, amount);
+		}
+
+		@Override
+		public void withdrawCents(long amount) throws NotEnoughFundsException {
+			long balance = store.withdrawOrGetBalance(slot, this, amount);
+			if (balance != AbstractAccount.APPROVED) {
+				if (getType() == AccountType.CHECKING) {
+					throw new OverdraftLimitExceededException(getId(), balance, amount, getOverdraftCents(), AbstractAccount.DECLINED_MESSAGE);
+				}
+				throw new NotEnoughFundsException(getId(), balance, amount, AbstractAccount.DECLINED_MESSAGE);
+			}
+		}
+
+		@Override
+		public boolean tryWithdrawCents(long amount) {
+			return store.withdrawOrGetBalance(slot, this, amount) == AbstractAccount.APPROVED;
+		}
+
+		@Override
+		public boolean compareAndSetBalanceCents(long expectedBalance, long newBalance) {
+			return store.compareAndSetBalance(slot, this, expectedBalance, newBalance);
+		}
+
+		@Override
+		public int getId() {
+			return store.getId(slot);
+		}
+
+		@Override
+		public long getBalanceCents() {
+			return store.getBalance(slot);
+		}
+
+		@Override
+		public long maximumAmountToWithdrawCents() {
+			return getBalanceCents() + store.getOverdraft(slot);
+		}
+
+		@Override
+		public long getOverdraftCents() {
+			return store.getOverdraft(slot);
+		}
+
+		@Override
+		public AccountType getType() {
+			return store.getType(slot);
+		}
+
+		long setOwner(Client owner) {
+			return store.setOwner(slot, owner);
+		}
+
+		long register() {
+			return store.register(slot);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof StoredAccount)) {
+				return false;
+			}
+			StoredAccount other = (StoredAccount) o;
+			return store == other.store && slot == other.slot;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(store) + slot;
+		}
+	}
+}
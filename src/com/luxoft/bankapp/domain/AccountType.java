@@ -0,0 +1,9 @@
+package com.luxoft.bankapp.domain;
+
+/**
+ * The kind of an account. Checking accounts may have an overdraft, and their balances make up
+ * the credit figures of the bank.
+ */
+public enum AccountType {
+	SAVING, CHECKING
+}
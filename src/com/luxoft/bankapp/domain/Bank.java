@@ -1,105 +1,457 @@
 package com.luxoft.bankapp.domain;
 
-import java.text.DateFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.luxoft.bankapp.domain.mail.Email;
 import com.luxoft.bankapp.domain.mail.EmailService;
 import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.metrics.BankMetrics;
+import com.luxoft.bankapp.utils.CachedDate;
+import com.luxoft.bankapp.utils.ClientRegistrationDispatcher;
 import com.luxoft.bankapp.utils.ClientRegistrationListener;
+import com.luxoft.bankapp.utils.ConcurrentIntMap;
+import com.luxoft.bankapp.utils.DebugSink;
+import com.luxoft.bankapp.utils.ReportWriter;
+import com.luxoft.bankapp.utils.SynchronousDispatcher;
 
-public class Bank {
+public class Bank implements AutoCloseable {
 	
-	private final Set<Client> clients = new HashSet<>();
-	private final List<ClientRegistrationListener> listeners = new ArrayList<>();
+	private static final CachedDate DEBUG_DATE = new CachedDate(DateTimeFormatter.ofLocalizedDate(FormatStyle.FULL));
+	private static final ThreadLocal<StringBuilder> DEBUG_LINE = ThreadLocal.withInitial(StringBuilder::new);
+
+	private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+	private final BankStatistics statistics = new BankStatistics();
+	private final ConcurrentIntMap<Account> accountsById = new ConcurrentIntMap<>();
+	private final ConcurrentSkipListMap<String, Set<Client>> clientsByName = new ConcurrentSkipListMap<>();
+	private final List<ClientRegistrationListener> listeners;
+	private final ClientRegistrationDispatcher dispatcher;
 	
-	private int printedClients = 0;
-	private int emailedClients = 0;
-	private int debuggedClients = 0;
+	private final LongAdder printedClients = new LongAdder();
+	private final LongAdder emailedClients = new LongAdder();
+	private final LongAdder debuggedClients = new LongAdder();
+	private final LongAdder rejectedNotifications = new LongAdder();
 
-	private EmailService emailService;
+	private final EmailService emailService;
+	private final DebugSink debugSink;
+	private volatile TransactionLog transactionLog;
+	private volatile RuntimeException transactionLogFailure;
 	
 	public Bank() {
-		listeners.add(new PrintClientListener());
-		listeners.add(new EmailNotificationListener());
-		listeners.add(new DebugListener());
+		this(null);
 	}
 
 	public Bank(EmailService emailService) {
-		this();
+		this(emailService, new SynchronousDispatcher());
+	}
+
+	/**
+	 * Creates a bank whose registration listeners run through the given dispatcher.
+	 * The bank owns the dispatcher and closes it in {@link #close()}.
+	 */
+	public Bank(EmailService emailService, ClientRegistrationDispatcher dispatcher) {
+		this(emailService, dispatcher, DebugSink.DEFAULT);
+	}
+
+	/**
+	 * Creates a bank that writes its debug lines to the given sink. With {@link DebugSink#OFF}
+	 * the debug listener is left out altogether.
+	 */
+	public Bank(EmailService emailService, ClientRegistrationDispatcher dispatcher, DebugSink debugSink) {
 		this.emailService = emailService;
+		this.dispatcher = dispatcher;
+		this.debugSink = debugSink;
+		if (debugSink == DebugSink.OFF) {
+			this.listeners = List.of(timed(new PrintClientListener()), timed(new EmailNotificationListener()));
+		} else {
+			this.listeners = List.of(timed(new PrintClientListener()), timed(new EmailNotificationListener()), timed(new DebugListener()));
+		}
 	}
 	
 	public int getPrintedClients() {
-		return printedClients;
+		return printedClients.intValue();
 	}
 
 	public int getEmailedClients() {
-		return emailedClients;
+		return emailedClients.intValue();
 	}
 
 	public int getDebuggedClients() {
-		return debuggedClients;
+		return debuggedClients.intValue();
+	}
+
+	/**
+	 * Number of listener notifications discarded by the dispatcher because its queue was full,
+	 * or refused by it because of {@link com.luxoft.bankapp.utils.BackpressurePolicy#REJECT} or
+	 * because it was closed. The clients are registered all the same.
+	 */
+	public long getDroppedNotifications() {
+		return dispatcher.getDroppedCount() + rejectedNotifications.sum();
 	}
 	
+	/**
+	 * Registers the client. The duplicate check and the insert are a single atomic step,
+	 * so concurrent registrations of the same customer let exactly one of them through.
+	 */
 	public void addClient(final Client client) throws ClientExistsException {
-    	if (clients.contains(client)) {
+		long start = BankMetrics.start();
+    	if (!clients.add(client)) {
     		throw new ClientExistsException("Client already exists into the bank");
     	} 
     		
-    	clients.add(client);
+    	client.attach(this, statistics, transactionLog);
+    	index(client);
         notify(client);
+		BankMetrics.recordSince(BankMetrics.ADD_CLIENT_LATENCY, start);
+	}
+
+	/**
+	 * Registers a batch of clients and notifies the listeners once for the whole batch. Clients
+	 * already in the bank, or repeated in the batch, are skipped rather than rejected.
+	 *
+	 * @return the clients that were added, in batch order
+	 */
+	public List<Client> addClients(final Collection<Client> batch) {
+		List<Client> added = new ArrayList<>(batch.size());
+		TransactionLog log = transactionLog;
+		for (Client client : batch) {
+			if (clients.add(client)) {
+				client.attach(this, statistics, log);
+				index(client);
+				added.add(client);
+			}
+		}
+
+		if (!added.isEmpty()) {
+			try {
+				dispatcher.dispatchAll(Collections.unmodifiableList(added), listeners);
+			} catch (RejectedExecutionException e) {
+				notificationRejected(e);
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Returns the registered client that {@link Client#equals(Object) equals} the given one, or
+	 * {@code null}. A client is found once {@link #addClient} or {@link #addClients} has indexed
+	 * it, shortly after it was added to {@link #getClients()}.
+	 */
+	public Client getClient(Client client) {
+		Set<Client> sameName = clientsByName.get(nameKey(client.getName()));
+		if (sameName != null) {
+			for (Client registered : sameName) {
+				if (registered.equals(client)) {
+					return registered;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Registers a client rebuilt from persisted state, such as a journal being replayed.
+	 * Listeners are not notified and nothing is written to the transaction log.
+	 */
+	public void restoreClient(final Client client) throws ClientExistsException {
+		if (!clients.add(client)) {
+			throw new ClientExistsException("Client already exists into the bank");
+		}
+
+		client.attach(this, statistics, null);
+		index(client);
+	}
+
+	/**
+	 * Adds the client to the name index and its accounts to the account index. An account added
+	 * concurrently may be indexed here and by {@link #onAccountAdded} as well, which is harmless.
+	 */
+	private void index(Client client) {
+		clientsByName.computeIfAbsent(nameKey(client.getName()), name -> ConcurrentHashMap.newKeySet()).add(client);
+		for (Account account : client.getAccounts()) {
+			accountsById.putIfAbsent(account.getId(), account);
+		}
+	}
+
+	private static String nameKey(String name) {
+		return name == null ? "" : name;
+	}
+
+	/**
+	 * Records every later registration, account addition and balance change to the given log,
+	 * or stops recording when it is {@code null}. Set it before the bank is in use.
+	 * <p>
+	 * The log is called on the thread that made the change, after the change was applied, so a
+	 * log that serializes its writes, as {@link com.luxoft.bankapp.domain.journal.Journal} does
+	 * on its monitor, serializes every deposit and withdrawal of the registered clients with it.
+	 * A log that throws, because it was closed or failed to write, is dropped for good and the
+	 * failure kept for {@link #getTransactionLogFailure()}: the change that was being logged
+	 * still happened, so it completes normally, and the log keeps a consistent prefix of the
+	 * bank's history rather than one with gaps.
+	 */
+	public void setTransactionLog(TransactionLog transactionLog) {
+		this.transactionLog = transactionLog;
+	}
+
+	/**
+	 * Returns what made the transaction log fail and stop recording, or {@code null}.
+	 */
+	public RuntimeException getTransactionLogFailure() {
+		return transactionLogFailure;
 	}
 	
+	/**
+	 * Records how long the listener takes in {@link BankMetrics#LISTENER_LATENCY}, whichever
+	 * thread the dispatcher runs it on.
+	 */
+	private static ClientRegistrationListener timed(ClientRegistrationListener listener) {
+		return new ClientRegistrationListener() {
+			@Override
+			public void onClientAdded(Client client) {
+				long start = BankMetrics.start();
+				listener.onClientAdded(client);
+				BankMetrics.recordSince(BankMetrics.LISTENER_LATENCY, start);
+			}
+
+			@Override
+			public void onClientsAdded(List<Client> clients) {
+				long start = BankMetrics.start();
+				listener.onClientsAdded(clients);
+				BankMetrics.recordSince(BankMetrics.LISTENER_LATENCY, start);
+			}
+		};
+	}
+
 	private void notify(Client client) {
-        for (ClientRegistrationListener listener: listeners) {
-            listener.onClientAdded(client);
-        }
-    }
+		try {
+			dispatcher.dispatch(client, listeners);
+		} catch (RejectedExecutionException e) {
+			notificationRejected(e);
+		}
+	}
+
+	/**
+	 * The client is already registered by the time the listeners are notified, so a refused
+	 * notification is reported as dropped instead of failing the registration.
+	 */
+	private void notificationRejected(RejectedExecutionException e) {
+		rejectedNotifications.increment();
+		debugSink.log("Registration notification dropped: " + e.getMessage());
+	}
+
+	/**
+	 * Waits for pending registration notifications to be delivered and stops the dispatcher.
+	 */
+	@Override
+	public void close() {
+		dispatcher.close();
+	}
 	
 	public Set<Client> getClients() {
 		return Collections.unmodifiableSet(clients);
 	}
+
+	/**
+	 * Returns the statistics of this bank, maintained as clients, accounts and balances change.
+	 */
+	public BankStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Returns the account with the given id, or {@code null}. Account ids are expected to be
+	 * unique; if two accounts share one, the first registered is returned.
+	 */
+	public Account getAccount(int id) {
+		return accountsById.get(id);
+	}
+
+	/**
+	 * Returns the clients living in the given city, see {@link BankStatistics#getClientsInCity(String)}.
+	 */
+	public Set<Client> getClientsInCity(String city) {
+		return statistics.getClientsInCity(city);
+	}
+
+	/**
+	 * Returns the clients grouped by city and ordered by city name, as a live read-only view.
+	 */
+	public SortedMap<String, Set<Client>> getClientsByCity() {
+		return statistics.getClientsByCity();
+	}
+
+	/**
+	 * Returns the clients whose name starts with the given prefix, ordered by name.
+	 */
+	public List<Client> getClientsByNamePrefix(String prefix) {
+		List<Client> result = new ArrayList<>();
+		for (Map.Entry<String, Set<Client>> entry : clientsByName.tailMap(prefix).entrySet()) {
+			if (!entry.getKey().startsWith(prefix)) {
+				break;
+			}
+			result.addAll(entry.getValue());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns up to {@code k} clients with the highest total balance, richest first. Clients with
+	 * equal balances are ordered by {@link Client#IDENTITY_ORDER}.
+	 */
+	public List<Client> getRichestClients(int k) {
+		return ClientRanking.top(clients, k, true);
+	}
+
+	/**
+	 * Returns up to {@code k} clients with the lowest total balance, poorest first.
+	 */
+	public List<Client> getPoorestClients(int k) {
+		return ClientRanking.top(clients, k, false);
+	}
+
+	/**
+	 * Returns the clients whose total balance, in cents, lies between the bounds (inclusive),
+	 * ordered by balance.
+	 */
+	public List<Client> getClientsWithBalanceBetween(long minCents, long maxCents) {
+		return ClientRanking.inRange(clients, minCents, maxCents);
+	}
+
+	void onAccountAdded(Client client, Account account, long balance) {
+		statistics.onAccountAdded(account, balance);
+		accountsById.putIfAbsent(account.getId(), account);
+		TransactionLog log = transactionLog;
+		if (log != null) {
+			try {
+				log.accountAdded(client, account, balance);
+			} catch (RuntimeException e) {
+				transactionLogFailed(log, e);
+			}
+		}
+	}
+
+	void onBalanceChanged(Account account, long delta) {
+		statistics.onBalanceChanged(account, delta);
+		TransactionLog log = transactionLog;
+		if (log != null) {
+			try {
+				log.balanceChanged(account, delta);
+			} catch (RuntimeException e) {
+				transactionLogFailed(log, e);
+			}
+		}
+	}
+
+	/**
+	 * Logs a registration to the log the registration started with, unless it failed since.
+	 */
+	void logClientAdded(TransactionLog log, Client client, List<Account> accounts, long[] balances) {
+		if (log != transactionLog) {
+			return;
+		}
+		try {
+			log.clientAdded(client, accounts, balances);
+		} catch (RuntimeException e) {
+			transactionLogFailed(log, e);
+		}
+	}
+
+	private synchronized void transactionLogFailed(TransactionLog log, RuntimeException failure) {
+		if (transactionLog != log) {
+			return;
+		}
+		transactionLog = null;
+		transactionLogFailure = failure;
+		debugSink.log("Transaction log failed, no longer recording: " + failure);
+	}
 	
 	class PrintClientListener implements ClientRegistrationListener {
 		@Override 
 		public void onClientAdded(Client client) {
-	        System.out.println("Client added: " + client.getName());
-	        printedClients++;
+	        ReportWriter.console().text("Client added: ").text(client.getName()).newLine().flush();
+	        printedClients.increment();
 	    }
 
+		@Override
+		public void onClientsAdded(List<Client> clients) {
+			ReportWriter.console().text("Clients added: ").number(clients.size()).newLine().flush();
+			printedClients.add(clients.size());
+		}
+
 	}
 	
 	class EmailNotificationListener implements ClientRegistrationListener {
 		@Override 
 		public void onClientAdded(Client client) {
-	        System.out.println("Notification email for client " + client.getName() + " to be sent");
+	        ReportWriter.console().text("Notification email for client ").text(client.getName()).text(" to be sent").newLine().flush();
 
 			if (emailService != null) {
 				emailService.sendNotificationEmail(new Email(client, "bank", client.getName(), "Welcome to our bank!", "Welcome to our bank!"));
 			}
 
-	        emailedClients++;
+	        emailedClients.increment();
 	    }
+
+		@Override
+		public void onClientsAdded(List<Client> clients) {
+			ReportWriter.console().text("Notification emails for ").number(clients.size()).text(" clients to be sent").newLine().flush();
+
+			if (emailService != null) {
+				for (Client client : clients) {
+					emailService.sendNotificationEmail(new Email(client, "bank", client.getName(), "Welcome to our bank!", "Welcome to our bank!"));
+				}
+			}
+
+			emailedClients.add(clients.size());
+		}
 	}
 	
 	class DebugListener implements ClientRegistrationListener {
         @Override 
         public void onClientAdded(Client client) {
-            System.out.println("Client " + client.getName() + " added on: " + DateFormat.getDateInstance(DateFormat.FULL).format(new Date()));
-            debuggedClients++;
+            StringBuilder line = debugLine();
+            line.append("Client ").append(client.getName()).append(" added on: ").append(DEBUG_DATE.today());
+            debugSink.log(line);
+            debuggedClients.increment();
         }
+
+		@Override
+		public void onClientsAdded(List<Client> clients) {
+			StringBuilder line = debugLine();
+			line.append(clients.size()).append(" clients added on: ").append(DEBUG_DATE.today());
+			debugSink.log(line);
+			debuggedClients.add(clients.size());
+		}
     }
 
+	private static StringBuilder debugLine() {
+		StringBuilder line = DEBUG_LINE.get();
+		line.setLength(0);
+		return line;
+	}
+
+	/**
+	 * Prints the statistics. Counts and totals come from {@link BankStatistics}, and clients are
+	 * sorted on their maintained totals, so no account balance is summed here.
+	 */
 	public void displayStatistics() {
-		BankReport bankReport = new BankReport();
-
-		System.out.println("[statistics] Number of clients: " + bankReport.getNumberOfClients(this));
-		System.out.println("[statistics] Number of accounts: " + bankReport.getNumberOfAccounts(this));
-		System.out.println("[statistics] Clients sorted by balance: " + bankReport.getClientsSorted(this));
-		System.out.println("[statistics] Total amount of credits: " + bankReport.getBankCreditSum(this));
-		System.out.println("[statistics] Customer accounts: " + bankReport.getCustomerAccounts(this));
-		System.out.println("[statistics] Clients by city: " + bankReport.getClientsByCity(this));
+		List<Client> sortedClients = getClientsWithBalanceBetween(Long.MIN_VALUE, Long.MAX_VALUE);
+		Map<Client, Collection<Account>> customerAccounts = new LinkedHashMap<>();
+		for (Client client : sortedClients) {
+			customerAccounts.put(client, client.getAccounts());
+		}
+
+		System.out.println("[statistics] Number of clients: " + statistics.getNumberOfClients());
+		System.out.println("[statistics] Number of accounts: " + statistics.getNumberOfAccounts());
+		System.out.println("[statistics] Clients sorted by balance: " + sortedClients);
+		System.out.println("[statistics] Total amount of credits: " + statistics.getBankCreditSum());
+		System.out.println("[statistics] Customer accounts: " + customerAccounts);
+		System.out.println("[statistics] Clients by city: " + statistics.getClientsByCity());
 	}
 }
 
@@ -10,14 +10,14 @@ public class BankReport {
     /**
      * Returns the number of clients in the bank
      */
-    int getNumberOfClients(Bank bank) {
+    public int getNumberOfClients(Bank bank) {
         return bank.getClients().size();
     }
 
     /**
      * Returns the total number of accounts for all bank clients.
      */
-    int getNumberOfAccounts(Bank bank) {
+    public int getNumberOfAccounts(Bank bank) {
         int sum = 0;
         for (Client client : bank.getClients()) {
             sum += client.getAccounts().size();
@@ -27,22 +27,24 @@ public class BankReport {
     }
 
     /**
-     * Returns the set of all accounts. The list is ordered by current account balance.
+     * Returns the set of all accounts. The list is ordered by current account balance;
+     * clients with the same balance are ordered by {@link Client#IDENTITY_ORDER}.
      */
-    SortedSet<Client> getClientsSorted(Bank bank) {
+    public SortedSet<Client> getClientsSorted(Bank bank) {
         SortedSet<Client> sortedClients = new TreeSet<>((o1, o2) -> {
-            double balance1 = 0;
-            double balance2 = 0;
+            long balance1 = 0;
+            long balance2 = 0;
 
             for (Account account : o1.getAccounts()) {
-                balance1 += account.getBalance();
+                balance1 += account.getBalanceCents();
             }
 
             for (Account account : o2.getAccounts()) {
-                balance2 += account.getBalance();
+                balance2 += account.getBalanceCents();
             }
 
-            return Double.compare(balance1, balance2);
+            int result = Long.compare(balance1, balance2);
+            return result != 0 ? result : Client.IDENTITY_ORDER.compare(o1, o2);
         });
 
         sortedClients.addAll(bank.getClients());
@@ -53,12 +55,19 @@ public class BankReport {
      * Returns the total amount of credits granted to the bank clients.
      * That is, the sum of all values above account balance for CheckingAccount
      */
-    double getBankCreditSum(Bank bank) {
-        double sum = 0;
+    public double getBankCreditSum(Bank bank) {
+        return Money.toDouble(getBankCreditSumCents(bank));
+    }
+
+    /**
+     * Same as {@link #getBankCreditSum(Bank)}, in cents.
+     */
+    public long getBankCreditSumCents(Bank bank) {
+        long sum = 0;
         for (Client client : bank.getClients()) {
             for (Account account : client.getAccounts()) {
-                if (account instanceof CheckingAccount) {
-                    sum += account.getBalance();
+                if (account.getType() == AccountType.CHECKING) {
+                    sum += account.getBalanceCents();
                 }
             }
         }
@@ -71,7 +80,7 @@ public class BankReport {
      * because a client already has a list of his/her accounts.
      * The aim of this step is to learn to declare complex data structures using generics and convert data
      */
-    Map<Client, Collection<Account>> getCustomerAccounts(Bank bank) {
+    public Map<Client, Collection<Account>> getCustomerAccounts(Bank bank) {
         Map<Client, Collection<Account>> result = new HashMap<>();
         for (Client client : bank.getClients()) {
             result.put(client, client.getAccounts());
@@ -85,7 +94,7 @@ public class BankReport {
      * the keys and values – the list of clients in each city.
      * Print the resulting table, and order by city name alphabetically.
      */
-    Map<String, ArrayList<Client>> getClientsByCity(Bank bank) {
+    public Map<String, ArrayList<Client>> getClientsByCity(Bank bank) {
         Map<String, ArrayList<Client>> result = new HashMap<>();
         for (Client client : bank.getClients()) {
             String city = client.getCity();
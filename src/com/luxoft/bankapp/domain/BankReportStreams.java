@@ -1,9 +1,36 @@
 package com.luxoft.bankapp.domain;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Bank reports built with streams. By default the streams are sequential; when created with
+ * a {@link ForkJoinPool}, every report runs as a parallel stream inside that pool, splitting
+ * the client registry across its workers. Both modes produce the same results.
+ */
 public class BankReportStreams {
+
+    private final ForkJoinPool pool;
+
+    public BankReportStreams() {
+        this.pool = null;
+    }
+
+    /**
+     * Creates a report engine that runs its reports in parallel on the given pool.
+     */
+    public BankReportStreams(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public boolean isParallel() {
+        return pool != null;
+    }
+
     /**
      * Returns the number of clients in the bank
      */
@@ -15,31 +42,42 @@ public class BankReportStreams {
      * Returns the total number of accounts for all bank clients.
      */
     public int getNumberOfAccounts(Bank bank) {
-        return bank.getClients().stream().mapToInt(client -> client.getAccounts().size()).sum();
+        return run(() -> clients(bank).mapToInt(client -> client.getAccounts().size()).sum());
     }
 
     /**
-     * Returns the set of all accounts. The list is ordered by current account balance.
+     * Returns the set of all accounts. The list is ordered by current account balance;
+     * clients with the same balance are ordered by {@link Client#IDENTITY_ORDER}.
+     * Each client's balance is summed once up front rather than on every comparison, so the
+     * order is that of the balances at that time and the set is unmodifiable.
      */
     public SortedSet<Client> getClientsSorted(Bank bank) {
-        return bank.getClients().stream()
-                .collect(Collectors.toCollection(
-                                () ->
-                                        new TreeSet<>(Comparator.comparingDouble(client -> client.getAccounts().stream().mapToDouble(Account::getBalance).sum()))
-                        )
-                );
+        Map<Client, Long> balances = run(() -> isParallel()
+                ? clients(bank).collect(Collectors.toConcurrentMap(client -> client, BankReportStreams::balanceOf))
+                : clients(bank).collect(Collectors.toMap(client -> client, BankReportStreams::balanceOf)));
+
+        SortedSet<Client> sortedClients = new TreeSet<>(Comparator.<Client>comparingLong(balances::get).thenComparing(Client.IDENTITY_ORDER));
+        sortedClients.addAll(balances.keySet());
+        return Collections.unmodifiableSortedSet(sortedClients);
     }
 
     /**
      * Returns the total amount of credits granted to the bank clients. That is, the sum of all values above account balance for CheckingAccount
      */
     public double getBankCreditSum(Bank bank) {
-        return bank.getClients().stream().
-                mapToDouble(client -> client.getAccounts()
+        return Money.toDouble(getBankCreditSumCents(bank));
+    }
+
+    /**
+     * Same as {@link #getBankCreditSum(Bank)}, in cents.
+     */
+    public long getBankCreditSumCents(Bank bank) {
+        return run(() -> clients(bank).
+                mapToLong(client -> client.getAccounts()
                         .stream()
-                        .filter(account -> account instanceof CheckingAccount)
-                        .mapToDouble(Account::getBalance).sum()
-                ).sum();
+                        .filter(account -> account.getType() == AccountType.CHECKING)
+                        .mapToLong(Account::getBalanceCents).sum()
+                ).sum());
     }
 
     /**
@@ -48,7 +86,9 @@ public class BankReportStreams {
      * The aim of this step is to learn to declare complex data structures using generics and convert data
      */
     public Map<Client, Collection<Account>> getCustomerAccounts(Bank bank) {
-        return bank.getClients().stream().collect(Collectors.toMap(client -> client, Client::getAccounts));
+        return run(() -> isParallel()
+                ? clients(bank).collect(Collectors.toConcurrentMap(client -> client, Client::getAccounts))
+                : clients(bank).collect(Collectors.toMap(client -> client, Client::getAccounts)));
     }
 
     /**
@@ -57,7 +97,9 @@ public class BankReportStreams {
      * Print the resulting table, and order by city name alphabetically.
      */
     public Map<String, ArrayList<Client>> getClientsByCity(Bank bank) {
-        Map<String, ArrayList<Client>> result = bank.getClients().stream().collect(Collectors.groupingBy(Client::getCity, Collectors.toCollection(ArrayList::new)));
+        Map<String, ArrayList<Client>> result = run(() -> isParallel()
+                ? clients(bank).collect(Collectors.groupingByConcurrent(Client::getCity, Collectors.toCollection(ArrayList::new)))
+                : clients(bank).collect(Collectors.groupingBy(Client::getCity, Collectors.toCollection(ArrayList::new))));
 
         // print the resulting table, and order by city name alphabetically
         result.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
@@ -67,4 +109,20 @@ public class BankReportStreams {
 
         return result;
     }
+
+    private Stream<Client> clients(Bank bank) {
+        return StreamSupport.stream(bank.getClients().spliterator(), isParallel());
+    }
+
+    private <T> T run(Supplier<T> report) {
+        return pool == null ? report.get() : pool.submit(report::get).join();
+    }
+
+    private static long balanceOf(Client client) {
+        long balance = 0;
+        for (Account account : client.getAccounts()) {
+            balance += account.getBalanceCents();
+        }
+        return balance;
+    }
 }
@@ -0,0 +1,107 @@
+package com.luxoft.bankapp.domain;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates of a {@link Bank} that are kept up to date as clients and accounts are added and
+ * as balances change, so reading them does not scan the bank. Per-client totals are kept on
+ * the client itself, see {@link Client#getTotalBalanceCents()}.
+ * <p>
+ * Balances are tracked through {@link AbstractAccount} and {@link AccountStore} accounts; other
+ * {@link Account} implementations are counted with the balance they had when they were added.
+ */
+public class BankStatistics {
+
+    private final LongAdder numberOfClients = new LongAdder();
+    private final LongAdder numberOfAccounts = new LongAdder();
+    private final LongAdder creditSum = new LongAdder();
+    private final LongAdder totalBalance = new LongAdder();
+    private final ConcurrentSkipListMap<String, Set<Client>> clientsByCity = new ConcurrentSkipListMap<>();
+
+    BankStatistics() {
+    }
+
+    /**
+     * Returns the number of clients in the bank
+     */
+    public int getNumberOfClients() {
+        return numberOfClients.intValue();
+    }
+
+    /**
+     * Returns the total number of accounts for all bank clients.
+     */
+    public int getNumberOfAccounts() {
+        return numberOfAccounts.intValue();
+    }
+
+    /**
+     * Returns the sum of all CheckingAccount balances, in cents, the same figure as
+     * {@link BankReportStreams#getBankCreditSumCents(Bank)}.
+     */
+    public long getBankCreditSumCents() {
+        return creditSum.sum();
+    }
+
+    public double getBankCreditSum() {
+        return Money.toDouble(getBankCreditSumCents());
+    }
+
+    /**
+     * Returns the sum of all account balances, in cents.
+     */
+    public long getTotalBalanceCents() {
+        return totalBalance.sum();
+    }
+
+    /**
+     * Returns the clients grouped by city, ordered by city name. Clients without a city are
+     * listed under the empty string. The map is a live, read-only view.
+     */
+    public SortedMap<String, Set<Client>> getClientsByCity() {
+        return Collections.unmodifiableSortedMap(clientsByCity);
+    }
+
+    /**
+     * Returns the clients living in the given city, or an empty set.
+     */
+    public Set<Client> getClientsInCity(String city) {
+        Set<Client> clients = clientsByCity.get(cityKey(city));
+        return clients == null ? Collections.emptySet() : Collections.unmodifiableSet(clients);
+    }
+
+    /**
+     * Called with the client's running totals, which already cover all of its accounts.
+     */
+    void onClientAdded(Client client, long balance, long credit) {
+        numberOfClients.increment();
+        numberOfAccounts.add(client.getAccounts().size());
+        totalBalance.add(balance);
+        creditSum.add(credit);
+        clientsByCity.computeIfAbsent(cityKey(client.getCity()), city -> ConcurrentHashMap.newKeySet()).add(client);
+    }
+
+    void onAccountAdded(Account account, long balance) {
+        numberOfAccounts.increment();
+        totalBalance.add(balance);
+        if (account.getType() == AccountType.CHECKING) {
+            creditSum.add(balance);
+        }
+    }
+
+    void onBalanceChanged(Account account, long delta) {
+        totalBalance.add(delta);
+        if (account.getType() == AccountType.CHECKING) {
+            creditSum.add(delta);
+        }
+    }
+
+    private static String cityKey(String city) {
+        return city == null ? "" : city;
+    }
+}
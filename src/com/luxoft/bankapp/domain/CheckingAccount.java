@@ -1,34 +1,56 @@
 package com.luxoft.bankapp.domain;
 
-import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
 import com.luxoft.bankapp.exceptions.OverdraftLimitExceededException;
 
 public class CheckingAccount extends AbstractAccount {
 	
-	private double overdraft;
+	private final long overdraft;
 
 	public CheckingAccount(int id, double balance, double overdraft) {
+		this(id, Money.toCents(balance), Money.toCents(overdraft));
+	}
+
+	private CheckingAccount(int id, long balance, long overdraft) {
 		super(id, balance);
 		if (overdraft < 0) {
 			throw new IllegalArgumentException("Cannot create an account with a starting negative overdraft");
 		}
 		this.overdraft = overdraft;
 	}
+
+	public static CheckingAccount ofCents(int id, long balance, long overdraft) {
+		return new CheckingAccount(id, balance, overdraft);
+	}
 	
 	@Override
-    public void withdraw(double value) throws OverdraftLimitExceededException{
-        try {
-            super.withdraw(value);
-        } catch (NotEnoughFundsException notEnoughFundsException) {
-            throw new OverdraftLimitExceededException(notEnoughFundsException, overdraft);
+    public void withdraw(double value) throws OverdraftLimitExceededException {
+        withdrawCents(Money.toCents(value));
+    }
+
+	@Override
+    public void withdrawCents(long value) throws OverdraftLimitExceededException {
+        long balance = withdrawOrGetBalance(value);
+        if (balance != APPROVED) {
+            throw new OverdraftLimitExceededException(getId(), balance, value, overdraft, DECLINED_MESSAGE);
         }
     }
 
 	public double getOverdraft() {
+		return Money.toDouble(overdraft);
+	}
+
+	@Override
+	public long getOverdraftCents() {
 		return overdraft;
 	}
+
+	@Override
+	public AccountType getType() {
+		return AccountType.CHECKING;
+	}
 	
-	public double maximumAmountToWithdraw(){
-        return getBalance() + overdraft;
+	@Override
+	protected long maximumAmountToWithdrawCents(long balance) {
+        return balance + overdraft;
     }
 }
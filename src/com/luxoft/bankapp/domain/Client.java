@@ -1,13 +1,29 @@
 package com.luxoft.bankapp.domain;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Client {
+
+	/**
+	 * Orders clients by name, gender and city, the fields that identify a customer, so it is
+	 * consistent with {@link #equals(Object)}. Missing values come first.
+	 */
+	public static final Comparator<Client> IDENTITY_ORDER = Comparator
+			.comparing(Client::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+			.thenComparing(Client::getGender, Comparator.nullsFirst(Comparator.<Gender>naturalOrder()))
+			.thenComparing(Client::getCity, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
 	
-	private String name;
-	private Gender gender;
-	private String city;
-	private Set<Account> accounts = new HashSet<>();
+	private final String name;
+	private final Gender gender;
+	private final String city;
+	private final Set<Account> accounts = new CopyOnWriteArraySet<>();
+
+	// running totals, kept up to date by the accounts, see onBalanceChanged
+	private final LongAdder totalBalance = new LongAdder();
+	private final LongAdder creditBalance = new LongAdder();
+	private volatile Bank bank;
 
 	public Client(String name, Gender gender, String city) {
 		this.name = name;
@@ -15,8 +31,30 @@ public class Client {
 		this.city = city;
 	}
 	
-	public void addAccount(final Account account) {
-		accounts.add(account);
+	public synchronized void addAccount(final Account account) {
+		if (!accounts.add(account)) {
+			return;
+		}
+
+		// updates before the owner took over are in the balance it gets back, later ones are reported
+		long balance;
+		if (account instanceof AbstractAccount) {
+			balance = ((AbstractAccount) account).setOwner(this);
+		} else if (account instanceof AccountStore.StoredAccount) {
+			balance = ((AccountStore.StoredAccount) account).setOwner(this);
+		} else {
+			balance = account.getBalanceCents();
+		}
+		addToTotals(account, balance);
+		if (bank != null) {
+			// the account is journaled before it is registered, so none of its changes can be
+			// journaled ahead of it; those made in between are reported as one change
+			bank.onAccountAdded(this, account, balance);
+			long registered = register(account);
+			if (registered != balance) {
+				bank.onBalanceChanged(account, registered - balance);
+			}
+		}
 	}
 	
 	public String getName() {
@@ -34,6 +72,78 @@ public class Client {
 	public Set<Account> getAccounts() {
 		return Collections.unmodifiableSet(accounts);
 	}
+
+	/**
+	 * Returns the sum of the balances of all accounts, in cents, without iterating them.
+	 */
+	public long getTotalBalanceCents() {
+		return totalBalance.sum();
+	}
+
+	/**
+	 * Links the client to the bank that registered it and reports the balances its accounts
+	 * start from there, to the statistics and to the transaction log if there is one. Each
+	 * balance is taken by registering the account, so it covers exactly the updates that will
+	 * not be reported to the bank afterwards. Done under the client lock, which keeps accounts
+	 * from being added meanwhile.
+	 */
+	synchronized void attach(Bank bank, BankStatistics statistics, TransactionLog log) {
+		List<Account> registered = new ArrayList<>(accounts);
+		long[] balances = new long[registered.size()];
+		long balance = 0;
+		long credit = 0;
+		for (int i = 0; i < balances.length; i++) {
+			Account account = registered.get(i);
+			balances[i] = register(account);
+			balance += balances[i];
+			if (account.getType() == AccountType.CHECKING) {
+				credit += balances[i];
+			}
+		}
+
+		statistics.onClientAdded(this, balance, credit);
+		if (log != null) {
+			bank.logClientAdded(log, this, registered, balances);
+		}
+		this.bank = bank;
+	}
+
+	private static long register(Account account) {
+		if (account instanceof AbstractAccount) {
+			return ((AbstractAccount) account).register();
+		} else if (account instanceof AccountStore.StoredAccount) {
+			return ((AccountStore.StoredAccount) account).register();
+		}
+		return account.getBalanceCents();
+	}
+
+	/**
+	 * Called by an account after its balance changed by {@code delta} cents, with whether the
+	 * account was already registered with the bank when it changed. Only those changes are
+	 * reported to the bank; the bank may then still be being published by {@link #attach},
+	 * which is waited for under the client lock.
+	 */
+	void onBalanceChanged(Account account, long delta, boolean registered) {
+		addToTotals(account, delta);
+		if (!registered) {
+			return;
+		}
+
+		Bank registeredBank = bank;
+		if (registeredBank == null) {
+			synchronized (this) {
+				registeredBank = bank;
+			}
+		}
+		registeredBank.onBalanceChanged(account, delta);
+	}
+
+	private void addToTotals(Account account, long delta) {
+		totalBalance.add(delta);
+		if (account.getType() == AccountType.CHECKING) {
+			creditBalance.add(delta);
+		}
+	}
 	
 	public String getClientGreeting() {
 		if (gender != null) {
@@ -48,4 +158,25 @@ public class Client {
 		return getClientGreeting();
 	}
 
+	/**
+	 * Two clients are the same customer when they have the same name, gender and city,
+	 * regardless of the accounts they currently hold.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Client)) {
+			return false;
+		}
+		Client other = (Client) o;
+		return Objects.equals(name, other.name) && gender == other.gender && Objects.equals(city, other.city);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(name, gender, city);
+	}
+
 }
@@ -0,0 +1,139 @@
+package com.luxoft.bankapp.domain;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Ranks clients by {@link Client#getTotalBalanceCents()}, which every client keeps up to date,
+ * so no account is visited. Clients with the same balance are ranked by
+ * {@link Client#IDENTITY_ORDER}, so a tie never drops a client and results are deterministic.
+ * <p>
+ * Top and bottom queries keep the best {@code k} clients seen so far in a bounded heap held in
+ * two parallel arrays, in O(n log k) time and O(k) space.
+ */
+final class ClientRanking {
+
+	private ClientRanking() {
+	}
+
+	/**
+	 * Returns up to {@code k} clients with the highest balances, richest first, or with the
+	 * lowest balances, poorest first.
+	 */
+	static List<Client> top(Collection<Client> clients, int k, boolean richest) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k must not be negative");
+		}
+		int capacity = Math.min(k, clients.size());
+		long[] balances = new long[capacity];
+		Client[] heap = new Client[capacity];
+		int size = 0;
+
+		// the root is the client ranked last among those kept, the first to be replaced
+		for (Client client : clients) {
+			long balance = client.getTotalBalanceCents();
+			if (size < capacity) {
+				balances[size] = balance;
+				heap[size] = client;
+				siftUp(balances, heap, size++, richest);
+			} else if (capacity > 0 && rank(balance, client, balances[0], heap[0], richest) < 0) {
+				balances[0] = balance;
+				heap[0] = client;
+				siftDown(balances, heap, size, richest);
+			}
+		}
+
+		// popping yields the kept clients from last to first
+		Client[] result = new Client[size];
+		while (size > 0) {
+			result[size - 1] = heap[0];
+			size--;
+			balances[0] = balances[size];
+			heap[0] = heap[size];
+			heap[size] = null;
+			siftDown(balances, heap, size, richest);
+		}
+		return List.of(result);
+	}
+
+	/**
+	 * Returns the clients whose balance lies between the bounds, both inclusive, ordered by
+	 * balance.
+	 */
+	static List<Client> inRange(Collection<Client> clients, long minCents, long maxCents) {
+		long[] balances = new long[16];
+		Client[] matches = new Client[16];
+		int size = 0;
+		for (Client client : clients) {
+			long balance = client.getTotalBalanceCents();
+			if (balance >= minCents && balance <= maxCents) {
+				if (size == matches.length) {
+					balances = Arrays.copyOf(balances, 2 * size);
+					matches = Arrays.copyOf(matches, 2 * size);
+				}
+				balances[size] = balance;
+				matches[size++] = client;
+			}
+		}
+
+		// heap sort on the parallel arrays, so each balance is read once
+		for (int i = 1; i < size; i++) {
+			siftUp(balances, matches, i, false);
+		}
+		for (int end = size - 1; end > 0; end--) {
+			swap(balances, matches, 0, end);
+			siftDown(balances, matches, end, false);
+		}
+		return List.of(Arrays.copyOf(matches, size));
+	}
+
+	/**
+	 * Negative when the first client ranks before the second.
+	 */
+	private static int rank(long balance1, Client client1, long balance2, Client client2, boolean richest) {
+		int result = richest ? Long.compare(balance2, balance1) : Long.compare(balance1, balance2);
+		return result != 0 ? result : Client.IDENTITY_ORDER.compare(client1, client2);
+	}
+
+	/**
+	 * Heap ordered so that the root ranks last.
+	 */
+	private static void siftUp(long[] balances, Client[] heap, int index, boolean richest) {
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (rank(balances[index], heap[index], balances[parent], heap[parent], richest) <= 0) {
+				return;
+			}
+			swap(balances, heap, index, parent);
+			index = parent;
+		}
+	}
+
+	private static void siftDown(long[] balances, Client[] heap, int size, boolean richest) {
+		int index = 0;
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				return;
+			}
+			if (child + 1 < size && rank(balances[child + 1], heap[child + 1], balances[child], heap[child], richest) > 0) {
+				child++;
+			}
+			if (rank(balances[child], heap[child], balances[index], heap[index], richest) <= 0) {
+				return;
+			}
+			swap(balances, heap, index, child);
+			index = child;
+		}
+	}
+
+	private static void swap(long[] balances, Client[] heap, int i, int j) {
+		long balance = balances[i];
+		balances[i] = balances[j];
+		balances[j] = balance;
+		Client client = heap[i];
+		heap[i] = heap[j];
+		heap[j] = client;
+	}
+}
@@ -0,0 +1,27 @@
+package com.luxoft.bankapp.domain;
+
+/**
+ * Money is represented as a primitive {@code long} number of cents. This class converts
+ * between cents and the {@code double} amounts used by the older parts of the API.
+ */
+public final class Money {
+
+    public static final int CENTS_PER_UNIT = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount to cents, rounding half up to the nearest cent.
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * CENTS_PER_UNIT);
+    }
+
+    /**
+     * Converts an amount in cents back to a {@code double}.
+     */
+    public static double toDouble(long cents) {
+        return (double) cents / CENTS_PER_UNIT;
+    }
+}
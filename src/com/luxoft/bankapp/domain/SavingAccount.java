@@ -5,9 +5,23 @@ public class SavingAccount extends AbstractAccount {
 	public SavingAccount(int id, double balance) {
 		super(id, balance);
 	}
+
+	private SavingAccount(int id, long balance) {
+		super(id, balance);
+	}
+
+	public static SavingAccount ofCents(int id, long balance) {
+		return new SavingAccount(id, balance);
+	}
 	
-	public double maximumAmountToWithdraw(){
-        return getBalance();
+	@Override
+	public AccountType getType() {
+		return AccountType.SAVING;
+	}
+
+	@Override
+	protected long maximumAmountToWithdrawCents(long balance) {
+        return balance;
     }
 	
 }
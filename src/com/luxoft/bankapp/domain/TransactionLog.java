@@ -0,0 +1,29 @@
+package com.luxoft.bankapp.domain;
+
+import java.util.List;
+
+/**
+ * Receives every change made to a {@link Bank} after it has been applied, so the changes can be
+ * persisted. Implementations must be thread-safe. The changes being logged, deposits included,
+ * declare no checked exceptions, so failures are reported as unchecked ones; the bank then
+ * stops using the log, see {@link Bank#setTransactionLog(TransactionLog)}.
+ */
+public interface TransactionLog {
+
+	/**
+	 * Called when the client is registered, under the client's lock, with its accounts and the
+	 * balances they start from. Changes the balances do not include are reported afterwards
+	 * through {@link #balanceChanged}, and changes they do include are not.
+	 */
+	void clientAdded(Client client, List<Account> accounts, long[] balances);
+
+	/**
+	 * Called when an account is added to a client that is already registered.
+	 */
+	void accountAdded(Client client, Account account, long balance);
+
+	/**
+	 * Called after the balance of an account of a registered client changed by {@code delta} cents.
+	 */
+	void balanceChanged(Account account, long delta);
+}
@@ -0,0 +1,359 @@
+package com.luxoft.bankapp.domain.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.AccountType;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.domain.TransactionLog;
+import com.luxoft.bankapp.utils.GroupCommit;
+
+/**
+ * Append-only transaction journal of a {@link Bank}, written to memory-mapped segment files in
+ * one directory. When a segment is full it is forced to disk and a new one is started. Install
+ * it with {@link Bank#setTransactionLog(TransactionLog)}; {@link #replay(Path, Bank)} rebuilds
+ * the bank from the segments on startup. {@link #snapshot()} compacts sealed segments into a
+ * snapshot so that a restart does not replay the full history.
+ * <p>
+ * Records live in the mapped files as soon as the logged call returns, so they survive the
+ * process exiting. With {@code syncOnAppend}, each call also waits until its record is on disk,
+ * and concurrent writers share one sync through a {@link GroupCommit}.
+ * <p>
+ * Every logged call appends under the journal's monitor, so once the journal is installed all
+ * journaled changes of the bank, deposits and withdrawals included, are serialized on it.
+ * <p>
+ * Accounts are identified by {@link Account#getId()}, so ids must be unique within the bank.
+ * They are restored as a {@link SavingAccount} or {@link CheckingAccount} according to their
+ * {@link AccountType}.
+ */
+public class Journal implements TransactionLog, Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    static final byte CLIENT_ADDED = 1;
+    static final byte ACCOUNT_ADDED = 2;
+    static final byte DEPOSIT = 3;
+    static final byte WITHDRAWAL = 4;
+
+    static final byte SAVING = 1;
+    static final byte CHECKING = 2;
+
+    private static final int MIN_SEGMENT_SIZE = 4096;
+    private static final int ACCOUNT_SIZE = 1 + Integer.BYTES + 2 * Long.BYTES;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnAppend;
+    private final GroupCommit groupCommit;
+    private final CRC32C crc = new CRC32C();
+    private final Object snapshotLock = new Object();
+    private ByteBuffer record = ByteBuffer.allocate(256);
+    private JournalSegment segment;
+    private volatile long appendedBytes;
+    private long records;
+    private boolean closed;
+    private ScheduledExecutorService snapshots;
+
+    public Journal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, false);
+    }
+
+    /**
+     * Opens the journal in the directory, creating it if needed, and continues after the last
+     * valid record of the newest segment.
+     */
+    public Journal(Path directory, int segmentSize, boolean syncOnAppend) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + MIN_SEGMENT_SIZE + " bytes");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncOnAppend = syncOnAppend;
+
+        Files.createDirectories(directory);
+        List<Path> files = JournalSegment.list(directory);
+        if (files.isEmpty()) {
+            // continue numbering after the newest snapshot, so replay does not skip the new records
+            List<Path> snapshots = JournalSnapshot.list(directory);
+            long next = snapshots.isEmpty() ? 0 : JournalSnapshot.indexOf(snapshots.get(snapshots.size() - 1)) + 1;
+            this.segment = JournalSegment.create(directory, next, segmentSize);
+        } else {
+            this.segment = JournalSegment.open(files.get(files.size() - 1), true);
+        }
+        this.groupCommit = new GroupCommit(() -> currentSegment().force(), () -> appendedBytes);
+    }
+
+    /**
+     * Replays the journal in the directory into the bank, which must not hold any of the
+     * journaled clients yet. Starts from the newest snapshot, if any, and replays only the
+     * segments written after it. Balance changes are folded per account first, so each account
+     * is created once with its final balance. Returns the number of records replayed.
+     */
+    public static long replay(Path directory, Bank bank) throws IOException {
+        JournalReplay replay = new JournalReplay();
+        long snapshotSegment = JournalSnapshot.loadLatest(directory, replay);
+        List<Path> files = JournalSegment.list(directory);
+        for (int i = 0; i < files.size(); i++) {
+            if (JournalSegment.indexOf(files.get(i)) <= snapshotSegment) {
+                continue;
+            }
+            try (JournalSegment segment = JournalSegment.open(files.get(i), false)) {
+                // only the newest segment may end in a torn write
+                if (i < files.size() - 1 && !segment.isIntact()) {
+                    throw new IOException("Journal segment is damaged: " + segment.getFile());
+                }
+                segment.scan(replay);
+            }
+        }
+        replay.restore(bank);
+        return replay.getRecords();
+    }
+
+    @Override
+    public void clientAdded(Client client, List<Account> accounts, long[] balances) {
+        byte[] name = bytes(client.getName());
+        byte[] city = bytes(client.getCity());
+
+        long end;
+        synchronized (this) {
+            ByteBuffer buffer = begin(CLIENT_ADDED, clientSize(name, city) + Integer.BYTES + accounts.size() * ACCOUNT_SIZE);
+            putClient(buffer, client, name, city);
+            buffer.putInt(accounts.size());
+            for (int i = 0; i < balances.length; i++) {
+                putAccount(buffer, accounts.get(i), balances[i]);
+            }
+            end = commit();
+        }
+        awaitDurable(end);
+    }
+
+    @Override
+    public void accountAdded(Client client, Account account, long balance) {
+        byte[] name = bytes(client.getName());
+        byte[] city = bytes(client.getCity());
+
+        long end;
+        synchronized (this) {
+            ByteBuffer buffer = begin(ACCOUNT_ADDED, clientSize(name, city) + ACCOUNT_SIZE);
+            putClient(buffer, client, name, city);
+            putAccount(buffer, account, balance);
+            end = commit();
+        }
+        awaitDurable(end);
+    }
+
+    @Override
+    public void balanceChanged(Account account, long delta) {
+        long end;
+        synchronized (this) {
+            begin(delta >= 0 ? DEPOSIT : WITHDRAWAL, Integer.BYTES + Long.BYTES)
+                    .putInt(account.getId())
+                    .putLong(Math.abs(delta));
+            end = commit();
+        }
+        awaitDurable(end);
+    }
+
+    /**
+     * Seals the current segment and compacts everything up to it into a snapshot, deleting the
+     * segments it covers. Writers are only held up for the segment switch; the compaction
+     * reads the sealed files. Returns the snapshot, or {@code null} if nothing was new.
+     */
+    public Path snapshot() throws IOException {
+        return snapshot(true);
+    }
+
+    private Path snapshot(boolean failIfClosed) throws IOException {
+        synchronized (snapshotLock) {
+            long lastSegment;
+            synchronized (this) {
+                if (closed) {
+                    if (failIfClosed) {
+                        throw new IllegalStateException("Journal is closed");
+                    }
+                    return null;
+                }
+                if (!segment.isEmpty()) {
+                    roll(0);
+                }
+                lastSegment = segment.getIndex() - 1;
+            }
+            return JournalSnapshot.compact(directory, lastSegment);
+        }
+    }
+
+    /**
+     * Takes a snapshot periodically on a background daemon thread until the journal is closed.
+     * A failed snapshot is reported to the thread's uncaught exception handler and retried at
+     * the next period.
+     */
+    public synchronized void startSnapshots(long period, TimeUnit unit) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (snapshots == null) {
+            snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshots.scheduleWithFixedDelay(() -> {
+                try {
+                    // a run that starts while the journal is closing does nothing
+                    snapshot(false);
+                } catch (IOException | RuntimeException e) {
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }, period, period, unit);
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk.
+     */
+    public void sync() throws IOException {
+        groupCommit.awaitDurable(appendedBytes);
+    }
+
+    /**
+     * Number of records appended since the journal was opened.
+     */
+    public synchronized long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Number of syncs performed, see {@link GroupCommit#getSyncCount()}.
+     */
+    public long getSyncCount() {
+        return groupCommit.getSyncCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService scheduler;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            scheduler = snapshots;
+        }
+
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            segment.close();
+        }
+    }
+
+    private synchronized JournalSegment currentSegment() {
+        return segment;
+    }
+
+    private ByteBuffer begin(byte type, int payloadSize) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        if (record.capacity() < 1 + payloadSize) {
+            record = ByteBuffer.allocate(Math.max(2 * record.capacity(), 1 + payloadSize));
+        }
+        record.clear();
+        return record.put(type);
+    }
+
+    /**
+     * Writes the record built in the buffer, rolling to a new segment if it does not fit,
+     * and returns the logical end position of the journal.
+     */
+    private long commit() {
+        int length = record.position();
+        int recordSize = JournalSegment.RECORD_HEADER_SIZE + length;
+        if (!segment.hasRoom(recordSize)) {
+            roll(recordSize);
+        }
+
+        crc.reset();
+        crc.update(record.array(), 0, length);
+        segment.append(record.array(), length, (int) crc.getValue());
+        records++;
+        long end = appendedBytes + recordSize;
+        appendedBytes = end;
+        return end;
+    }
+
+    private void roll(int recordSize) {
+        try {
+            segment.close();
+            int size = Math.max(segmentSize, JournalSegment.HEADER_SIZE + recordSize + Integer.BYTES);
+            segment = JournalSegment.create(directory, segment.getIndex() + 1, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start a new journal segment", e);
+        }
+    }
+
+    private void awaitDurable(long end) {
+        if (!syncOnAppend) {
+            return;
+        }
+        try {
+            groupCommit.awaitDurable(end);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot sync the journal", e);
+        }
+    }
+
+    private static int clientSize(byte[] name, byte[] city) {
+        return 2 * Integer.BYTES + length(name) + length(city) + 1;
+    }
+
+    private static void putClient(ByteBuffer buffer, Client client, byte[] name, byte[] city) {
+        putString(buffer, name);
+        buffer.put((byte) (client.getGender() == null ? -1 : client.getGender().ordinal()));
+        putString(buffer, city);
+    }
+
+    private static void putAccount(ByteBuffer buffer, Account account, long balance) {
+        buffer.put(account.getType() == AccountType.CHECKING ? CHECKING : SAVING)
+                .putInt(account.getId())
+                .putLong(balance)
+                .putLong(account.getOverdraftCents());
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+}
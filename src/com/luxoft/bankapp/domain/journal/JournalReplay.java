@@ -0,0 +1,259 @@
+package com.luxoft.bankapp.domain.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+
+/**
+ * Folds journal records into the final state of every account, kept in primitive arrays indexed
+ * by the order in which the accounts were journaled, and then builds the clients and accounts.
+ * Account ids are looked up in an open-addressing table, so replaying a balance change allocates
+ * nothing. The same state is what {@link JournalSnapshot} writes and loads.
+ */
+final class JournalReplay implements JournalSegment.RecordVisitor {
+
+    private final List<Client> clients = new ArrayList<>();
+    // built on first use: only accounts added after registration look their client up
+    private Map<Client, Integer> clientSlots;
+
+    private int accounts;
+    private byte[] types = new byte[1024];
+    private int[] ids = new int[1024];
+    private long[] balances = new long[1024];
+    private long[] overdrafts = new long[1024];
+    private int[] owners = new int[1024];
+
+    // account id -> slot, stored as slot + 1 so that 0 marks a free entry
+    private int[] tableKeys = new int[2048];
+    private int[] tableSlots = new int[2048];
+
+    private long records;
+
+    @Override
+    public void visit(byte type, ByteBuffer payload) throws IOException {
+        records++;
+        switch (type) {
+            case Journal.DEPOSIT:
+                balances[slotOf(payload.getInt())] += payload.getLong();
+                break;
+            case Journal.WITHDRAWAL:
+                balances[slotOf(payload.getInt())] -= payload.getLong();
+                break;
+            case Journal.CLIENT_ADDED: {
+                int owner = addClient(readClient(payload));
+                int count = payload.getInt();
+                for (int i = 0; i < count; i++) {
+                    readAccount(payload, owner);
+                }
+                break;
+            }
+            case Journal.ACCOUNT_ADDED: {
+                Client client = readClient(payload);
+                Integer owner = clientSlots().get(client);
+                if (owner == null) {
+                    throw new IOException("Account journaled for an unknown client: " + client.getName());
+                }
+                readAccount(payload, owner);
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    long getRecords() {
+        return records;
+    }
+
+    /**
+     * Adds a client and returns its index, used as the owner of its accounts. Duplicates are
+     * caught when the clients are registered with the bank.
+     */
+    int addClient(Client client) {
+        clients.add(client);
+        if (clientSlots != null) {
+            clientSlots.putIfAbsent(client, clients.size() - 1);
+        }
+        return clients.size() - 1;
+    }
+
+    void addAccount(int owner, byte type, int id, long balance, long overdraft) throws IOException {
+        if (type != Journal.SAVING && type != Journal.CHECKING) {
+            throw new IOException("Unknown account type " + type + " for account " + id);
+        }
+        if (owner < 0 || owner >= clients.size()) {
+            throw new IOException("Account " + id + " belongs to an unknown client");
+        }
+        if (accounts == ids.length) {
+            grow(2 * ids.length);
+        }
+
+        int slot = accounts++;
+        types[slot] = type;
+        ids[slot] = id;
+        balances[slot] = balance;
+        overdrafts[slot] = overdraft;
+        owners[slot] = owner;
+        if (!insert(id, slot)) {
+            throw new IOException("Account journaled twice: " + id);
+        }
+    }
+
+    /**
+     * Makes room for the given number of accounts, to avoid growing the arrays step by step.
+     */
+    void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            grow(capacity);
+        }
+    }
+
+    List<Client> getClients() {
+        return clients;
+    }
+
+    int getAccountCount() {
+        return accounts;
+    }
+
+    byte getType(int slot) {
+        return types[slot];
+    }
+
+    int getId(int slot) {
+        return ids[slot];
+    }
+
+    long getBalance(int slot) {
+        return balances[slot];
+    }
+
+    long getOverdraft(int slot) {
+        return overdrafts[slot];
+    }
+
+    int getOwner(int slot) {
+        return owners[slot];
+    }
+
+    /**
+     * Creates the accounts with their replayed balances and registers the clients.
+     */
+    void restore(Bank bank) {
+        for (int slot = 0; slot < accounts; slot++) {
+            Account account = types[slot] == Journal.CHECKING
+                    ? CheckingAccount.ofCents(ids[slot], balances[slot], overdrafts[slot])
+                    : SavingAccount.ofCents(ids[slot], balances[slot]);
+            clients.get(owners[slot]).addAccount(account);
+        }
+
+        for (Client client : clients) {
+            try {
+                bank.restoreClient(client);
+            } catch (ClientExistsException e) {
+                throw new IllegalStateException("The bank already holds journaled client " + client.getName(), e);
+            }
+        }
+    }
+
+    private Map<Client, Integer> clientSlots() {
+        if (clientSlots == null) {
+            clientSlots = new HashMap<>(2 * clients.size());
+            for (int i = 0; i < clients.size(); i++) {
+                clientSlots.putIfAbsent(clients.get(i), i);
+            }
+        }
+        return clientSlots;
+    }
+
+    private void readAccount(ByteBuffer payload, int owner) throws IOException {
+        addAccount(owner, payload.get(), payload.getInt(), payload.getLong(), payload.getLong());
+    }
+
+    private static Client readClient(ByteBuffer payload) {
+        String name = readString(payload);
+        byte gender = payload.get();
+        String city = readString(payload);
+        return new Client(name, gender < 0 ? null : Gender.values()[gender], city);
+    }
+
+    private static String readString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int slotOf(int id) throws IOException {
+        int mask = tableKeys.length - 1;
+        for (int i = mix(id) & mask; tableSlots[i] != 0; i = (i + 1) & mask) {
+            if (tableKeys[i] == id) {
+                return tableSlots[i] - 1;
+            }
+        }
+        throw new IOException("Balance change journaled for an unknown account: " + id);
+    }
+
+    private boolean insert(int id, int slot) {
+        while (2 * accounts > tableKeys.length) {
+            rehash();
+        }
+        int mask = tableKeys.length - 1;
+        int i = mix(id) & mask;
+        for (; tableSlots[i] != 0; i = (i + 1) & mask) {
+            if (tableKeys[i] == id) {
+                return false;
+            }
+        }
+        tableKeys[i] = id;
+        tableSlots[i] = slot + 1;
+        return true;
+    }
+
+    private void rehash() {
+        int[] oldKeys = tableKeys;
+        int[] oldSlots = tableSlots;
+        tableKeys = new int[oldKeys.length * 2];
+        tableSlots = new int[oldKeys.length * 2];
+        int mask = tableKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldSlots[j] != 0) {
+                int i = mix(oldKeys[j]) & mask;
+                while (tableSlots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                tableKeys[i] = oldKeys[j];
+                tableSlots[i] = oldSlots[j];
+            }
+        }
+    }
+
+    private void grow(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        balances = Arrays.copyOf(balances, capacity);
+        overdrafts = Arrays.copyOf(overdrafts, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
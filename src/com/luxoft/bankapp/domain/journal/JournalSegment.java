@@ -0,0 +1,191 @@
+package com.luxoft.bankapp.domain.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped file of the journal. The file starts with a 16 byte header (magic, version,
+ * segment index) followed by records {@code [int length][int crc][payload]}, where the payload
+ * starts with the record type and the CRC covers the payload. A zero length marks the end.
+ */
+final class JournalSegment implements Closeable {
+
+    static final int MAGIC = 0x424A524E;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    /**
+     * Receives the records of a segment. The payload buffer is positioned after the record type
+     * and is only valid during the call.
+     */
+    interface RecordVisitor {
+        void visit(byte type, ByteBuffer payload) throws IOException;
+    }
+
+    private final Path file;
+    private final long index;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int writePosition = HEADER_SIZE;
+
+    private JournalSegment(Path file, long index, FileChannel channel, MappedByteBuffer buffer) {
+        this.file = file;
+        this.index = index;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(Path directory, long index, int size) throws IOException {
+        Path file = directory.resolve(String.format("%s%016d%s", PREFIX, index, SUFFIX));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, index);
+        buffer.force();
+        return new JournalSegment(file, index, channel, buffer);
+    }
+
+    /**
+     * Opens an existing segment, read-only or to append to it after its last valid record.
+     */
+    static JournalSegment open(Path file, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+        MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not a journal segment: " + file);
+        }
+
+        JournalSegment segment = new JournalSegment(file, buffer.getLong(8), channel, buffer);
+        if (writable) {
+            segment.writePosition = segment.scan(null);
+            if (segment.writePosition + Integer.BYTES <= buffer.capacity()) {
+                // drop whatever a torn write left behind the last valid record
+                buffer.putInt(segment.writePosition, 0);
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Returns the segment files of the journal in the given directory, oldest first.
+     */
+    static List<Path> list(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (Stream<Path> entries = Files.list(directory)) {
+            entries.filter(JournalSegment::isSegment).sorted().forEach(files::add);
+        }
+        return files;
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    /**
+     * Returns the index of a segment from its file name, without opening it.
+     */
+    static long indexOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Passes every valid record to the visitor, if any, and returns the position after the last
+     * one. Scanning stops at the end marker or at the first damaged record.
+     */
+    int scan(RecordVisitor visitor) throws IOException {
+        ByteBuffer payload = buffer.duplicate();
+        CRC32C crc = new CRC32C();
+        int position = HEADER_SIZE;
+
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+
+            int start = position + RECORD_HEADER_SIZE;
+            payload.limit(start + length).position(start);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+
+            if (visitor != null) {
+                payload.position(start + 1);
+                visitor.visit(buffer.get(start), payload);
+            }
+            position = start + length;
+        }
+        return position;
+    }
+
+    /**
+     * Returns whether the segment ends with an end marker rather than a damaged record.
+     */
+    boolean isIntact() throws IOException {
+        int end = scan(null);
+        return end + Integer.BYTES > buffer.capacity() || buffer.getInt(end) == 0;
+    }
+
+    boolean isEmpty() {
+        return writePosition == HEADER_SIZE;
+    }
+
+    boolean hasRoom(int recordSize) {
+        return writePosition + recordSize + Integer.BYTES <= buffer.capacity();
+    }
+
+    void append(byte[] payload, int length, int crc) {
+        int offset = writePosition;
+        buffer.putInt(offset + RECORD_HEADER_SIZE + length, 0);
+        buffer.put(offset + RECORD_HEADER_SIZE, payload, 0, length);
+        buffer.putInt(offset + 4, crc);
+        // the length goes last: until it is written the record reads as the end of the segment
+        buffer.putInt(offset, length);
+        writePosition = offset + RECORD_HEADER_SIZE + length;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    long getIndex() {
+        return index;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!buffer.isReadOnly()) {
+            buffer.force();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,320 @@
+package com.luxoft.bankapp.domain.journal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+
+/**
+ * Compacted state of a journal: every client and account with its balance as of the end of a
+ * given segment. Snapshots are built from sealed segments only, never from the live bank, so
+ * writers are not stopped or slowed while one is taken.
+ * <p>
+ * The file is a 24 byte header (magic, version, last segment, client count, account count),
+ * the clients as {@code [name][gender][city]}, the accounts as
+ * {@code [type][id][balance][overdraft][owner]}, and a CRC of everything after the header.
+ * Strings are an int byte length (-1 for null) and UTF-8 bytes. It is read and written through
+ * one reusable buffer.
+ */
+final class JournalSnapshot {
+
+    static final int MAGIC = 0x42534E50;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES;
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int ACCOUNT_SIZE = 1 + 2 * Integer.BYTES + 2 * Long.BYTES;
+
+    private JournalSnapshot() {
+    }
+
+    /**
+     * Folds the newest snapshot and the segments after it, up to and including
+     * {@code lastSegment}, into a new snapshot, then deletes the files it replaces.
+     * Returns the snapshot, or {@code null} if there was nothing new to compact.
+     */
+    static Path compact(Path directory, long lastSegment) throws IOException {
+        JournalReplay state = new JournalReplay();
+        long base = loadLatest(directory, state);
+        if (base >= lastSegment) {
+            return null;
+        }
+
+        for (Path file : JournalSegment.list(directory)) {
+            long index = JournalSegment.indexOf(file);
+            if (index > base && index <= lastSegment) {
+                try (JournalSegment segment = JournalSegment.open(file, false)) {
+                    if (!segment.isIntact()) {
+                        throw new IOException("Journal segment is damaged: " + file);
+                    }
+                    segment.scan(state);
+                }
+            }
+        }
+
+        Path snapshot = write(directory, lastSegment, state);
+
+        for (Path file : JournalSegment.list(directory)) {
+            if (JournalSegment.indexOf(file) <= lastSegment) {
+                Files.delete(file);
+            }
+        }
+        for (Path file : list(directory)) {
+            if (!file.equals(snapshot)) {
+                Files.delete(file);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Loads the newest snapshot in the directory into the state and returns the index of the
+     * last segment it covers, or -1 if there is none.
+     */
+    static long loadLatest(Path directory, JournalReplay state) throws IOException {
+        List<Path> snapshots = list(directory);
+        if (snapshots.isEmpty()) {
+            return -1;
+        }
+        return load(snapshots.get(snapshots.size() - 1), state);
+    }
+
+    static Path write(Path directory, long lastSegment, JournalReplay state) throws IOException {
+        Path snapshot = directory.resolve(String.format("%s%016d%s", PREFIX, lastSegment, SUFFIX));
+        Path temporary = directory.resolve(snapshot.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(channel);
+            List<Client> clients = state.getClients();
+            int accounts = state.getAccountCount();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(lastSegment).putInt(clients.size()).putInt(accounts).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            for (Client client : clients) {
+                byte[] name = bytes(client.getName());
+                byte[] city = bytes(client.getCity());
+                ByteBuffer buffer = writer.reserve(2 * Integer.BYTES + 1 + length(name) + length(city));
+                putString(buffer, name);
+                buffer.put((byte) (client.getGender() == null ? -1 : client.getGender().ordinal()));
+                putString(buffer, city);
+            }
+            for (int slot = 0; slot < accounts; slot++) {
+                writer.reserve(ACCOUNT_SIZE)
+                        .put(state.getType(slot))
+                        .putInt(state.getId(slot))
+                        .putLong(state.getBalance(slot))
+                        .putLong(state.getOverdraft(slot))
+                        .putInt(state.getOwner(slot));
+            }
+            writer.finish();
+            channel.force(true);
+        }
+
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return snapshot;
+    }
+
+    static long load(Path snapshot, JournalReplay state) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            Reader reader = new Reader(channel);
+            ByteBuffer header = reader.require(HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a journal snapshot: " + snapshot);
+            }
+            long lastSegment = header.getLong();
+            int clients = header.getInt();
+            int accounts = header.getInt();
+            reader.startChecksum();
+
+            for (int i = 0; i < clients; i++) {
+                String name = reader.string();
+                byte gender = reader.require(1).get();
+                String city = reader.string();
+                state.addClient(new Client(name, gender < 0 ? null : Gender.values()[gender], city));
+            }
+
+            state.ensureCapacity(accounts);
+            for (int i = 0; i < accounts; i++) {
+                ByteBuffer account = reader.require(ACCOUNT_SIZE);
+                byte type = account.get();
+                int id = account.getInt();
+                long balance = account.getLong();
+                long overdraft = account.getLong();
+                state.addAccount(account.getInt(), type, id, balance, overdraft);
+            }
+
+            int expected = reader.checksum();
+            if (reader.require(Integer.BYTES).getInt() != expected) {
+                throw new IOException("Journal snapshot is damaged: " + snapshot);
+            }
+            return lastSegment;
+        }
+    }
+
+    /**
+     * Returns the snapshot files in the directory, oldest first.
+     */
+    static List<Path> list(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (Stream<Path> entries = Files.list(directory)) {
+            entries.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().forEach(files::add);
+        }
+        return files;
+    }
+
+    /**
+     * Returns the index of the last segment a snapshot covers, from its file name.
+     */
+    static long indexOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    /**
+     * Buffers writes to the channel and checksums everything it writes.
+     */
+    private static final class Writer {
+        private final FileChannel channel;
+        private final CRC32C crc = new CRC32C();
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        ByteBuffer reserve(int size) throws IOException {
+            if (buffer.remaining() < size) {
+                flush();
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocate(size);
+                }
+            }
+            return buffer;
+        }
+
+        void finish() throws IOException {
+            flush();
+            buffer.putInt((int) crc.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private void flush() throws IOException {
+            crc.update(buffer.array(), 0, buffer.position());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads the channel through one buffer, refilled as it is consumed, and checksums the bytes
+     * consumed after {@link #startChecksum()}.
+     */
+    private static final class Reader {
+        private final FileChannel channel;
+        private final CRC32C crc = new CRC32C();
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private int checksummed = -1;
+
+        Reader(FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        /**
+         * Returns the buffer with at least {@code size} bytes available at its position.
+         */
+        ByteBuffer require(int size) throws IOException {
+            if (buffer.remaining() >= size) {
+                return buffer;
+            }
+
+            updateChecksum();
+            buffer.compact();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate(size).put(buffer.flip());
+            }
+            while (buffer.position() < size) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Journal snapshot ends unexpectedly");
+                }
+            }
+            buffer.flip();
+            if (checksummed >= 0) {
+                checksummed = 0;
+            }
+            return buffer;
+        }
+
+        String string() throws IOException {
+            int length = require(Integer.BYTES).getInt();
+            if (length < 0) {
+                return null;
+            }
+            ByteBuffer bytes = require(length);
+            String value = new String(bytes.array(), bytes.position(), length, StandardCharsets.UTF_8);
+            bytes.position(bytes.position() + length);
+            return value;
+        }
+
+        void startChecksum() {
+            checksummed = buffer.position();
+        }
+
+        int checksum() {
+            updateChecksum();
+            return (int) crc.getValue();
+        }
+
+        private void updateChecksum() {
+            if (checksummed >= 0) {
+                crc.update(buffer.array(), checksummed, buffer.position() - checksummed);
+                checksummed = buffer.position();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.luxoft.bankapp.domain.mail;
+
+import java.util.List;
+
+/**
+ * Prints every email to standard output. This is the default transport.
+ */
+public class ConsoleTransport implements MailTransport {
+
+    @Override
+    public void send(List<Email> batch) {
+        StringBuilder output = new StringBuilder();
+        for (Email email : batch) {
+            output.append("--- Sending email:\n").append(email).append('\n');
+        }
+        System.out.print(output);
+    }
+}
@@ -8,6 +8,7 @@ public class Email {
     private final String to;
     private final String subject;
     private final String body;
+    private final long createdNanos;
 
     public Email(Client client, String from, String to, String subject, String body) {
         this.client = client;
@@ -15,6 +16,16 @@ public class Email {
         this.to = to;
         this.subject = subject;
         this.body = body;
+        this.createdNanos = System.nanoTime();
+    }
+
+    Email(Email email) {
+        this.client = email.client;
+        this.from = email.from;
+        this.to = email.to;
+        this.subject = email.subject;
+        this.body = email.body;
+        this.createdNanos = email.createdNanos;
     }
 
     public Client getClient() {
@@ -37,6 +48,13 @@ public class Email {
         return body;
     }
 
+    /**
+     * The {@link System#nanoTime()} at which the email was created, used to measure delivery latency.
+     */
+    long getCreatedNanos() {
+        return createdNanos;
+    }
+
     @Override
     public String toString() {
         return "Email{" +
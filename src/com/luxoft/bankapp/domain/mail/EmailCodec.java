@@ -0,0 +1,71 @@
+package com.luxoft.bankapp.domain.mail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+
+/**
+ * Compact binary encoding of an {@link Email}: the client's name, gender and city followed by
+ * the email fields. Strings are written as an int byte length (-1 for null) and UTF-8 bytes,
+ * the gender as its ordinal byte (-1 for null).
+ */
+final class EmailCodec {
+
+    private EmailCodec() {
+    }
+
+    static byte[] encode(Email email) {
+        Client client = email.getClient();
+        byte[][] strings = {
+                bytes(client == null ? null : client.getName()),
+                bytes(client == null ? null : client.getCity()),
+                bytes(email.getFrom()),
+                bytes(email.getTo()),
+                bytes(email.getSubject()),
+                bytes(email.getBody())
+        };
+
+        int size = 2;
+        for (byte[] string : strings) {
+            size += Integer.BYTES + (string == null ? 0 : string.length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put((byte) (client == null ? 0 : 1));
+        buffer.put((byte) (client == null || client.getGender() == null ? -1 : client.getGender().ordinal()));
+        for (byte[] string : strings) {
+            if (string == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(string.length).put(string);
+            }
+        }
+        return buffer.array();
+    }
+
+    static Email decode(ByteBuffer buffer) {
+        boolean hasClient = buffer.get() == 1;
+        byte gender = buffer.get();
+        String name = string(buffer);
+        String city = string(buffer);
+        Client client = hasClient ? new Client(name, gender < 0 ? null : Gender.values()[gender], city) : null;
+
+        return new Email(client, string(buffer), string(buffer), string(buffer), string(buffer));
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
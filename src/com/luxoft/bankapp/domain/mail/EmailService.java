@@ -1,51 +1,503 @@
 package com.luxoft.bankapp.domain.mail;
 
-public class EmailService {
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.luxoft.bankapp.metrics.BankMetrics;
+import com.luxoft.bankapp.utils.DebugSink;
+
+/**
+ * Delivers notification emails in the background. A pool of workers drains the queue in
+ * batches: a batch is sent once it holds {@code batchSize} emails or once {@code maxBatchDelay}
+ * has passed since its first email. Failed batches are retried with exponential backoff.
+ * <p>
+ * The lifecycle follows {@link java.util.concurrent.ExecutorService}: {@link #shutdown()} stops
+ * accepting emails and lets the workers drain the queue, {@link #shutdownNow()} stops them and
+ * hands back what was not delivered, and {@link #close()} drains within the configured deadline.
+ * <p>
+ * With a spool file configured, every accepted email is written to disk before
+ * {@link #sendNotificationEmail(Email)} returns, and emails left undelivered by a previous run
+ * are sent again on startup.
+ */
+public class EmailService implements AutoCloseable {
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOPPED = 2;
+
     private final Queue emailQueue;
-    private volatile boolean running = true;
+    private final MailTransport transport;
+    private final int batchSize;
+    private final long maxBatchDelayNanos;
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long shutdownTimeoutMillis;
+    private final List<Thread> workers = new ArrayList<>();
+    private final ConcurrentLinkedQueue<Email> interruptedBatches = new ConcurrentLinkedQueue<>();
+    private final EmailSpool spool;
+    private final LongSupplier queueDepth;
+    private final DebugSink debugSink;
+
+    private final LongAdder sentEmails = new LongAdder();
+    private final LongAdder failedEmails = new LongAdder();
+    private final LongAdder drainedEmails = new LongAdder();
+    private final LongAdder rejectedEmails = new LongAdder();
+    private final LongAdder abandonedEmails = new LongAdder();
+    // senders past the state check that have not queued their email yet; the workers keep
+    // running after shutdown() until they are done, so an email accepted then is still delivered
+    private final AtomicInteger producers = new AtomicInteger();
+    private volatile int state = RUNNING;
 
     public EmailService() {
-        emailQueue = new Queue();
-
-        new Thread(() -> {
-            synchronized (emailQueue) {
-                while (true) {
-                    System.out.println("Waiting for emails...");
-
-                    while (emailQueue.isEmpty()) {
-                        if (!running) {
-                            return;
-                        }
-
-                        try {
-                            emailQueue.wait();
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            return;
-                        }
-                    }
-
-                    Email email = emailQueue.poll();
-                    System.out.println("--- Sending email:\n" + email);
-                }
-            }
-        }).start();
+        this(builder());
+    }
+
+    public EmailService(int capacity, FullQueuePolicy fullQueuePolicy) {
+        this(builder().capacity(capacity).fullQueuePolicy(fullQueuePolicy));
     }
 
-    public void sendNotificationEmail(Email email) {
-        synchronized (emailQueue) {
-            if (running) {
+    private EmailService(Builder builder) {
+        this.emailQueue = new Queue(builder.capacity, builder.fullQueuePolicy);
+        this.transport = builder.transport;
+        this.batchSize = builder.batchSize;
+        this.maxBatchDelayNanos = builder.maxBatchDelayUnit.toNanos(builder.maxBatchDelay);
+        this.maxRetries = builder.maxRetries;
+        this.initialBackoffMillis = builder.initialBackoffMillis;
+        this.maxBackoffMillis = builder.maxBackoffMillis;
+        this.shutdownTimeoutMillis = builder.shutdownTimeoutMillis;
+        this.debugSink = builder.debugSink;
+
+        List<Email> recovered = List.of();
+        if (builder.spoolFile != null) {
+            try {
+                this.spool = new EmailSpool(builder.spoolFile, builder.spoolSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open email spool " + builder.spoolFile, e);
+            }
+            recovered = spool.recover();
+        } else {
+            this.spool = null;
+        }
+
+        this.queueDepth = emailQueue::size;
+        BankMetrics.REGISTRY.gauge(BankMetrics.EMAIL_QUEUE_DEPTH, queueDepth);
+
+        for (int i = 0; i < builder.workers; i++) {
+            Thread worker = new Thread(this::deliverEmails, "email-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+
+        for (Email email : recovered) {
+            try {
                 emailQueue.add(email);
-                emailQueue.notify();
+            } catch (InterruptedException e) {
+                // the rest stays in the spool for the next start
+                Thread.currentThread().interrupt();
+                break;
             }
         }
     }
 
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Queues the email for delivery.
+     *
+     * @return false if the email was not accepted, because the service is shut down or the queue was full
+     */
+    public boolean sendNotificationEmail(Email email) {
+        producers.incrementAndGet();
+        try {
+            return enqueue(email);
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    private boolean enqueue(Email email) {
+        if (state != RUNNING) {
+            rejectedEmails.increment();
+            return false;
+        }
+
+        if (spool != null) {
+            try {
+                email = spool.append(email);
+            } catch (IOException e) {
+                debugSink.log("Cannot spool email to " + email.getTo() + ": " + e.getMessage());
+                return false;
+            }
+        }
+
+        boolean queued;
+        try {
+            queued = emailQueue.add(email);
+        } catch (InterruptedException e) {
+            // still in the spool, if there is one, and delivered on the next start
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        if (!queued) {
+            acknowledge(email);
+        }
+
+        if (state == STOPPED) {
+            // shutdownNow() ran while this email was being queued, nobody is left to deliver it
+            abandonedEmails.add(emailQueue.drainTo(new ArrayList<>(), Integer.MAX_VALUE));
+        }
+        return queued;
+    }
+
+    /**
+     * Number of emails dropped because the queue was full, see {@link FullQueuePolicy#DROP}.
+     */
+    public long getDroppedEmails() {
+        return emailQueue.getDroppedCount();
+    }
+
+    /**
+     * Number of emails the transport accepted.
+     */
+    public long getSentEmails() {
+        return sentEmails.sum();
+    }
+
+    /**
+     * Number of emails given up on after all retries failed.
+     */
+    public long getFailedEmails() {
+        return failedEmails.sum();
+    }
+
+    /**
+     * Number of emails delivered after {@link #shutdown()} was called.
+     */
+    public long getDrainedEmails() {
+        return drainedEmails.sum();
+    }
+
+    /**
+     * Number of emails refused because they were sent after shutdown.
+     */
+    public long getRejectedEmails() {
+        return rejectedEmails.sum();
+    }
+
+    /**
+     * Number of accepted emails that were never delivered because of {@link #shutdownNow()}.
+     */
+    public long getAbandonedEmails() {
+        return abandonedEmails.sum();
+    }
+
+    /**
+     * Stops accepting emails. Already queued emails, and those being queued by senders that
+     * got in before the shutdown, are still delivered.
+     */
+    public void shutdown() {
+        if (state == RUNNING) {
+            debugSink.log("Closing email service...");
+            state = SHUTDOWN;
+        }
+    }
+
+    /**
+     * Stops accepting emails, interrupts the workers and returns the emails that were still
+     * queued, along with the batches the workers were collecting or waiting to retry. A batch
+     * the transport is sending when the workers are interrupted ends as the transport decides.
+     * Waits up to the configured shutdown timeout for the workers to stop, and closes the spool
+     * once they have.
+     */
+    public List<Email> shutdownNow() {
+        shutdown();
+        state = STOPPED;
+        removeQueueDepthGauge();
+
+        List<Email> undelivered = new ArrayList<>();
+        emailQueue.drainTo(undelivered, Integer.MAX_VALUE);
+        abandonedEmails.add(undelivered.size());
+        workers.forEach(Thread::interrupt);
+        try {
+            if (awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                closeSpool();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (Email email = interruptedBatches.poll(); email != null; email = interruptedBatches.poll()) {
+            undelivered.add(email);
+        }
+        return undelivered;
+    }
+
+    public boolean isShutdown() {
+        return state != RUNNING;
+    }
+
+    public boolean isTerminated() {
+        return state != RUNNING && workers.stream().noneMatch(Thread::isAlive);
+    }
+
+    /**
+     * Waits for the workers to finish after a shutdown.
+     *
+     * @return true if all workers finished, false if the timeout elapsed first
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread worker : workers) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+            }
+            if (worker.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Shuts down and waits up to the configured shutdown timeout for queued emails to be
+     * delivered. Emails still queued after that are abandoned.
+     */
+    @Override
     public void close() {
-        synchronized (emailQueue) {
-            System.out.println("Closing email service...");
-            running = false;
-            emailQueue.notify();
+        shutdown();
+        removeQueueDepthGauge();
+        try {
+            if (awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                closeSpool();
+            } else {
+                List<Email> undelivered = shutdownNow();
+                debugSink.log("Email service stopped with " + undelivered.size() + " undelivered emails");
+            }
+        } catch (InterruptedException e) {
+            shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliverEmails() {
+        List<Email> batch = new ArrayList<>(batchSize);
+        try {
+            while (state == RUNNING || (state == SHUTDOWN && (producers.get() > 0 || !emailQueue.isEmpty()))) {
+                Email first = emailQueue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                fillBatch(batch);
+                deliver(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // interrupted by shutdownNow() while filling the batch or backing off before a retry;
+            // the batch is neither delivered nor acknowledged, so a spool keeps it for the next start
+            abandonedEmails.add(batch.size());
+            interruptedBatches.addAll(batch);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Tops the batch up to {@code batchSize}, waiting no longer than {@code maxBatchDelay}
+     * after its first email for more to arrive.
+     */
+    private void fillBatch(List<Email> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxBatchDelayNanos;
+        while (batch.size() < batchSize) {
+            emailQueue.drainTo(batch, batchSize - batch.size());
+            if (batch.size() >= batchSize) {
+                return;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+
+            Email next = emailQueue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void deliver(List<Email> batch) throws InterruptedException {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                transport.send(batch);
+                recordDeliveryLatency(batch);
+                sentEmails.add(batch.size());
+                if (state != RUNNING) {
+                    drainedEmails.add(batch.size());
+                }
+                batch.forEach(this::acknowledge);
+                return;
+            } catch (IOException e) {
+                if (attempt >= maxRetries) {
+                    debugSink.log("Giving up on " + batch.size() + " emails after " + (attempt + 1) + " attempts: " + e.getMessage());
+                    failedEmails.add(batch.size());
+                    batch.forEach(this::acknowledge);
+                    return;
+                }
+            }
+
+            Thread.sleep(backoff);
+            backoff = Math.min(backoff * 2, maxBackoffMillis);
+        }
+    }
+
+    private static void recordDeliveryLatency(List<Email> batch) {
+        if (BankMetrics.ENABLED) {
+            long now = System.nanoTime();
+            for (Email email : batch) {
+                BankMetrics.EMAIL_DELIVERY_LATENCY.record(now - email.getCreatedNanos());
+            }
+        }
+    }
+
+    private void acknowledge(Email email) {
+        if (email instanceof SpooledEmail) {
+            spool.acknowledge((SpooledEmail) email);
+        }
+    }
+
+    private void removeQueueDepthGauge() {
+        BankMetrics.REGISTRY.removeGauge(BankMetrics.EMAIL_QUEUE_DEPTH, queueDepth);
+    }
+
+    private void closeSpool() {
+        if (spool == null) {
+            return;
+        }
+        try {
+            spool.close();
+        } catch (IOException e) {
+            debugSink.log("Cannot close email spool: " + e.getMessage());
+        }
+    }
+
+    public static class Builder {
+        private int capacity = Queue.DEFAULT_CAPACITY;
+        private FullQueuePolicy fullQueuePolicy = FullQueuePolicy.BLOCK;
+        private MailTransport transport = new ConsoleTransport();
+        private int workers = 1;
+        private int batchSize = 64;
+        private long maxBatchDelay = 10;
+        private TimeUnit maxBatchDelayUnit = TimeUnit.MILLISECONDS;
+        private int maxRetries = 3;
+        private long initialBackoffMillis = 100;
+        private long maxBackoffMillis = 5_000;
+        private long shutdownTimeoutMillis = 30_000;
+        private Path spoolFile;
+        private int spoolSize = 16 * 1024 * 1024;
+        private DebugSink debugSink = DebugSink.DEFAULT;
+
+        private Builder() {
+        }
+
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder fullQueuePolicy(FullQueuePolicy fullQueuePolicy) {
+            this.fullQueuePolicy = fullQueuePolicy;
+            return this;
+        }
+
+        public Builder transport(MailTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder workers(int workers) {
+            if (workers <= 0) {
+                throw new IllegalArgumentException("At least one worker is needed");
+            }
+            this.workers = workers;
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("Batch size must be positive");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder maxBatchDelay(long delay, TimeUnit unit) {
+            this.maxBatchDelay = delay;
+            this.maxBatchDelayUnit = unit;
+            return this;
+        }
+
+        /**
+         * Failed batches are retried up to {@code maxRetries} times, waiting {@code initialBackoffMillis}
+         * before the first retry and doubling the wait each time, up to {@code maxBackoffMillis}.
+         */
+        public Builder retries(int maxRetries, long initialBackoffMillis, long maxBackoffMillis) {
+            this.maxRetries = maxRetries;
+            this.initialBackoffMillis = initialBackoffMillis;
+            this.maxBackoffMillis = maxBackoffMillis;
+            return this;
+        }
+
+        /**
+         * How long {@link EmailService#close()} waits for queued emails to be delivered.
+         */
+        public Builder shutdownTimeout(long timeout, TimeUnit unit) {
+            this.shutdownTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        /**
+         * Writes accepted emails to the given memory-mapped file before acknowledging them, and
+         * redelivers the ones a previous run did not get to. The file grows as needed.
+         */
+        public Builder spool(Path spoolFile) {
+            this.spoolFile = spoolFile;
+            return this;
+        }
+
+        public Builder spool(Path spoolFile, int initialSize) {
+            this.spoolFile = spoolFile;
+            this.spoolSize = initialSize;
+            return this;
+        }
+
+        /**
+         * Where the service reports shutdown, spooling failures and emails given up on.
+         */
+        public Builder debugSink(DebugSink debugSink) {
+            this.debugSink = debugSink;
+            return this;
+        }
+
+        public EmailService build() {
+            return new EmailService(this);
         }
     }
-}
\ No newline at end of file
+}
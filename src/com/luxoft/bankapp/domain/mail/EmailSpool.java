@@ -0,0 +1,228 @@
+package com.luxoft.bankapp.domain.mail;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.luxoft.bankapp.utils.GroupCommit;
+
+/**
+ * Append-only, memory-mapped write-ahead file for emails that have been accepted but not yet
+ * delivered. Each record is {@code [int length][int crc][byte state][payload]}, followed by a zero
+ * length that marks the end of the log, which starts at the offset kept in the file header.
+ * Delivered records are marked in place; once none are pending, the log restarts from the
+ * beginning of the file. When the file fills up while emails are still pending, the records
+ * after the delivered prefix are moved to the front, so steady traffic does not grow the file.
+ * Emails remember their position in the log rather than in the file, which stays valid across
+ * such moves. Appends are made durable through a {@link GroupCommit}, so concurrent senders
+ * share one sync.
+ */
+class EmailSpool implements Closeable {
+    private static final int MAGIC = 0x454D4C53;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int START_OFFSET = 8;
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final int STATE_OFFSET = 8;
+
+    private static final byte PENDING = 1;
+    private static final byte DONE = 2;
+
+    private final FileChannel channel;
+    private final GroupCommit groupCommit;
+    private MappedByteBuffer buffer;
+    private int writePosition = HEADER_SIZE;
+    // the oldest record that may still be pending; every record before it is delivered
+    private int head = HEADER_SIZE;
+    // log position of the start of the file, advanced by each compaction
+    private long base;
+    private int pending;
+    private volatile long appendedBytes;
+
+    EmailSpool(Path file, int initialSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int size = (int) Math.max(initialSize, Math.max(channel.size(), HEADER_SIZE + Integer.BYTES));
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.force();
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not an email spool file: " + file);
+        }
+
+        this.groupCommit = new GroupCommit(() -> currentBuffer().force(), () -> appendedBytes);
+    }
+
+    /**
+     * Scans the spool and returns the emails that were accepted but never delivered.
+     * Scanning stops at the end marker or at the first damaged record.
+     */
+    synchronized List<Email> recover() {
+        List<Email> undelivered = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        int start = buffer.getInt(START_OFFSET);
+        int position = start == 0 ? HEADER_SIZE : start;
+        head = position;
+
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(position + RECORD_HEADER_SIZE, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+
+            if (buffer.get(position + STATE_OFFSET) == PENDING) {
+                undelivered.add(new SpooledEmail(EmailCodec.decode(ByteBuffer.wrap(payload)), base + position));
+                pending++;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        writePosition = position;
+        if (pending == 0) {
+            restart();
+        }
+        return undelivered;
+    }
+
+    /**
+     * Writes the email to the spool and returns once it is on disk.
+     */
+    SpooledEmail append(Email email) throws IOException {
+        byte[] payload = EmailCodec.encode(email);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        long spoolPosition;
+        long end;
+        synchronized (this) {
+            int recordSize = RECORD_HEADER_SIZE + payload.length;
+            ensureCapacity(recordSize + Integer.BYTES);
+
+            int offset = writePosition;
+            buffer.putInt(offset + recordSize, 0);
+            buffer.put(offset + RECORD_HEADER_SIZE, payload);
+            buffer.putInt(offset + 4, (int) crc.getValue());
+            buffer.put(offset + STATE_OFFSET, PENDING);
+            buffer.putInt(offset, payload.length);
+
+            spoolPosition = base + offset;
+            writePosition += recordSize;
+            pending++;
+            end = appendedBytes + recordSize;
+            appendedBytes = end;
+        }
+
+        groupCommit.awaitDurable(end);
+        return new SpooledEmail(email, spoolPosition);
+    }
+
+    /**
+     * Marks the email as handled, whether it was delivered or given up on.
+     */
+    synchronized void acknowledge(SpooledEmail email) {
+        buffer.put((int) (email.getSpoolPosition() - base) + STATE_OFFSET, DONE);
+        if (--pending == 0) {
+            restart();
+        }
+    }
+
+    synchronized int getPendingCount() {
+        return pending;
+    }
+
+    long getSyncCount() {
+        return groupCommit.getSyncCount();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        buffer.force();
+        channel.close();
+    }
+
+    private synchronized MappedByteBuffer currentBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Nothing is pending any more, so new records can overwrite the old ones.
+     */
+    private void restart() {
+        writePosition = HEADER_SIZE;
+        head = HEADER_SIZE;
+        buffer.putInt(HEADER_SIZE, 0);
+        buffer.putInt(START_OFFSET, HEADER_SIZE);
+    }
+
+    /**
+     * Moves the records after the delivered prefix to the front of the file. Only done when they
+     * fit in the prefix, so the originals stay intact until the copy is complete: the header
+     * first points past the prefix, then at the copy once it ends with an end marker, and a
+     * crash at any point recovers either the originals or the copy.
+     *
+     * @return false if the delivered prefix is too short to take the records after it
+     */
+    private boolean compact() {
+        while (head < writePosition && buffer.get(head + STATE_OFFSET) == DONE) {
+            head += RECORD_HEADER_SIZE + buffer.getInt(head);
+        }
+        int live = writePosition - head;
+        if (head == HEADER_SIZE || head - HEADER_SIZE < live) {
+            return false;
+        }
+
+        buffer.putInt(START_OFFSET, head);
+        buffer.force();
+        buffer.put(HEADER_SIZE, buffer.duplicate(), head, live);
+        buffer.putInt(HEADER_SIZE + live, 0);
+        buffer.force();
+        buffer.putInt(START_OFFSET, HEADER_SIZE);
+        buffer.force();
+
+        base += head - HEADER_SIZE;
+        writePosition = HEADER_SIZE + live;
+        head = HEADER_SIZE;
+        return true;
+    }
+
+    private void ensureCapacity(int recordSize) throws IOException {
+        if (writePosition + recordSize <= buffer.capacity()) {
+            return;
+        }
+        if (compact() && writePosition + recordSize <= buffer.capacity()) {
+            return;
+        }
+
+        int required = writePosition + recordSize;
+        long size = buffer.capacity();
+        while (size < required) {
+            size *= 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Email spool is full");
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+}
@@ -0,0 +1,31 @@
+package com.luxoft.bankapp.domain.mail;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends every email, one per line, to a local file. A stand-in for a real mail server.
+ */
+public class FileTransport implements MailTransport {
+    private final Path file;
+
+    public FileTransport(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void send(List<Email> batch) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Email email : batch) {
+                writer.write(email.toString());
+                writer.write(System.lineSeparator());
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.luxoft.bankapp.domain.mail;
+
+/**
+ * What {@link Queue#add(Email)} does when the queue has reached its capacity.
+ */
+public enum FullQueuePolicy {
+    /** The producer waits until the consumer makes room. */
+    BLOCK,
+    /** The email is discarded and counted as dropped. */
+    DROP,
+    /** The email goes to an unbounded overflow list, still delivered in order. */
+    SPILL
+}
@@ -0,0 +1,26 @@
+package com.luxoft.bankapp.domain.mail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps delivered emails in memory. Meant for tests and local runs.
+ */
+public class InMemoryTransport implements MailTransport {
+    private final List<Email> delivered = new ArrayList<>();
+    private int batches;
+
+    @Override
+    public synchronized void send(List<Email> batch) {
+        delivered.addAll(batch);
+        batches++;
+    }
+
+    public synchronized List<Email> getDelivered() {
+        return new ArrayList<>(delivered);
+    }
+
+    public synchronized int getBatches() {
+        return batches;
+    }
+}
@@ -0,0 +1,12 @@
+package com.luxoft.bankapp.domain.mail;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Delivers emails to the outside world. {@link EmailService} hands over emails in batches;
+ * a transport either delivers the whole batch or throws, in which case the batch is retried.
+ */
+public interface MailTransport {
+    void send(List<Email> batch) throws IOException;
+}
@@ -1,27 +1,179 @@
 package com.luxoft.bankapp.domain.mail;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Bounded FIFO of emails backed by a ring buffer, so adding and polling are O(1).
+ * The lock is only held while an email is moved in or out, never while it is being sent.
+ */
 public class Queue {
-    private List<Email> queue = new ArrayList<>();
+    public static final int DEFAULT_CAPACITY = 1024;
 
-    public void add(Email email) {
-        queue.add(email);
+    private final Email[] items;
+    private final FullQueuePolicy policy;
+    private final ArrayDeque<Email> overflow = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private int head;
+    private int tail;
+    private int count;
+    private long dropped;
+
+    public Queue() {
+        this(DEFAULT_CAPACITY, FullQueuePolicy.BLOCK);
+    }
+
+    public Queue(int capacity, FullQueuePolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.items = new Email[capacity];
+        this.policy = policy;
+    }
+
+    /**
+     * Adds the email, applying the {@link FullQueuePolicy} if the queue is full.
+     *
+     * @return false if the email was dropped
+     * @throws InterruptedException if the policy is BLOCK and the producer was interrupted while waiting
+     */
+    public boolean add(Email email) throws InterruptedException {
+        lock.lock();
+        try {
+            if (count == items.length || !overflow.isEmpty()) {
+                switch (policy) {
+                    case BLOCK:
+                        while (count == items.length) {
+                            notFull.await();
+                        }
+                        break;
+                    case DROP:
+                        dropped++;
+                        return false;
+                    case SPILL:
+                        overflow.addLast(email);
+                        notEmpty.signal();
+                        return true;
+                }
+            }
+
+            enqueue(email);
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean isEmpty() {
-        return queue.isEmpty();
+        lock.lock();
+        try {
+            return count == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return count + overflow.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * Number of emails discarded because of {@link FullQueuePolicy#DROP}.
+     */
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the next email, or null if the queue is empty.
+     */
     public Email poll() {
-        if (queue.isEmpty()) {
-            return null;
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
         }
+    }
 
-        Email email = queue.get(0);
-        queue.remove(0);
+    /**
+     * Returns the next email, waiting up to the given time for one to arrive.
+     *
+     * @return the email, or null if none arrived in time
+     */
+    public Email poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
 
+    /**
+     * Moves up to {@code maxEmails} emails into the given collection.
+     *
+     * @return the number of emails moved
+     */
+    public int drainTo(Collection<? super Email> target, int maxEmails) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (count > 0 && drained < maxEmails) {
+                target.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(Email email) {
+        items[tail] = email;
+        tail = (tail + 1) % items.length;
+        count++;
+        notEmpty.signal();
+    }
+
+    private Email dequeue() {
+        Email email = items[head];
+        items[head] = null;
+        head = (head + 1) % items.length;
+        count--;
+
+        // keep FIFO order: spilled emails move into the ring as soon as there is room
+        Email spilled = overflow.pollFirst();
+        if (spilled != null) {
+            items[tail] = spilled;
+            tail = (tail + 1) % items.length;
+            count++;
+        } else {
+            notFull.signal();
+        }
         return email;
     }
-}
\ No newline at end of file
+}
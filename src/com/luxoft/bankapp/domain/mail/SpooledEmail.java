@@ -0,0 +1,18 @@
+package com.luxoft.bankapp.domain.mail;
+
+/**
+ * An email that has been written to the spool, remembering its position in the spool's log so
+ * delivery can be acknowledged.
+ */
+class SpooledEmail extends Email {
+    private final long spoolPosition;
+
+    SpooledEmail(Email email, long spoolPosition) {
+        super(email);
+        this.spoolPosition = spoolPosition;
+    }
+
+    long getSpoolPosition() {
+        return spoolPosition;
+    }
+}
@@ -6,4 +6,12 @@ public class BankException extends Exception {
 	public BankException(String message){
 	    super(message);
 	}
+
+	/**
+	 * Creates an exception that does not capture a stack trace, for expected outcomes such as a
+	 * declined withdrawal that are reported often enough for the capture to be costly.
+	 */
+	protected BankException(String message, boolean writableStackTrace) {
+	    super(message, null, false, writableStackTrace);
+	}
 }
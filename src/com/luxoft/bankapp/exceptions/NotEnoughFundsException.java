@@ -1,17 +1,23 @@
 package com.luxoft.bankapp.exceptions;
 
+import com.luxoft.bankapp.domain.Money;
+
 public class NotEnoughFundsException extends BankException {
 	
 	private static final long serialVersionUID = -3034651278778929257L;
 	private int id;
-	private double balance;
-	private double amount;
+	private long balance;
+	private long amount;
 	
-	public NotEnoughFundsException(int id, double balance, double amount, String message) {
-        super(message);
+	/**
+	 * Balance and amount are expressed in cents. A declined withdrawal is a business outcome
+	 * rather than a fault, so no stack trace is captured.
+	 */
+	public NotEnoughFundsException(int id, long balance, long amount, String message) {
+        super(message, false);
         this.id = id;
         this.balance = balance;
-        this.amount = Math.round(amount * 100) / 100d;
+        this.amount = amount;
     }
     
     public int getId() {
@@ -19,10 +25,18 @@ public class NotEnoughFundsException extends BankException {
 	}
     
     public double getBalance() {
-		return balance;
+		return Money.toDouble(balance);
 	}
 
     public double getAmount() {
+        return Money.toDouble(amount);
+    }
+
+    public long getBalanceCents() {
+		return balance;
+	}
+
+    public long getAmountCents() {
         return amount;
     }
 
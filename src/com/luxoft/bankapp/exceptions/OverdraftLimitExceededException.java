@@ -1,16 +1,29 @@
 package com.luxoft.bankapp.exceptions;
 
+import com.luxoft.bankapp.domain.Money;
+
 public class OverdraftLimitExceededException extends NotEnoughFundsException {
 	
 	private static final long serialVersionUID = -3737648528527468343L;
-	private double overdraft;
+	private long overdraft;
 
-	public OverdraftLimitExceededException(NotEnoughFundsException e, double overdraft) {
-        super(e.getId(), e.getBalance(), e.getAmount(), e.getMessage());
+	/**
+	 * Balance, amount and overdraft are expressed in cents.
+	 */
+	public OverdraftLimitExceededException(int id, long balance, long amount, long overdraft, String message) {
+        super(id, balance, amount, message);
         this.overdraft = overdraft;
     }
+
+	public OverdraftLimitExceededException(NotEnoughFundsException e, long overdraft) {
+        this(e.getId(), e.getBalanceCents(), e.getAmountCents(), overdraft, e.getMessage());
+    }
 	
 	public double getOverdraft() {
+		return Money.toDouble(overdraft);
+	}
+
+	public long getOverdraftCents() {
 		return overdraft;
 	}
 
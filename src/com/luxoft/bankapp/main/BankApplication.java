@@ -1,11 +1,16 @@
 package com.luxoft.bankapp.main;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import com.luxoft.bankapp.domain.Account;
 import com.luxoft.bankapp.domain.Bank;
 import com.luxoft.bankapp.domain.CheckingAccount;
 import com.luxoft.bankapp.domain.Client;
 import com.luxoft.bankapp.domain.Gender;
 import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.domain.journal.Journal;
 import com.luxoft.bankapp.domain.mail.Email;
 import com.luxoft.bankapp.domain.mail.EmailService;
 import com.luxoft.bankapp.exceptions.ClientExistsException;
@@ -17,19 +22,50 @@ public class BankApplication {
 	
 	private static Bank bank;
 
-	public static void main(String[] args) {
+	/**
+	 * Options: {@code -statistics} prints the bank statistics; {@code -journal <directory>}
+	 * records every change to a journal in that directory, and on later runs restores the bank
+	 * from it instead of creating the sample clients again.
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean statistics = false;
+		Path journalDirectory = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-statistics")) {
+				statistics = true;
+			} else if (args[i].equals("-journal") && i + 1 < args.length) {
+				journalDirectory = Paths.get(args[++i]);
+			}
+		}
+
         EmailService emailService = new EmailService();
 
 		bank = new Bank(emailService);
-		modifyBank();
+		Journal journal = null;
+		if (journalDirectory != null) {
+			long records = Journal.replay(journalDirectory, bank);
+			if (records > 0) {
+				System.out.format("Restored %d clients from %d journal records%n", bank.getClients().size(), records);
+			}
+			journal = new Journal(journalDirectory);
+			bank.setTransactionLog(journal);
+		}
+
+		if (bank.getClients().isEmpty()) {
+			modifyBank();
+		}
 		printBalance();
 		BankService.printMaximumAmountToWithdraw(bank);
 
-		if (args.length > 0 && args[0].equals("-statistics")) {
+		if (statistics) {
 			bank.displayStatistics();
 		}
 
+		bank.close();
 		emailService.close();
+		if (journal != null) {
+			journal.close();
+		}
 	}
 	
 	private static void modifyBank() {
@@ -91,13 +127,7 @@ public class BankApplication {
 	}
 	
 	private static void printBalance() {
-		System.out.format("%nPrint balance for all clients%n");
-		for(Client client : bank.getClients()) {
-			System.out.println("Client: " + client);
-			for (Account account : client.getAccounts()) {
-				System.out.format("Account %d : %.2f%n", account.getId(), account.getBalance());
-			}
-		}
+		BankService.printBalance(bank);
 	}
 
 }
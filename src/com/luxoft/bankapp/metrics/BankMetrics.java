@@ -0,0 +1,95 @@
+package com.luxoft.bankapp.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The metrics of the bank application, in one process-wide {@link #REGISTRY}.
+ * <p>
+ * Account operations only increment per-thread counters, and time one operation in
+ * {@value #SAMPLE_RATE} so their latency histograms cost a few nanoseconds on average.
+ * Everything else is timed on every call. Start the JVM with {@code -Dbankapp.metrics=false}
+ * to turn recording off; the checks then fold away in compiled code.
+ */
+public final class BankMetrics {
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("bankapp.metrics", "true"));
+    public static final int SAMPLE_RATE = 1024;
+
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    public static final Counter DEPOSITS = REGISTRY.counter("account.deposits");
+    public static final Counter WITHDRAWALS = REGISTRY.counter("account.withdrawals");
+    public static final Counter DECLINED_WITHDRAWALS = REGISTRY.counter("account.withdrawals.declined");
+    public static final Histogram DEPOSIT_LATENCY = REGISTRY.histogram("account.deposit.latency");
+    public static final Histogram WITHDRAWAL_LATENCY = REGISTRY.histogram("account.withdrawal.latency");
+    public static final Histogram DECLINED_WITHDRAWAL_LATENCY = REGISTRY.histogram("account.withdrawal.declined.latency");
+
+    public static final Histogram ADD_CLIENT_LATENCY = REGISTRY.histogram("bank.addClient.latency");
+    public static final Histogram LISTENER_LATENCY = REGISTRY.histogram("bank.listener.latency");
+
+    public static final Histogram EMAIL_DELIVERY_LATENCY = REGISTRY.histogram("email.delivery.latency");
+    public static final String EMAIL_QUEUE_DEPTH = "email.queue.depth";
+
+    private BankMetrics() {
+    }
+
+    /**
+     * Returns {@link System#nanoTime()} for the operations picked for timing, and 0 for the others.
+     */
+    public static long startSample() {
+        if (ENABLED && (ThreadLocalRandom.current().nextInt() & (SAMPLE_RATE - 1)) == 0) {
+            return System.nanoTime();
+        }
+        return 0;
+    }
+
+    public static void deposited(long sampleStart) {
+        if (ENABLED) {
+            DEPOSITS.increment();
+            if (sampleStart != 0) {
+                DEPOSIT_LATENCY.record(System.nanoTime() - sampleStart);
+            }
+        }
+    }
+
+    public static void withdrawn(long sampleStart) {
+        if (ENABLED) {
+            WITHDRAWALS.increment();
+            if (sampleStart != 0) {
+                WITHDRAWAL_LATENCY.record(System.nanoTime() - sampleStart);
+            }
+        }
+    }
+
+    public static void withdrawalDeclined(long sampleStart) {
+        if (ENABLED) {
+            DECLINED_WITHDRAWALS.increment();
+            if (sampleStart != 0) {
+                DECLINED_WITHDRAWAL_LATENCY.record(System.nanoTime() - sampleStart);
+            }
+        }
+    }
+
+    /**
+     * Counts postings applied in a batch, which are not timed one by one.
+     */
+    public static void posted(long deposits, long withdrawals, long declinedWithdrawals) {
+        if (ENABLED) {
+            DEPOSITS.add(deposits);
+            WITHDRAWALS.add(withdrawals);
+            DECLINED_WITHDRAWALS.add(declinedWithdrawals);
+        }
+    }
+
+    /**
+     * Returns {@link System#nanoTime()}, or 0 when metrics are off.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static void recordSince(Histogram histogram, long start) {
+        if (ENABLED) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+}
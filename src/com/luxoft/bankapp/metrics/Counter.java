@@ -0,0 +1,79 @@
+package com.luxoft.bankapp.metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A monotonically growing count. Every thread increments a cell of its own with a plain
+ * write, so an increment costs no atomic instruction and threads never contend; {@link #sum()}
+ * adds up the cells. Whenever the cells have doubled since they were last swept, those of
+ * threads that have ended are folded into a single total, so the cells stay bounded by the
+ * threads alive rather than by every thread that ever counted.
+ */
+public final class Counter {
+    private static final VarHandle VALUE;
+    private static final int MIN_SWEEP = 16;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Cell.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final List<Cell> cells = new ArrayList<>();
+    private final ThreadLocal<Cell> cell = ThreadLocal.withInitial(this::newCell);
+    private long ended;
+    private int sweepAt = MIN_SWEEP;
+
+    Counter() {
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long amount) {
+        Cell own = cell.get();
+        // only the owning thread writes the cell; opaque keeps the write visible to sum()
+        VALUE.setOpaque(own, own.value + amount);
+    }
+
+    public synchronized long sum() {
+        long sum = ended;
+        for (Cell c : cells) {
+            sum += (long) VALUE.getOpaque(c);
+        }
+        return sum;
+    }
+
+    private synchronized Cell newCell() {
+        if (cells.size() >= sweepAt) {
+            // a thread seen as ended has made its last write, and isAlive() sees that write
+            cells.removeIf(c -> {
+                if (c.owner.isAlive()) {
+                    return false;
+                }
+                ended += c.value;
+                return true;
+            });
+            sweepAt = Math.max(MIN_SWEEP, 2 * cells.size());
+        }
+
+        Cell created = new Cell(Thread.currentThread());
+        cells.add(created);
+        return created;
+    }
+
+    private static final class Cell {
+        private final Thread owner;
+        private long value;
+
+        Cell(Thread owner) {
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.luxoft.bankapp.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative values, typically latencies in nanoseconds, with fixed memory
+ * and a relative error of at most 1/16. Values below 16 get a bucket each; above that every
+ * power of two is split into 16 equal buckets, as in HdrHistogram. Recording is lock-free and
+ * allocation-free; bucket counts and the maximum are striped by thread to keep recorders off
+ * each other's cache lines.
+ */
+public final class Histogram {
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    // each stripe is its bucket counts followed by its maximum
+    private static final int STRIPE_SIZE = BUCKETS + 1;
+
+    private final int stripeMask;
+    private final AtomicLongArray counts;
+    private final LongAdder sum = new LongAdder();
+
+    Histogram() {
+        int stripes = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.stripeMask = stripes - 1;
+        this.counts = new AtomicLongArray(stripes * STRIPE_SIZE);
+    }
+
+    /**
+     * Records one value. Negative values, such as a clock step, count as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int stripe = ((int) Thread.currentThread().getId() & stripeMask) * STRIPE_SIZE;
+        counts.getAndIncrement(stripe + bucketOf(value));
+        sum.add(value);
+        int maxIndex = stripe + BUCKETS;
+        long current = counts.get(maxIndex);
+        while (value > current && !counts.compareAndSet(maxIndex, current, value)) {
+            current = counts.get(maxIndex);
+        }
+    }
+
+    /**
+     * Returns a consistent-enough copy for reporting. Values recorded while the copy is taken
+     * may be partly included.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] merged = new long[BUCKETS];
+        long max = 0;
+        for (int stripe = 0; stripe < counts.length(); stripe += STRIPE_SIZE) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                merged[bucket] += counts.get(stripe + bucket);
+            }
+            max = Math.max(max, counts.get(stripe + BUCKETS));
+        }
+        return new HistogramSnapshot(merged, sum.sum(), max);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest value that falls into the bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket >> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lowest = (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) * width;
+        return lowest + width - 1;
+    }
+}
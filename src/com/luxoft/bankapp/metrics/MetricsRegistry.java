@@ -0,0 +1,123 @@
+package com.luxoft.bankapp.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.luxoft.bankapp.utils.DebugSink;
+
+/**
+ * Holds named counters, histograms and gauges. Look metrics up once and keep the reference;
+ * the lookup is a map access, recording on the returned object is not.
+ * <p>
+ * {@link #startDump(Path, long, TimeUnit)} rewrites a file with the current
+ * {@link MetricsSnapshot} periodically, replacing it atomically so readers never see half a dump.
+ */
+public class MetricsRegistry implements AutoCloseable {
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Returns the counter with the given name, creating it if needed.
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it if needed.
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * Reports the value of the supplier under the given name, replacing any earlier gauge of
+     * that name. The supplier is called from whichever thread takes a snapshot.
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Removes the gauge if it is still the given one.
+     */
+    public void removeGauge(String name, LongSupplier value) {
+        gauges.remove(name, value);
+    }
+
+    public MetricsSnapshot snapshot() {
+        TreeMap<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.sum()));
+        TreeMap<String, Long> gaugeValues = new TreeMap<>();
+        gauges.forEach((name, gauge) -> gaugeValues.put(name, gauge.getAsLong()));
+        TreeMap<String, HistogramSnapshot> histogramValues = new TreeMap<>();
+        histograms.forEach((name, histogram) -> histogramValues.put(name, histogram.snapshot()));
+        return new MetricsSnapshot(System.currentTimeMillis(), counterValues, gaugeValues, histogramValues);
+    }
+
+    /**
+     * Writes a snapshot to the file, through a temporary file in the same directory that is
+     * then moved over it.
+     */
+    public void dump(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            snapshot().writeTo(out);
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Dumps to the file every {@code period} on a daemon thread until {@link #close()}.
+     * Failed dumps are reported to {@link DebugSink#DEFAULT} and retried at the next period.
+     */
+    public void startDump(Path file, long period, TimeUnit unit) {
+        startDump(file, period, unit, DebugSink.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #startDump(Path, long, TimeUnit)}, reporting failed dumps to the given sink.
+     */
+    public synchronized void startDump(Path file, long period, TimeUnit unit, DebugSink errors) {
+        if (dumper != null) {
+            throw new IllegalStateException("Metrics are already being dumped");
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> {
+            try {
+                dump(file);
+            } catch (IOException e) {
+                errors.log("Cannot dump metrics to " + file + ": " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stops the periodic dump, if any. Metrics can still be recorded and read.
+     */
+    @Override
+    public synchronized void close() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.luxoft.bankapp.metrics;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The values of every metric of a {@link MetricsRegistry} at one point in time, ordered by name.
+ */
+public final class MetricsSnapshot {
+    private final long timestampMillis;
+    private final SortedMap<String, Long> counters;
+    private final SortedMap<String, Long> gauges;
+    private final SortedMap<String, HistogramSnapshot> histograms;
+
+    MetricsSnapshot(long timestampMillis, SortedMap<String, Long> counters, SortedMap<String, Long> gauges,
+            SortedMap<String, HistogramSnapshot> histograms) {
+        this.timestampMillis = timestampMillis;
+        this.counters = Collections.unmodifiableSortedMap(counters);
+        this.gauges = Collections.unmodifiableSortedMap(gauges);
+        this.histograms = Collections.unmodifiableSortedMap(histograms);
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public SortedMap<String, Long> getCounters() {
+        return counters;
+    }
+
+    public SortedMap<String, Long> getGauges() {
+        return gauges;
+    }
+
+    public SortedMap<String, HistogramSnapshot> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * Returns the counter's value, or 0 if there is no such counter.
+     */
+    public long getCounter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    public HistogramSnapshot getHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * Writes one line per metric: {@code <kind> <name> <value>}, histograms in nanoseconds.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append("# metrics at ").append(Long.toString(timestampMillis)).append('\n');
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            out.append("counter ").append(counter.getKey()).append(' ').append(counter.getValue().toString()).append('\n');
+        }
+        for (Map.Entry<String, Long> gauge : gauges.entrySet()) {
+            out.append("gauge ").append(gauge.getKey()).append(' ').append(gauge.getValue().toString()).append('\n');
+        }
+        for (Map.Entry<String, HistogramSnapshot> histogram : histograms.entrySet()) {
+            out.append("histogram ").append(histogram.getKey()).append(' ').append(histogram.getValue().toString()).append('\n');
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        try {
+            writeTo(text);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.luxoft.bankapp.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.luxoft.bankapp.domain.Account;
+
+/**
+ * A fixed set of locks striped by account id. Operations that span two accounts take both
+ * stripes in ascending stripe order, which is derived from the account ids, so two such
+ * operations can never wait on each other in a cycle.
+ */
+class AccountLocks {
+
+    private static final int DEFAULT_STRIPES = 1024;
+
+    private final ReentrantLock[] stripes;
+
+    AccountLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    AccountLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    ReentrantLock lockFor(Account account) {
+        return stripes[stripe(account.getId())];
+    }
+
+    /**
+     * Locks the stripes of both accounts in ascending order; the same stripe is locked once.
+     */
+    void lockBoth(Account first, Account second) {
+        int a = stripe(first.getId());
+        int b = stripe(second.getId());
+        stripes[Math.min(a, b)].lock();
+        if (a != b) {
+            stripes[Math.max(a, b)].lock();
+        }
+    }
+
+    void unlockBoth(Account first, Account second) {
+        int a = stripe(first.getId());
+        int b = stripe(second.getId());
+        if (a != b) {
+            stripes[Math.max(a, b)].unlock();
+        }
+        stripes[Math.min(a, b)].unlock();
+    }
+
+    private int stripe(int id) {
+        return Math.floorMod(id, stripes.length);
+    }
+}
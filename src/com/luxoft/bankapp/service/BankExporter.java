@@ -0,0 +1,155 @@
+package com.luxoft.bankapp.service;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.Set;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.utils.ChannelWriter;
+
+/**
+ * Streams bank extracts to a channel one client at a time through a fixed-size buffer, so the
+ * memory needed does not grow with the bank. Clients registered while an export runs may or may
+ * not be included.
+ * <p>
+ * The CSV account extract has the header {@value #CSV_HEADER} and one row per account; a client
+ * without accounts gets one row with empty account columns. Amounts are in units with two
+ * decimals. Fields containing commas, quotes or line breaks are quoted.
+ * <p>
+ * The binary extract starts with the magic number and version as ints. Each client follows as
+ * a byte 1, its name, gender ordinal byte (-1 for none) and city. Then each of its accounts is
+ * a byte 1, the {@link com.luxoft.bankapp.domain.AccountType} ordinal byte, an int id, and long
+ * balance and overdraft in cents. A byte 0 ends the accounts, and a final byte 0 ends the
+ * clients. Strings are an int UTF-8 length (-1 for null) followed by the bytes.
+ */
+public class BankExporter {
+
+    public enum Format {
+        CSV, BINARY
+    }
+
+    public static final String CSV_HEADER = "name,gender,city,account_id,account_type,balance,overdraft";
+    public static final int BINARY_MAGIC = 0x42455850;
+    public static final int BINARY_VERSION = 1;
+
+    private final int bufferSize;
+
+    public BankExporter() {
+        this(ChannelWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    public BankExporter(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Writes every client and account in the given format and returns the number of clients.
+     * The channel is left open.
+     */
+    public long exportAccounts(Bank bank, Format format, WritableByteChannel channel) throws IOException {
+        try (ChannelWriter writer = new ChannelWriter(channel, bufferSize)) {
+            return format == Format.CSV ? writeCsv(bank, writer) : writeBinary(bank, writer);
+        }
+    }
+
+    /**
+     * Writes {@code city,name,gender,total_balance} rows ordered by city, using the bank's city
+     * index, and returns the number of clients.
+     */
+    public long exportClientsByCity(Bank bank, WritableByteChannel channel) throws IOException {
+        long clients = 0;
+        try (ChannelWriter writer = new ChannelWriter(channel, bufferSize)) {
+            writer.writeText("city,name,gender,total_balance\n");
+            for (Map.Entry<String, Set<Client>> city : bank.getClientsByCity().entrySet()) {
+                for (Client client : city.getValue()) {
+                    writeField(writer, city.getKey());
+                    writer.writeByte(',');
+                    writeField(writer, client.getName());
+                    writer.writeByte(',');
+                    writeField(writer, client.getGender() == null ? null : client.getGender().name());
+                    writer.writeByte(',');
+                    writer.writeCents(client.getTotalBalanceCents()).writeByte('\n');
+                    clients++;
+                }
+            }
+        }
+        return clients;
+    }
+
+    private static long writeCsv(Bank bank, ChannelWriter writer) throws IOException {
+        long clients = 0;
+        writer.writeText(CSV_HEADER).writeByte('\n');
+        for (Client client : bank.getClients()) {
+            boolean empty = true;
+            for (Account account : client.getAccounts()) {
+                writeClient(writer, client);
+                writer.writeDecimal(account.getId()).writeByte(',')
+                        .writeText(account.getType().name()).writeByte(',')
+                        .writeCents(account.getBalanceCents()).writeByte(',')
+                        .writeCents(account.getOverdraftCents()).writeByte('\n');
+                empty = false;
+            }
+            if (empty) {
+                writeClient(writer, client);
+                writer.writeText(",,,\n");
+            }
+            clients++;
+        }
+        return clients;
+    }
+
+    private static void writeClient(ChannelWriter writer, Client client) throws IOException {
+        writeField(writer, client.getName());
+        writer.writeByte(',');
+        writeField(writer, client.getGender() == null ? null : client.getGender().name());
+        writer.writeByte(',');
+        writeField(writer, client.getCity());
+        writer.writeByte(',');
+    }
+
+    private static void writeField(ChannelWriter writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (needsQuotes(value)) {
+            writer.writeByte('"').writeText(value.replace("\"", "\"\"")).writeByte('"');
+        } else {
+            writer.writeText(value);
+        }
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long writeBinary(Bank bank, ChannelWriter writer) throws IOException {
+        long clients = 0;
+        writer.writeInt(BINARY_MAGIC).writeInt(BINARY_VERSION);
+        for (Client client : bank.getClients()) {
+            writer.writeByte(1)
+                    .writeString(client.getName())
+                    .writeByte(client.getGender() == null ? -1 : client.getGender().ordinal())
+                    .writeString(client.getCity());
+            for (Account account : client.getAccounts()) {
+                writer.writeByte(1)
+                        .writeByte(account.getType().ordinal())
+                        .writeInt(account.getId())
+                        .writeLong(account.getBalanceCents())
+                        .writeLong(account.getOverdraftCents());
+            }
+            writer.writeByte(0);
+            clients++;
+        }
+        writer.writeByte(0);
+        return clients;
+    }
+}
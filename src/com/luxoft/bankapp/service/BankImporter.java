@@ -0,0 +1,598 @@
+package com.luxoft.bankapp.service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.AccountType;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+
+/**
+ * Loads clients and accounts in bulk from files in the formats written by {@link BankExporter}.
+ * <p>
+ * A CSV file is split into chunks at line breaks, and several threads each take a chunk at a
+ * time through the whole pipeline: parse the rows, merge consecutive rows of the same client,
+ * and register the clients with {@link Bank#addClients}, so listeners are notified once per
+ * batch. A client that is already registered, because it was in the bank before or because a
+ * chunk boundary or an earlier row in the file introduced it, gets the accounts of the row
+ * added to the registered client instead. Chunks are split at any line break, so a file whose
+ * quoted fields contain line breaks must be imported with a single thread.
+ * <p>
+ * Binary files have no record boundaries that can be found from the middle, so they are parsed
+ * on one thread and only registered in batches.
+ */
+public class BankImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    public static final long DEFAULT_CHUNK_SIZE = 32 << 20;
+    private static final int FIELDS = 7;
+
+    private final int threads;
+    private final int batchSize;
+    private final long chunkSize;
+
+    public BankImporter() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param threads   number of CSV parsing and registration threads
+     * @param batchSize number of clients registered, and announced to listeners, at once
+     * @param chunkSize approximate number of CSV bytes a thread takes at a time
+     */
+    public BankImporter(int threads, int batchSize, long chunkSize) {
+        if (threads <= 0 || batchSize <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Threads, batch size and chunk size must be positive");
+        }
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * What an import did.
+     */
+    public static class Result {
+        private final long rows;
+        private final long accounts;
+        private final long addedClients;
+        private final long mergedClients;
+
+        Result(long rows, long accounts, long addedClients, long mergedClients) {
+            this.rows = rows;
+            this.accounts = accounts;
+            this.addedClients = addedClients;
+            this.mergedClients = mergedClients;
+        }
+
+        /**
+         * Number of CSV rows, or binary client records, read.
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        public long getAccounts() {
+            return accounts;
+        }
+
+        public long getAddedClients() {
+            return addedClients;
+        }
+
+        /**
+         * Number of times a client read from the file was already registered and its accounts
+         * were added to the registered client.
+         */
+        public long getMergedClients() {
+            return mergedClients;
+        }
+
+        @Override
+        public String toString() {
+            return rows + " rows, " + accounts + " accounts, " + addedClients + " clients added, "
+                    + mergedClients + " merged";
+        }
+    }
+
+    public Result importAccounts(Bank bank, BankExporter.Format format, Path file) throws IOException {
+        return format == BankExporter.Format.CSV ? importCsv(bank, file) : importBinary(bank, file);
+    }
+
+    private Result importCsv(Bank bank, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> chunks = split(channel, chunkSize);
+            int workers = Math.min(threads, chunks.size());
+            if (workers == 0) {
+                return new Result(0, 0, 0, 0);
+            }
+            AtomicInteger nextChunk = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(workers, task -> {
+                Thread thread = new Thread(task, "bank-importer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<Loader>> loaders = new ArrayList<>();
+                for (int i = 0; i < workers; i++) {
+                    loaders.add(executor.submit(() -> {
+                        Loader loader = new Loader(bank, batchSize);
+                        CsvParser parser = new CsvParser(loader);
+                        for (int chunk = nextChunk.getAndIncrement(); chunk < chunks.size(); chunk = nextChunk.getAndIncrement()) {
+                            long[] range = chunks.get(chunk);
+                            parser.parse(channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0]), range[0]);
+                        }
+                        loader.flush();
+                        return loader;
+                    }));
+                }
+
+                Loader total = new Loader(bank, batchSize);
+                for (Future<Loader> loader : loaders) {
+                    total.add(loader.get());
+                }
+                return total.result();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new IllegalStateException("Import failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while importing " + file, e);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Splits the file, after its header, into ranges of about {@code chunkSize} bytes that start
+     * and end at line boundaries.
+     */
+    private static List<long[]> split(FileChannel channel, long chunkSize) throws IOException {
+        long size = channel.size();
+        long start = skipHeader(channel);
+        List<long[]> chunks = new ArrayList<>();
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : nextLine(channel, start + chunkSize);
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static long skipHeader(FileChannel channel) throws IOException {
+        byte[] header = (BankExporter.CSV_HEADER + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer start = ByteBuffer.allocate(header.length);
+        while (start.hasRemaining() && channel.read(start, start.position()) > 0) {
+        }
+        return start.hasRemaining() || !start.flip().equals(ByteBuffer.wrap(header)) ? 0 : header.length;
+    }
+
+    /**
+     * Returns the position just after the first line break at or after the given one.
+     */
+    private static long nextLine(FileChannel channel, long position) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long size = channel.size();
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private Result importBinary(Bank bank, Path file) throws IOException {
+        Loader loader = new Loader(bank, batchSize);
+        Map<String, String> cities = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != BankExporter.BINARY_MAGIC) {
+                throw new IOException(file + " is not a bank export");
+            }
+            int version = in.readInt();
+            if (version != BankExporter.BINARY_VERSION) {
+                throw new IOException("Unsupported bank export version " + version);
+            }
+
+            Gender[] genders = Gender.values();
+            AccountType[] types = AccountType.values();
+            while (in.readByte() == 1) {
+                String name = readString(in);
+                byte gender = in.readByte();
+                String city = readString(in);
+                if (city != null) {
+                    city = cities.computeIfAbsent(city, c -> c);
+                }
+                Client client = new Client(name, gender < 0 ? null : genders[gender], city);
+                loader.rows++;
+                while (in.readByte() == 1) {
+                    AccountType type = types[in.readByte()];
+                    int id = in.readInt();
+                    long balance = in.readLong();
+                    long overdraft = in.readLong();
+                    client.addAccount(newAccount(type, id, balance, overdraft));
+                    loader.accounts++;
+                }
+                loader.add(client);
+            }
+        } catch (EOFException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException(file + " is truncated or corrupt", e);
+        }
+        loader.flush();
+        return loader.result();
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Account newAccount(AccountType type, int id, long balance, long overdraft) {
+        return type == AccountType.CHECKING
+                ? CheckingAccount.ofCents(id, balance, overdraft)
+                : SavingAccount.ofCents(id, balance);
+    }
+
+    /**
+     * The registration stage of one worker: collects distinct clients into batches, registers
+     * each batch at once and merges the accounts of clients that were already registered.
+     */
+    private static final class Loader {
+        private final Bank bank;
+        private final int batchSize;
+        private final List<Client> batch;
+        private long rows;
+        private long accounts;
+        private long addedClients;
+        private long mergedClients;
+
+        Loader(Bank bank, int batchSize) {
+            this.bank = bank;
+            this.batchSize = batchSize;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        void add(Client client) {
+            batch.add(client);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Client> added = bank.addClients(batch);
+            addedClients += added.size();
+            if (added.size() < batch.size()) {
+                int next = 0;
+                for (Client client : batch) {
+                    if (next < added.size() && added.get(next) == client) {
+                        next++;
+                    } else {
+                        merge(client);
+                    }
+                }
+            }
+            batch.clear();
+        }
+
+        private void merge(Client duplicate) {
+            Client registered;
+            // another worker may have added it but not indexed it yet
+            while ((registered = bank.getClient(duplicate)) == null) {
+                Thread.yield();
+            }
+            for (Account account : duplicate.getAccounts()) {
+                registered.addAccount(account);
+            }
+            mergedClients++;
+        }
+
+        void add(Loader other) {
+            rows += other.rows;
+            accounts += other.accounts;
+            addedClients += other.addedClients;
+            mergedClients += other.mergedClients;
+        }
+
+        Result result() {
+            return new Result(rows, accounts, addedClients, mergedClients);
+        }
+    }
+
+    /**
+     * Parses the rows of one chunk. Consecutive rows with the same client columns belong to the
+     * same client; only the first of them creates strings.
+     */
+    private static final class CsvParser {
+        private final Loader loader;
+        private final int[] starts = new int[FIELDS];
+        private final int[] ends = new int[FIELDS];
+        private final boolean[] quoted = new boolean[FIELDS];
+        private final Map<String, String> cities = new HashMap<>();
+        private byte[] scratch = new byte[256];
+
+        private MappedByteBuffer buffer;
+        private long offset;
+        private Client client;
+        private int clientStart;
+        private int clientEnd;
+
+        CsvParser(Loader loader) {
+            this.loader = loader;
+        }
+
+        void parse(MappedByteBuffer chunk, long chunkOffset) throws IOException {
+            buffer = chunk;
+            offset = chunkOffset;
+            client = null;
+            int limit = chunk.limit();
+            int position = 0;
+            while (position < limit) {
+                position = row(position, limit);
+            }
+            if (client != null) {
+                loader.add(client);
+                client = null;
+            }
+        }
+
+        /**
+         * Parses the row starting at the position and returns the position after it.
+         */
+        private int row(int position, int limit) throws IOException {
+            if (buffer.get(position) == '\n') {
+                return position + 1;
+            }
+            int rowStart = position;
+            int field = 0;
+            while (true) {
+                if (field == FIELDS) {
+                    throw malformed(rowStart, "too many fields");
+                }
+                quoted[field] = position < limit && buffer.get(position) == '"';
+                if (quoted[field]) {
+                    position++;
+                    starts[field] = position;
+                    while (true) {
+                        if (position >= limit) {
+                            throw malformed(rowStart, "unterminated quote");
+                        }
+                        if (buffer.get(position) == '"') {
+                            if (position + 1 < limit && buffer.get(position + 1) == '"') {
+                                position += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        position++;
+                    }
+                    ends[field] = position++;
+                } else {
+                    starts[field] = position;
+                    while (position < limit) {
+                        byte b = buffer.get(position);
+                        if (b == ',' || b == '\n' || b == '\r') {
+                            break;
+                        }
+                        if (b == '"') {
+                            throw malformed(rowStart, "quote inside an unquoted field");
+                        }
+                        position++;
+                    }
+                    ends[field] = position;
+                }
+
+                byte separator = position < limit ? buffer.get(position) : (byte) '\n';
+                field++;
+                if (separator == ',') {
+                    position++;
+                    continue;
+                }
+                if (separator == '\r') {
+                    position++;
+                    separator = position < limit ? buffer.get(position) : (byte) '\n';
+                }
+                if (separator != '\n') {
+                    throw malformed(rowStart, "unexpected character after a quoted field");
+                }
+                position++;
+                break;
+            }
+            if (field != FIELDS) {
+                throw malformed(rowStart, "expected " + FIELDS + " fields, found " + field);
+            }
+
+            loader.rows++;
+            int prefixEnd = ends[2] + (quoted[2] ? 1 : 0);
+            if (client == null || !samePrefix(rowStart, prefixEnd)) {
+                if (client != null) {
+                    loader.add(client);
+                }
+                client = new Client(text(0), gender(rowStart), city());
+                clientStart = rowStart;
+                clientEnd = prefixEnd;
+            }
+            if (ends[3] > starts[3]) {
+                client.addAccount(account(rowStart));
+                loader.accounts++;
+            }
+            return position;
+        }
+
+        private boolean samePrefix(int rowStart, int prefixEnd) {
+            if (prefixEnd - rowStart != clientEnd - clientStart) {
+                return false;
+            }
+            for (int i = 0; i < prefixEnd - rowStart; i++) {
+                if (buffer.get(rowStart + i) != buffer.get(clientStart + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String text(int field) {
+            int length = ends[field] - starts[field];
+            if (length == 0) {
+                return null;
+            }
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            int copied = 0;
+            for (int i = starts[field]; i < ends[field]; i++) {
+                byte b = buffer.get(i);
+                scratch[copied++] = b;
+                if (b == '"' && quoted[field]) {
+                    // a doubled quote stands for one
+                    i++;
+                }
+            }
+            return new String(scratch, 0, copied, StandardCharsets.UTF_8);
+        }
+
+        private String city() {
+            String city = text(2);
+            return city == null ? null : cities.computeIfAbsent(city, c -> c);
+        }
+
+        private Gender gender(int rowStart) throws IOException {
+            int length = ends[1] - starts[1];
+            if (length == 0) {
+                return null;
+            }
+            if (length == 4 && buffer.get(starts[1]) == 'M') {
+                return Gender.MALE;
+            }
+            if (length == 6 && buffer.get(starts[1]) == 'F') {
+                return Gender.FEMALE;
+            }
+            try {
+                return Gender.valueOf(text(1));
+            } catch (IllegalArgumentException e) {
+                throw malformed(rowStart, "unknown gender " + text(1));
+            }
+        }
+
+        private Account account(int rowStart) throws IOException {
+            long id = number(3, rowStart);
+            if (id < Integer.MIN_VALUE || id > Integer.MAX_VALUE) {
+                throw malformed(rowStart, "account id out of range");
+            }
+            AccountType type;
+            int length = ends[4] - starts[4];
+            if (length == 6 && buffer.get(starts[4]) == 'S') {
+                type = AccountType.SAVING;
+            } else if (length == 8 && buffer.get(starts[4]) == 'C') {
+                type = AccountType.CHECKING;
+            } else {
+                throw malformed(rowStart, "unknown account type " + text(4));
+            }
+            return newAccount(type, (int) id, cents(5, rowStart), cents(6, rowStart));
+        }
+
+        private long number(int field, int rowStart) throws IOException {
+            int position = starts[field];
+            boolean negative = position < ends[field] && buffer.get(position) == '-';
+            if (negative) {
+                position++;
+            }
+            if (position == ends[field]) {
+                throw malformed(rowStart, "missing number");
+            }
+            long value = 0;
+            for (; position < ends[field]; position++) {
+                int digit = buffer.get(position) - '0';
+                if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                    throw malformed(rowStart, "invalid number");
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses an amount such as {@code -12.05} or {@code 7.5} into cents.
+         */
+        private long cents(int field, int rowStart) throws IOException {
+            int position = starts[field];
+            int end = ends[field];
+            boolean negative = position < end && buffer.get(position) == '-';
+            if (negative) {
+                position++;
+            }
+            long value = 0;
+            int digits = 0;
+            int decimals = -1;
+            for (; position < end; position++) {
+                byte b = buffer.get(position);
+                if (b == '.' && decimals < 0) {
+                    decimals = 0;
+                    continue;
+                }
+                int digit = b - '0';
+                if (digit < 0 || digit > 9 || decimals >= 2 || value > (Long.MAX_VALUE - digit) / 10) {
+                    throw malformed(rowStart, "invalid amount");
+                }
+                value = value * 10 + digit;
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            }
+            if (digits == 0) {
+                throw malformed(rowStart, "missing amount");
+            }
+            for (int i = Math.max(decimals, 0); i < 2; i++) {
+                value *= 10;
+            }
+            return negative ? -value : value;
+        }
+
+        private IOException malformed(int rowStart, String reason) {
+            return new IOException("Malformed row at byte " + (offset + rowStart) + ": " + reason);
+        }
+    }
+}
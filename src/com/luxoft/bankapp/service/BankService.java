@@ -1,35 +1,172 @@
 package com.luxoft.bankapp.service;
 
+import java.util.List;
+import java.util.stream.IntStream;
+
 import com.luxoft.bankapp.domain.Account;
 import com.luxoft.bankapp.domain.Bank;
 import com.luxoft.bankapp.domain.Client;
 import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.metrics.BankMetrics;
+import com.luxoft.bankapp.utils.ReportWriter;
 
 public class BankService {
+
+	/**
+	 * Batches with fewer postings are applied on the calling thread.
+	 */
+	private static final int PARALLEL_THRESHOLD = 16_384;
 	
 	public static void addClient(Bank bank, Client client) throws ClientExistsException {
         bank.addClient(client);
     }
+
+	/**
+	 * Registers the clients as one batch, see {@link Bank#addClients(java.util.Collection)}.
+	 */
+	public static List<Client> addClients(Bank bank, List<Client> clients) {
+		return bank.addClients(clients);
+	}
 	
+	/**
+	 * Applies postings to accounts of the bank: {@code amounts[i]} cents are deposited to account
+	 * {@code accountIds[i]} when positive and withdrawn when negative. Postings are grouped by
+	 * account and applied in batch order within a group. Each group is worked out against one
+	 * read of the balance and published with a single compare-and-set, worked out again if the
+	 * balance changed meanwhile, so the group is atomic and reaches the statistics and the
+	 * transaction log as one change. Large batches split the accounts between threads.
+	 * <p>
+	 * A withdrawal exceeding the account's maximum amount to withdraw, which is the balance plus
+	 * its overdraft, is declined and the group goes on without it.
+	 */
+	public static PostingResults postAll(Bank bank, int[] accountIds, long[] amounts) {
+		if (accountIds.length != amounts.length) {
+			throw new IllegalArgumentException("Every posting needs an account id and an amount");
+		}
+		for (int i = 0; i < amounts.length; i++) {
+			if (amounts[i] == Long.MIN_VALUE) {
+				throw new IllegalArgumentException("Invalid amount at posting " + i);
+			}
+		}
+
+		PostingGroups groups = new PostingGroups(accountIds);
+		PostingResults results = new PostingResults(amounts.length);
+		int parts = amounts.length < PARALLEL_THRESHOLD ? 1 : Math.min(groups.size(), Runtime.getRuntime().availableProcessors());
+		if (parts <= 1) {
+			postPart(bank, amounts, groups, 0, 1, null, 0, amounts.length, results);
+		} else {
+			int[] starts = new int[parts + 1];
+			int[] postings = groups.partition(parts, starts);
+			IntStream.range(0, parts).parallel().forEach(part ->
+					postPart(bank, amounts, groups, part, parts, postings, starts[part], starts[part + 1], results));
+		}
+		return results;
+	}
+
+	/**
+	 * Applies the postings of every {@code parts}-th group, starting with group {@code part}:
+	 * {@code postings[from]} up to {@code postings[to]}, or the whole batch when
+	 * {@code postings} is {@code null}, in batch order. Applied and declined postings are
+	 * counted in {@link BankMetrics} once they are published.
+	 */
+	private static void postPart(Bank bank, long[] amounts, PostingGroups groups, int part, int parts,
+			int[] postings, int from, int to, PostingResults results) {
+		int owned = (groups.size() - part + parts - 1) / parts;
+		Account[] accounts = new Account[owned];
+		long[] initial = new long[owned];
+		long[] balances = new long[owned];
+		long[] overdrafts = new long[owned];
+		boolean[] pending = new boolean[owned];
+		int[] deposits = new int[owned];
+		int[] withdrawals = new int[owned];
+		int[] declined = new int[owned];
+		for (int k = 0; k < owned; k++) {
+			accounts[k] = bank.getAccount(groups.accountId(part + k * parts));
+			if (accounts[k] != null) {
+				overdrafts[k] = accounts[k].getOverdraftCents();
+				pending[k] = true;
+			}
+		}
+
+		long deposited = 0;
+		long withdrawn = 0;
+		long withdrawalsDeclined = 0;
+		boolean retry;
+		do {
+			for (int k = 0; k < owned; k++) {
+				if (pending[k]) {
+					initial[k] = accounts[k].getBalanceCents();
+					balances[k] = initial[k];
+					deposits[k] = 0;
+					withdrawals[k] = 0;
+					declined[k] = 0;
+				}
+			}
+
+			for (int i = from; i < to; i++) {
+				int posting = postings == null ? i : postings[i];
+				int k = groups.group(posting) / parts;
+				if (accounts[k] == null) {
+					results.set(posting, PostingResults.UNKNOWN_ACCOUNT, 0);
+				} else if (pending[k]) {
+					long amount = amounts[posting];
+					if (amount < 0 && -amount > balances[k] + overdrafts[k]) {
+						results.set(posting, PostingResults.DECLINED, balances[k] + overdrafts[k]);
+						declined[k]++;
+					} else {
+						balances[k] += amount;
+						results.set(posting, PostingResults.APPLIED, balances[k] + overdrafts[k]);
+						if (amount < 0) {
+							withdrawals[k]++;
+						} else {
+							deposits[k]++;
+						}
+					}
+				}
+			}
+
+			retry = false;
+			for (int k = 0; k < owned; k++) {
+				if (pending[k]) {
+					pending[k] = !accounts[k].compareAndSetBalanceCents(initial[k], balances[k]);
+					if (pending[k]) {
+						retry = true;
+					} else {
+						deposited += deposits[k];
+						withdrawn += withdrawals[k];
+						withdrawalsDeclined += declined[k];
+					}
+				}
+			}
+		} while (retry);
+		BankMetrics.posted(deposited, withdrawn, withdrawalsDeclined);
+	}
+
 	public static void printMaximumAmountToWithdraw(Bank bank) {
-		System.out.format("%nPrint maximum amount to withdraw for all clients%n");
-		
-        StringBuilder result = new StringBuilder();
-        for (Client client: bank.getClients()) {
-            result.append("Client: ")
-                  .append(client)
-                  .append("\n");
-            int i = 1;
-            for (Account account: client.getAccounts()) {
-                result.append("Account nr. ")
-                      .append(i++)
-                      .append(", maximum amount to withdraw: ")
-                      .append(Math.round(account.maximumAmountToWithdraw() * 100) / 100d)
-                      .append("\n");
-            }
-        }
-
-        System.out.println(result.toString());
-    }
-	
+		ReportWriter out = ReportWriter.console();
+		out.newLine().text("Print maximum amount to withdraw for all clients").newLine();
+		for (Client client : bank.getClients()) {
+			out.text("Client: ").greeting(client).newLine();
+			int i = 1;
+			for (Account account : client.getAccounts()) {
+				out.text("Account nr. ").number(i++)
+					.text(", maximum amount to withdraw: ").cents(account.maximumAmountToWithdrawCents())
+					.newLine();
+			}
+		}
+		out.newLine().flush();
+	}
+
+	public static void printBalance(Bank bank) {
+		ReportWriter out = ReportWriter.console();
+		out.newLine().text("Print balance for all clients").newLine();
+		for (Client client : bank.getClients()) {
+			out.text("Client: ").greeting(client).newLine();
+			for (Account account : client.getAccounts()) {
+				out.text("Account ").number(account.getId()).text(" : ").cents(account.getBalanceCents()).newLine();
+			}
+		}
+		out.flush();
+	}
+
 }
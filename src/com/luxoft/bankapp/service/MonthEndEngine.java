@@ -0,0 +1,422 @@
+package com.luxoft.bankapp.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.AccountType;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+
+/**
+ * Month-end processing: credits interest to saving accounts with a positive balance, and
+ * charges overdraft interest and a fee to checking accounts with a negative balance. Rates are
+ * annual, in basis points, and one twelfth is applied per month, rounded down to the cent.
+ * <p>
+ * The accounts are ordered by id and split into chunks that several threads take one at a
+ * time. Each adjustment is worked out from the current balance and published with
+ * {@link Account#compareAndSetBalanceCents}, retried if the balance changed meanwhile, so online
+ * deposits and withdrawals are never blocked and never lost. A fee may take a balance beyond
+ * the overdraft.
+ * <p>
+ * With a checkpoint file, the id ranges of finished chunks are recorded after each chunk, and
+ * a later run for the same month skips the accounts whose ids they cover, so a run that was
+ * cancelled or failed can be resumed and a finished month is not applied twice. Chunks of the
+ * later run need not line up with the recorded ranges, since accounts may have been added or
+ * removed in between; an account added inside a finished range is taken as done. {@link #cancel()} stops at chunk
+ * boundaries. A process that dies mid-chunk has no record of that chunk, so its accounts that
+ * were already adjusted are adjusted again when the month is resumed.
+ */
+public class MonthEndEngine {
+
+    private static final long MONTHS_BASIS = 12 * 10_000;
+    private static final String CHECKPOINT_HEADER = "month-end ";
+
+    private final long savingRate;
+    private final long overdraftRate;
+    private final long overdraftFee;
+    private final int threads;
+    private final int chunkSize;
+    private final Path checkpoint;
+    private volatile boolean cancelled;
+
+    private MonthEndEngine(Builder builder) {
+        this.savingRate = builder.savingRate;
+        this.overdraftRate = builder.overdraftRate;
+        this.overdraftFee = builder.overdraftFee;
+        this.threads = builder.threads;
+        this.chunkSize = builder.chunkSize;
+        this.checkpoint = builder.checkpoint;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * What a run did. Amounts are in cents.
+     */
+    public static class Result {
+        private final long processedAccounts;
+        private final long skippedAccounts;
+        private final long interestCredited;
+        private final long chargesDebited;
+        private final boolean complete;
+
+        Result(long processedAccounts, long skippedAccounts, long interestCredited, long chargesDebited, boolean complete) {
+            this.processedAccounts = processedAccounts;
+            this.skippedAccounts = skippedAccounts;
+            this.interestCredited = interestCredited;
+            this.chargesDebited = chargesDebited;
+            this.complete = complete;
+        }
+
+        public long getProcessedAccounts() {
+            return processedAccounts;
+        }
+
+        /**
+         * Number of accounts a previous run of the same month had already processed.
+         */
+        public long getSkippedAccounts() {
+            return skippedAccounts;
+        }
+
+        public long getInterestCredited() {
+            return interestCredited;
+        }
+
+        /**
+         * Overdraft interest and fees taken, as a positive amount.
+         */
+        public long getChargesDebited() {
+            return chargesDebited;
+        }
+
+        /**
+         * False if the run was cancelled before every chunk was done.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        @Override
+        public String toString() {
+            return processedAccounts + " accounts processed, " + skippedAccounts + " skipped, "
+                    + interestCredited + " interest credited, " + chargesDebited + " charged"
+                    + (complete ? "" : ", cancelled");
+        }
+    }
+
+    /**
+     * Runs month-end for the given month over every account of the bank, resuming from the
+     * checkpoint if it belongs to the same month. If the calling thread is interrupted, the run
+     * is cancelled as by {@link #cancel()} and returns once the chunks in progress are done,
+     * with the thread's interrupt status set.
+     */
+    public Result run(Bank bank, YearMonth month) throws IOException {
+        cancelled = false;
+        Account[] accounts = collectAccounts(bank);
+        Checkpoint done = Checkpoint.load(checkpoint, month);
+
+        int chunks = (accounts.length + chunkSize - 1) / chunkSize;
+        Progress progress = new Progress();
+        int workers = Math.max(1, Math.min(threads, chunks));
+        ExecutorService executor = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "month-end");
+            thread.setDaemon(true);
+            return thread;
+        });
+        boolean interrupted = false;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> processChunks(accounts, chunks, done, progress)));
+            }
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        // the workers stop after their chunks in progress, which are still
+                        // checkpointed and counted before the result is built
+                        cancelled = true;
+                        interrupted = true;
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException("Month-end failed", e.getCause());
+        } finally {
+            executor.shutdown();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        long processed = progress.processed.sum();
+        long skipped = progress.skipped.sum();
+        return new Result(processed, skipped, progress.credited.sum(), progress.debited.sum(),
+                processed + skipped == accounts.length);
+    }
+
+    private void processChunks(Account[] accounts, int chunks, Checkpoint done, Progress progress) {
+        for (int chunk = progress.nextChunk.getAndIncrement(); chunk < chunks && !cancelled; chunk = progress.nextChunk.getAndIncrement()) {
+            int from = chunk * chunkSize;
+            int to = Math.min(accounts.length, from + chunkSize);
+            int firstId = accounts[from].getId();
+            int lastId = accounts[to - 1].getId();
+            NavigableMap<Integer, Integer> finished = done.within(firstId, lastId);
+
+            long credited = 0;
+            long debited = 0;
+            int processed = 0;
+            for (int i = from; i < to; i++) {
+                if (Checkpoint.covers(finished, accounts[i].getId())) {
+                    continue;
+                }
+                long delta = adjust(accounts[i]);
+                if (delta > 0) {
+                    credited += delta;
+                } else {
+                    debited -= delta;
+                }
+                processed++;
+            }
+            progress.processed.add(processed);
+            progress.skipped.add(to - from - processed);
+            progress.credited.add(credited);
+            progress.debited.add(debited);
+            if (processed > 0) {
+                done.add(firstId, lastId);
+            }
+        }
+    }
+
+    /**
+     * Stops the current run after the chunks in progress.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Applies this month's interest or charges to the account and returns the change.
+     */
+    private long adjust(Account account) {
+        while (true) {
+            long balance = account.getBalanceCents();
+            long delta;
+            if (account.getType() == AccountType.SAVING) {
+                delta = balance > 0 ? monthly(balance, savingRate) : 0;
+            } else {
+                delta = balance < 0 ? -monthly(-balance, overdraftRate) - overdraftFee : 0;
+            }
+            if (delta == 0 || account.compareAndSetBalanceCents(balance, balance + delta)) {
+                return delta;
+            }
+        }
+    }
+
+    /**
+     * One month of the annual rate on a non-negative amount, rounded down, without overflow.
+     */
+    private static long monthly(long amount, long annualBasisPoints) {
+        return amount / MONTHS_BASIS * annualBasisPoints + amount % MONTHS_BASIS * annualBasisPoints / MONTHS_BASIS;
+    }
+
+    /**
+     * Returns every account ordered by id. The sort runs on primitive keys, the id in the high
+     * half and the position in the low half, rather than on the accounts themselves.
+     */
+    private static Account[] collectAccounts(Bank bank) {
+        List<Account> accounts = new ArrayList<>(bank.getStatistics().getNumberOfAccounts());
+        for (Client client : bank.getClients()) {
+            accounts.addAll(client.getAccounts());
+        }
+        long[] keys = new long[accounts.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) accounts.get(i).getId() << 32) | i;
+        }
+        Arrays.parallelSort(keys);
+        Account[] sorted = new Account[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = accounts.get((int) keys[i]);
+        }
+        return sorted;
+    }
+
+    private static final class Progress {
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder credited = new LongAdder();
+        private final LongAdder debited = new LongAdder();
+    }
+
+    /**
+     * The id ranges finished for one month, saved to a text file after every change: a
+     * {@code month-end <month>} line, then one {@code <first id> <last id>} line per range.
+     */
+    private static final class Checkpoint {
+        private final Path file;
+        private final YearMonth month;
+        private final TreeMap<Integer, Integer> ranges = new TreeMap<>();
+
+        private Checkpoint(Path file, YearMonth month) {
+            this.file = file;
+            this.month = month;
+        }
+
+        static Checkpoint load(Path file, YearMonth month) throws IOException {
+            Checkpoint checkpoint = new Checkpoint(file, month);
+            if (file == null || !Files.exists(file)) {
+                return checkpoint;
+            }
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(CHECKPOINT_HEADER + month)) {
+                // a previous month's checkpoint, this month starts from scratch
+                return checkpoint;
+            }
+            try {
+                for (String line : lines.subList(1, lines.size())) {
+                    String[] range = line.split(" ");
+                    checkpoint.merge(Integer.parseInt(range[0]), Integer.parseInt(range[1]));
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Damaged month-end checkpoint " + file, e);
+            }
+            return checkpoint;
+        }
+
+        /**
+         * Returns the finished ranges that may cover ids from {@code firstId} to {@code lastId}.
+         * Ranges recorded meanwhile by other chunks of the same run cover none of their accounts.
+         */
+        synchronized NavigableMap<Integer, Integer> within(int firstId, int lastId) {
+            Integer from = ranges.floorKey(firstId);
+            return new TreeMap<>(ranges.subMap(from != null ? from : firstId, true, lastId, true));
+        }
+
+        static boolean covers(NavigableMap<Integer, Integer> ranges, int id) {
+            Map.Entry<Integer, Integer> range = ranges.floorEntry(id);
+            return range != null && range.getValue() >= id;
+        }
+
+        synchronized void add(int firstId, int lastId) {
+            merge(firstId, lastId);
+            if (file == null) {
+                return;
+            }
+            try {
+                Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+                try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                    out.write(CHECKPOINT_HEADER + month + "\n");
+                    for (Map.Entry<Integer, Integer> range : ranges.entrySet()) {
+                        out.write(range.getKey() + " " + range.getValue() + "\n");
+                    }
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Adds the range, joining it with the ranges it overlaps so that ranges never overlap.
+         */
+        private void merge(int firstId, int lastId) {
+            Map.Entry<Integer, Integer> before = ranges.floorEntry(firstId);
+            if (before != null && before.getValue() >= firstId) {
+                firstId = before.getKey();
+                lastId = Math.max(lastId, before.getValue());
+            }
+            Map<Integer, Integer> overlapping = ranges.subMap(firstId, true, lastId, true);
+            for (int last : overlapping.values()) {
+                lastId = Math.max(lastId, last);
+            }
+            overlapping.clear();
+            ranges.put(firstId, lastId);
+        }
+    }
+
+    public static class Builder {
+        private long savingRate = 100;
+        private long overdraftRate = 1_500;
+        private long overdraftFee = 500;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int chunkSize = 65_536;
+        private Path checkpoint;
+
+        private Builder() {
+        }
+
+        /**
+         * Annual interest on positive saving balances, in basis points; 100 is 1%.
+         */
+        public Builder savingInterest(long annualBasisPoints) {
+            this.savingRate = annualBasisPoints;
+            return this;
+        }
+
+        /**
+         * Annual interest on negative checking balances, in basis points, and the monthly fee
+         * charged on top, in cents.
+         */
+        public Builder overdraftCharges(long annualBasisPoints, long monthlyFeeCents) {
+            this.overdraftRate = annualBasisPoints;
+            this.overdraftFee = monthlyFeeCents;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("At least one thread is needed");
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("Chunk size must be positive");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Records finished chunks in the given file so an interrupted month can be resumed.
+         */
+        public Builder checkpoint(Path file) {
+            this.checkpoint = file;
+            return this;
+        }
+
+        public MonthEndEngine build() {
+            return new MonthEndEngine(this);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.luxoft.bankapp.service;
+
+import java.util.Arrays;
+
+/**
+ * Numbers the distinct account ids of a batch of postings, in order of first appearance, with
+ * an open-addressing table that grows with the number of accounts rather than postings.
+ */
+class PostingGroups {
+
+    private final int[] groupOf;
+    private int[] accountIds = new int[16];
+    private int[] keys = new int[64];
+    private int[] slots = new int[64];
+    private int groups;
+
+    PostingGroups(int[] ids) {
+        this.groupOf = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            groupOf[i] = groupOf(ids[i]);
+        }
+        keys = null;
+        slots = null;
+    }
+
+    private int groupOf(int id) {
+        int mask = slots.length - 1;
+        int slot = mix(id) & mask;
+        while (slots[slot] != 0) {
+            if (keys[slot] == id) {
+                return slots[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (groups == accountIds.length) {
+            accountIds = Arrays.copyOf(accountIds, groups * 2);
+        }
+        accountIds[groups] = id;
+        keys[slot] = id;
+        slots[slot] = ++groups;
+        if (groups * 2 > slots.length) {
+            grow();
+        }
+        return groups - 1;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new int[oldKeys.length * 2];
+        slots = new int[oldSlots.length * 2];
+        int mask = slots.length - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                slots[slot] = oldSlots[i];
+            }
+        }
+    }
+
+    // the multiply leaves the high bits best mixed, the mask keeps the low ones
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Number of distinct accounts.
+     */
+    int size() {
+        return groups;
+    }
+
+    int accountId(int group) {
+        return accountIds[group];
+    }
+
+    /**
+     * Returns the group of the posting at the given batch index.
+     */
+    int group(int posting) {
+        return groupOf[posting];
+    }
+
+    /**
+     * Splits the postings between {@code parts} parts, part {@code p} taking the groups whose
+     * number is {@code p} modulo {@code parts}. Returns the batch indices of the postings ordered
+     * by part, and in batch order within a part; those of part {@code p} are found from
+     * {@code starts[p]} up to {@code starts[p + 1]}, {@code starts} having {@code parts + 1} entries.
+     */
+    int[] partition(int parts, int[] starts) {
+        for (int posting = 0; posting < groupOf.length; posting++) {
+            starts[groupOf[posting] % parts + 1]++;
+        }
+        for (int part = 0; part < parts; part++) {
+            starts[part + 1] += starts[part];
+        }
+
+        int[] next = Arrays.copyOf(starts, parts);
+        int[] postings = new int[groupOf.length];
+        for (int posting = 0; posting < groupOf.length; posting++) {
+            postings[next[groupOf[posting] % parts]++] = posting;
+        }
+        return postings;
+    }
+}
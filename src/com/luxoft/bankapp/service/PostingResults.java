@@ -0,0 +1,58 @@
+package com.luxoft.bankapp.service;
+
+/**
+ * The outcome of every posting of a {@link BankService#postAll} batch, indexed like the batch.
+ * Outcomes are kept in two primitive arrays rather than one object per posting.
+ */
+public class PostingResults {
+
+    public static final byte APPLIED = 0;
+    public static final byte DECLINED = 1;
+    public static final byte UNKNOWN_ACCOUNT = 2;
+
+    private final byte[] statuses;
+    private final long[] maximumAmounts;
+
+    PostingResults(int size) {
+        this.statuses = new byte[size];
+        this.maximumAmounts = new long[size];
+    }
+
+    void set(int posting, byte status, long maximumAmountToWithdraw) {
+        statuses[posting] = status;
+        maximumAmounts[posting] = maximumAmountToWithdraw;
+    }
+
+    public int size() {
+        return statuses.length;
+    }
+
+    /**
+     * Returns {@link #APPLIED}, {@link #DECLINED} or {@link #UNKNOWN_ACCOUNT}.
+     */
+    public byte getStatus(int posting) {
+        return statuses[posting];
+    }
+
+    public boolean isApplied(int posting) {
+        return statuses[posting] == APPLIED;
+    }
+
+    /**
+     * Returns the account's maximum amount to withdraw, in cents, right after an applied posting,
+     * or at the moment a withdrawal was declined. It is 0 for an unknown account.
+     */
+    public long getMaximumAmountToWithdrawCents(int posting) {
+        return maximumAmounts[posting];
+    }
+
+    public int count(byte status) {
+        int count = 0;
+        for (byte s : statuses) {
+            if (s == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,51 @@
+package com.luxoft.bankapp.service;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Money;
+
+/**
+ * A request to move an amount, in cents, from one account to another.
+ */
+public final class Transfer {
+
+    private final Account from;
+    private final Account to;
+    private final long amount;
+
+    private Transfer(Account from, Account to, long amount) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Both accounts are required");
+        }
+        if (amount < 0) {
+            throw new IllegalArgumentException("Cannot transfer a negative amount");
+        }
+        this.from = from;
+        this.to = to;
+        this.amount = amount;
+    }
+
+    public static Transfer ofCents(Account from, Account to, long amount) {
+        return new Transfer(from, to, amount);
+    }
+
+    public static Transfer of(Account from, Account to, double amount) {
+        return new Transfer(from, to, Money.toCents(amount));
+    }
+
+    public Account getFrom() {
+        return from;
+    }
+
+    public Account getTo() {
+        return to;
+    }
+
+    public long getAmountCents() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        return "Transfer of " + Money.toDouble(amount) + " from account " + from.getId() + " to account " + to.getId();
+    }
+}
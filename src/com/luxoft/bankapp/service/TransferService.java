@@ -0,0 +1,75 @@
+package com.luxoft.bankapp.service;
+
+import java.util.List;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Money;
+import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
+
+/**
+ * Moves funds between accounts. A transfer holds the locks of both accounts while it runs, so
+ * transfers touching the same accounts are applied one at a time, and the amount is either
+ * taken from the source and credited to the target or, when it exceeds the source's maximum
+ * amount to withdraw (overdraft included), not moved at all.
+ * <p>
+ * Plain deposits and withdrawals made directly on the accounts do not take these locks; they
+ * stay atomic on their own account, and the money in the system is still conserved.
+ */
+public class TransferService {
+
+    private final AccountLocks locks;
+
+    public TransferService() {
+        this(new AccountLocks());
+    }
+
+    TransferService(AccountLocks locks) {
+        this.locks = locks;
+    }
+
+    /**
+     * Returns whether the amount was moved; a transfer the source cannot cover changes nothing.
+     */
+    public boolean tryTransferCents(Account from, Account to, long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Cannot transfer a negative amount");
+        }
+        if (from == to) {
+            return amount <= from.maximumAmountToWithdrawCents();
+        }
+
+        locks.lockBoth(from, to);
+        try {
+            if (!from.tryWithdrawCents(amount)) {
+                return false;
+            }
+            to.depositCents(amount);
+            return true;
+        } finally {
+            locks.unlockBoth(from, to);
+        }
+    }
+
+    public void transferCents(Account from, Account to, long amount) throws NotEnoughFundsException {
+        if (!tryTransferCents(from, to, amount)) {
+            throw new NotEnoughFundsException(from.getId(), from.getBalanceCents(), amount, "Requested amount exceeds the maximum amount to withdraw");
+        }
+    }
+
+    public void transfer(Account from, Account to, double amount) throws NotEnoughFundsException {
+        transferCents(from, to, Money.toCents(amount));
+    }
+
+    /**
+     * Applies the transfers in list order, each one atomically, and returns which of them were
+     * applied. A declined transfer does not stop the ones after it.
+     */
+    public boolean[] transferAll(List<Transfer> transfers) {
+        boolean[] applied = new boolean[transfers.size()];
+        int i = 0;
+        for (Transfer transfer : transfers) {
+            applied[i++] = tryTransferCents(transfer.getFrom(), transfer.getTo(), transfer.getAmountCents());
+        }
+        return applied;
+    }
+}
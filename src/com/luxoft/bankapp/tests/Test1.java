@@ -63,9 +63,10 @@ public class Test1 {
 		
 		assertEquals(2, bank.getClients().size());
 
-		assertEquals("Mr. Smith John", bank.getClients().iterator().next().getClientGreeting());
-		assertEquals("Mr. Smith John", bank.getClients().iterator().next().toString());
-		assertEquals("Ms. Smith Michelle", bank.getClients().iterator().next().getClientGreeting());
-		assertEquals("Ms. Smith Michelle", bank.getClients().iterator().next().toString());
+		// the bank keeps its clients in a set, so look them up rather than relying on its order
+		assertEquals("Mr. Smith John", bank.getClient(client1).getClientGreeting());
+		assertEquals("Mr. Smith John", bank.getClient(client1).toString());
+		assertEquals("Ms. Smith Michelle", bank.getClient(client2).getClientGreeting());
+		assertEquals("Ms. Smith Michelle", bank.getClient(client2).toString());
 	}
 }
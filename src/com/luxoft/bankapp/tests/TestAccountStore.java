@@ -0,0 +1,79 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.AccountStore;
+import com.luxoft.bankapp.domain.AccountType;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.BankReport;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
+import com.luxoft.bankapp.exceptions.OverdraftLimitExceededException;
+
+public class TestAccountStore {
+
+    @Test
+    public void testStoredAccountsBehaveLikeAccounts() throws NotEnoughFundsException {
+        AccountStore store = new AccountStore(4);
+        Account saving = store.addSavingAccount(1, 1_000);
+        Account checking = store.addCheckingAccount(2, 1_000, 500);
+
+        saving.depositCents(500);
+        saving.withdrawCents(1_200);
+        assertFalse(saving.tryWithdrawCents(301));
+        assertEquals(300, saving.getBalanceCents());
+        assertEquals(AccountType.SAVING, saving.getType());
+
+        assertTrue(checking.tryWithdrawCents(1_500));
+        assertEquals(-500, checking.getBalanceCents());
+        assertEquals(0, checking.maximumAmountToWithdrawCents());
+        try {
+            checking.withdrawCents(1);
+            fail("Expected the overdraft limit to be enforced");
+        } catch (OverdraftLimitExceededException e) {
+            assertEquals(500, e.getOverdraftCents());
+        }
+
+        assertEquals(store.getAccount(1), checking);
+        assertEquals(store.getAccount(1).hashCode(), checking.hashCode());
+        assertEquals(-200, store.getTotalBalanceCents());
+        assertEquals(-500, store.getCreditSumCents());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStoreHasFixedCapacity() {
+        AccountStore store = new AccountStore(1);
+        store.addSavingAccount(1, 0);
+        store.addSavingAccount(2, 0);
+    }
+
+    @Test
+    public void testStoredAccountsKeepBankStatisticsUpToDate() throws ClientExistsException {
+        AccountStore store = new AccountStore(16);
+        Bank bank = new Bank();
+        Client client = new Client("John", Gender.MALE, "New York");
+        Account saving = store.addSavingAccount(1, 100);
+        Account checking = store.addCheckingAccount(2, 200, 50);
+        client.addAccount(saving);
+        client.addAccount(checking);
+        bank.addClient(client);
+
+        saving.depositCents(10);
+        checking.tryWithdrawCents(230);
+
+        assertEquals(80, bank.getStatistics().getTotalBalanceCents());
+        assertEquals(-30, bank.getStatistics().getBankCreditSumCents());
+        assertEquals(new BankReport().getBankCreditSumCents(bank), store.getCreditSumCents());
+        assertEquals(80, client.getTotalBalanceCents());
+        assertSame(checking, bank.getAccount(2));
+    }
+}
@@ -0,0 +1,109 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.AccountType;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.service.BankExporter;
+
+public class TestBankExporter {
+
+    private static Bank createBank() throws ClientExistsException {
+        Bank bank = new Bank();
+        Client john = new Client("John", Gender.MALE, "New York");
+        john.addAccount(new SavingAccount(1, 100.5));
+        john.addAccount(new CheckingAccount(2, -20, 50));
+        bank.addClient(john);
+        bank.addClient(new Client("Smith, \"Jr\"", null, "Boston"));
+        return bank;
+    }
+
+    @Test
+    public void testCsvHasOneRowPerAccountAndQuotesFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long clients = new BankExporter(64).exportAccounts(createBank(), BankExporter.Format.CSV,
+                Channels.newChannel(out));
+
+        assertEquals(2, clients);
+        String csv = out.toString(StandardCharsets.UTF_8);
+        String[] lines = csv.split("\n");
+        assertEquals(4, lines.length);
+        assertEquals(BankExporter.CSV_HEADER, lines[0]);
+        assertTrue(csv.contains("John,MALE,New York,1,SAVING,100.50,0.00\n"));
+        assertTrue(csv.contains("John,MALE,New York,2,CHECKING,-20.00,50.00\n"));
+        assertTrue(csv.contains("\"Smith, \"\"Jr\"\"\",,Boston,,,,\n"));
+    }
+
+    @Test
+    public void testBinaryExportCanBeReadBack() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BankExporter().exportAccounts(createBank(), BankExporter.Format.BINARY, Channels.newChannel(out));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(BankExporter.BINARY_MAGIC, in.readInt());
+        assertEquals(BankExporter.BINARY_VERSION, in.readInt());
+        int clients = 0;
+        int accounts = 0;
+        long total = 0;
+        while (in.readByte() == 1) {
+            String name = readString(in);
+            byte gender = in.readByte();
+            readString(in);
+            if (name.equals("John")) {
+                assertEquals(Gender.MALE.ordinal(), gender);
+            } else {
+                assertEquals(-1, gender);
+            }
+            while (in.readByte() == 1) {
+                AccountType type = AccountType.values()[in.readByte()];
+                int id = in.readInt();
+                total += in.readLong();
+                long overdraft = in.readLong();
+                assertEquals(id == 2 ? AccountType.CHECKING : AccountType.SAVING, type);
+                assertEquals(id == 2 ? 5000 : 0, overdraft);
+                accounts++;
+            }
+            clients++;
+        }
+        assertEquals(2, clients);
+        assertEquals(2, accounts);
+        assertEquals(8050, total);
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testClientsByCityAreOrderedByCity() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BankExporter().exportClientsByCity(createBank(), Channels.newChannel(out));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("Boston,\"Smith, \"\"Jr\"\"\",,0.00", lines[1]);
+        assertEquals("New York,John,MALE,80.50", lines[2]);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,136 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.AccountType;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.service.BankExporter;
+import com.luxoft.bankapp.service.BankImporter;
+
+public class TestBankImporter {
+
+    private static Bank createBank(int clients) throws ClientExistsException {
+        Bank bank = new Bank();
+        for (int i = 0; i < clients; i++) {
+            Client client = new Client(i == 0 ? "Smith, \"Jr\"" : "Client " + i, i % 3 == 0 ? null : Gender.FEMALE, "City " + (i % 7));
+            client.addAccount(SavingAccount.ofCents(2 * i, 100 + i));
+            if (i % 2 == 0) {
+                client.addAccount(CheckingAccount.ofCents(2 * i + 1, -i, 5_000));
+            }
+            bank.addClient(client);
+        }
+        bank.addClient(new Client("No accounts", Gender.MALE, "Boston"));
+        return bank;
+    }
+
+    private static Path export(Bank bank, BankExporter.Format format) throws IOException {
+        Path file = Files.createTempFile("bank-import", format == BankExporter.Format.CSV ? ".csv" : ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            new BankExporter().exportAccounts(bank, format, channel);
+        }
+        return file;
+    }
+
+    private static void assertSameBank(Bank expected, Bank actual) {
+        assertEquals(expected.getStatistics().getNumberOfClients(), actual.getStatistics().getNumberOfClients());
+        assertEquals(expected.getStatistics().getNumberOfAccounts(), actual.getStatistics().getNumberOfAccounts());
+        assertEquals(expected.getStatistics().getTotalBalanceCents(), actual.getStatistics().getTotalBalanceCents());
+        assertEquals(expected.getStatistics().getBankCreditSumCents(), actual.getStatistics().getBankCreditSumCents());
+        for (Client client : expected.getClients()) {
+            Client imported = actual.getClient(client);
+            assertNotNull(imported);
+            assertEquals(client.getAccounts().size(), imported.getAccounts().size());
+            assertEquals(client.getTotalBalanceCents(), imported.getTotalBalanceCents());
+        }
+    }
+
+    @Test
+    public void testCsvExportCanBeImportedInSmallChunks() throws Exception {
+        Bank original = createBank(500);
+        Path file = export(original, BankExporter.Format.CSV);
+        Bank bank = new Bank();
+        try (bank) {
+            BankImporter.Result result = new BankImporter(3, 16, 200).importAccounts(bank, BankExporter.Format.CSV, file);
+
+            assertSameBank(original, bank);
+            assertEquals(751, result.getRows());
+            assertEquals(750, result.getAccounts());
+            assertEquals(501, result.getAddedClients());
+            assertEquals(AccountType.CHECKING, bank.getAccount(1).getType());
+        } finally {
+            Files.delete(file);
+        }
+        // closing the bank waits for the listeners
+        assertEquals(501, bank.getPrintedClients());
+    }
+
+    @Test
+    public void testBinaryExportCanBeImported() throws Exception {
+        Bank original = createBank(100);
+        Path file = export(original, BankExporter.Format.BINARY);
+        try (Bank bank = new Bank()) {
+            BankImporter.Result result = new BankImporter().importAccounts(bank, BankExporter.Format.BINARY, file);
+
+            assertSameBank(original, bank);
+            assertEquals(101, result.getAddedClients());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testRegisteredClientsGetTheImportedAccounts() throws Exception {
+        Path file = Files.createTempFile("bank-import", ".csv");
+        Files.write(file, (BankExporter.CSV_HEADER + "\n"
+                + "John,MALE,Boston,1,SAVING,10.50,0.00\n"
+                + "Jane,FEMALE,Boston,2,CHECKING,-3,20.5\r\n"
+                + "John,MALE,Boston,3,SAVING,1.05,0.00\n").getBytes(StandardCharsets.UTF_8));
+        try (Bank bank = new Bank()) {
+            Client john = new Client("John", Gender.MALE, "Boston");
+            bank.addClient(john);
+
+            BankImporter.Result result = new BankImporter().importAccounts(bank, BankExporter.Format.CSV, file);
+
+            assertEquals(1, result.getAddedClients());
+            assertEquals(2, result.getMergedClients());
+            assertEquals(2, john.getAccounts().size());
+            assertEquals(1155, john.getTotalBalanceCents());
+            Account checking = bank.getAccount(2);
+            assertEquals(-300, checking.getBalanceCents());
+            assertEquals(2050, checking.getOverdraftCents());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testMalformedRowsAreReported() throws Exception {
+        Path file = Files.createTempFile("bank-import", ".csv");
+        Files.write(file, "John,MALE,Boston,1,SAVING,abc,0\n".getBytes(StandardCharsets.UTF_8));
+        try (Bank bank = new Bank()) {
+            new BankImporter().importAccounts(bank, BankExporter.Format.CSV, file);
+            fail("Invalid amount accepted");
+        } catch (IOException e) {
+            assertEquals("Malformed row at byte 0: invalid amount", e.getMessage());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.utils.ConcurrentIntMap;
+
+public class TestBankIndexes {
+
+    @Test
+    public void testAccountsCanBeFoundById() throws ClientExistsException {
+        Bank bank = new Bank();
+        Client client = new Client("John", Gender.MALE, "New York");
+        Account saving = new SavingAccount(1, 100);
+        client.addAccount(saving);
+        bank.addClient(client);
+
+        Account checking = new CheckingAccount(2, 100, 20);
+        client.addAccount(checking);
+
+        assertSame(saving, bank.getAccount(1));
+        assertSame(checking, bank.getAccount(2));
+        assertNull(bank.getAccount(3));
+    }
+
+    @Test
+    public void testClientsCanBeFoundByCityAndNamePrefix() throws ClientExistsException {
+        Bank bank = new Bank();
+        Client john = new Client("John", Gender.MALE, "New York");
+        Client johanna = new Client("Johanna", Gender.FEMALE, "Boston");
+        Client jane = new Client("Jane", Gender.FEMALE, "New York");
+        Client otherJohn = new Client("John", Gender.MALE, "Boston");
+        bank.addClient(john);
+        bank.addClient(johanna);
+        bank.addClient(jane);
+        bank.addClient(otherJohn);
+
+        assertEquals(2, bank.getClientsInCity("New York").size());
+        assertTrue(bank.getClientsInCity("New York").contains(jane));
+        assertEquals("Boston", bank.getClientsByCity().firstKey());
+
+        List<Client> jo = bank.getClientsByNamePrefix("Jo");
+        assertEquals(3, jo.size());
+        assertSame(johanna, jo.get(0));
+        assertTrue(jo.contains(john) && jo.contains(otherJohn));
+        assertEquals(4, bank.getClientsByNamePrefix("").size());
+        assertTrue(bank.getClientsByNamePrefix("Joz").isEmpty());
+    }
+
+    @Test
+    public void testConcurrentIntMapUnderConcurrentWrites() throws InterruptedException {
+        ConcurrentIntMap<Integer> map = new ConcurrentIntMap<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                for (int i = offset; i < 100_000; i += 4) {
+                    map.putIfAbsent(i, i);
+                    assertEquals(Integer.valueOf(i), map.get(i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100_000, map.size());
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(Integer.valueOf(i), map.get(i));
+        }
+        assertEquals(Integer.valueOf(7), map.putIfAbsent(7, -7));
+        assertNull(map.get(-1));
+    }
+}
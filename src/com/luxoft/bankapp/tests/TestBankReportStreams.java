@@ -6,6 +6,7 @@ import com.luxoft.bankapp.service.BankService;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -84,6 +85,38 @@ public class TestBankReportStreams {
         assertEquals(client2, clientIterator.next());
     }
 
+    @Test
+    public void testGetClientsSortedKeepsClientsWithEqualBalances() throws ClientExistsException {
+        Bank bank = new Bank();
+
+        Client client1 = new Client("Smith John", Gender.MALE, "New York");
+        client1.addAccount(new SavingAccount(1, 1000.0));
+
+        Client client2 = new Client("Doe Jane", Gender.FEMALE, "New York");
+        client2.addAccount(new SavingAccount(2, 1000.0));
+
+        BankService.addClient(bank, client1);
+        BankService.addClient(bank, client2);
+
+        for (SortedSet<Client> sortedClients : Arrays.asList(new BankReportStreams().getClientsSorted(bank), new BankReport().getClientsSorted(bank))) {
+            assertEquals(2, sortedClients.size());
+            Iterator<Client> clientIterator = sortedClients.iterator();
+            assertEquals(client2, clientIterator.next());
+            assertEquals(client1, clientIterator.next());
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetClientsSortedIsUnmodifiable() throws ClientExistsException {
+        Bank bank = new Bank();
+        Client client = new Client("Smith John", Gender.MALE, "New York");
+        client.addAccount(new SavingAccount(1, 1000.0));
+        BankService.addClient(bank, client);
+
+        SortedSet<Client> sortedClients = new BankReportStreams().getClientsSorted(bank);
+        sortedClients.add(new Client("Doe Jane", Gender.FEMALE, "New York"));
+    }
+
     @Test
     public void testGetBankCreditSum() throws ClientExistsException {
         Bank bank = new Bank();
@@ -158,4 +191,35 @@ public class TestBankReportStreams {
         assertTrue(clientsByCity.get("Los Angeles").contains(client2));
     }
 
+    @Test
+    public void testParallelReportsMatchSequential() throws ClientExistsException {
+        Bank bank = new Bank();
+        for (int i = 0; i < 200; i++) {
+            Client client = new Client("Client " + i, i % 2 == 0 ? Gender.MALE : Gender.FEMALE, "City " + (i % 7));
+            client.addAccount(new SavingAccount(2 * i, 1000.0 + i));
+            client.addAccount(new CheckingAccount(2 * i + 1, 500.0 - 3 * i, 100.0));
+            BankService.addClient(bank, client);
+        }
+
+        BankReportStreams sequential = new BankReportStreams();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BankReportStreams parallel = new BankReportStreams(pool);
+
+            assertEquals(sequential.getNumberOfAccounts(bank), parallel.getNumberOfAccounts(bank));
+            assertEquals(sequential.getBankCreditSumCents(bank), parallel.getBankCreditSumCents(bank));
+            assertEquals(new ArrayList<>(sequential.getClientsSorted(bank)), new ArrayList<>(parallel.getClientsSorted(bank)));
+            assertEquals(sequential.getCustomerAccounts(bank), parallel.getCustomerAccounts(bank));
+
+            Map<String, ArrayList<Client>> expectedByCity = sequential.getClientsByCity(bank);
+            Map<String, ArrayList<Client>> actualByCity = parallel.getClientsByCity(bank);
+            assertEquals(expectedByCity.keySet(), actualByCity.keySet());
+            for (String city : expectedByCity.keySet()) {
+                assertEquals(new HashSet<>(expectedByCity.get(city)), new HashSet<>(actualByCity.get(city)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
 }
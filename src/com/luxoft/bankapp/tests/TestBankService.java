@@ -0,0 +1,147 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.metrics.BankMetrics;
+import com.luxoft.bankapp.service.BankService;
+import com.luxoft.bankapp.service.PostingResults;
+
+public class TestBankService {
+
+    @Test
+    public void testPostingsApplyInBatchOrderPerAccount() throws ClientExistsException {
+        Bank bank = new Bank();
+        Client client = new Client("John", Gender.MALE, "Boston");
+        Account saving = SavingAccount.ofCents(1, 1_000);
+        Account checking = CheckingAccount.ofCents(2, 0, 500);
+        client.addAccount(saving);
+        client.addAccount(checking);
+        bank.addClient(client);
+
+        PostingResults results = BankService.postAll(bank,
+                new int[] {1, 2, 1, 3, 2, 1},
+                new long[] {-1_500, -400, 700, 10, -200, -1_500});
+
+        assertEquals(PostingResults.DECLINED, results.getStatus(0));
+        assertEquals(1_000, results.getMaximumAmountToWithdrawCents(0));
+        assertTrue(results.isApplied(1));
+        assertEquals(100, results.getMaximumAmountToWithdrawCents(1));
+        assertTrue(results.isApplied(2));
+        assertEquals(PostingResults.UNKNOWN_ACCOUNT, results.getStatus(3));
+        assertEquals(PostingResults.DECLINED, results.getStatus(4));
+        assertEquals(100, results.getMaximumAmountToWithdrawCents(4));
+        assertTrue(results.isApplied(5));
+        assertEquals(200, results.getMaximumAmountToWithdrawCents(5));
+
+        assertEquals(200, saving.getBalanceCents());
+        assertEquals(-400, checking.getBalanceCents());
+        assertEquals(-200, client.getTotalBalanceCents());
+        assertEquals(-200, bank.getStatistics().getTotalBalanceCents());
+        assertEquals(3, results.count(PostingResults.APPLIED));
+    }
+
+    @Test
+    public void testPostingsAreCountedAsDepositsAndWithdrawals() throws ClientExistsException {
+        if (!BankMetrics.ENABLED) {
+            return;
+        }
+        Bank bank = new Bank();
+        Client client = new Client("John", Gender.MALE, "Boston");
+        client.addAccount(SavingAccount.ofCents(1, 1_000));
+        bank.addClient(client);
+        long deposits = BankMetrics.DEPOSITS.sum();
+        long withdrawals = BankMetrics.WITHDRAWALS.sum();
+        long declined = BankMetrics.DECLINED_WITHDRAWALS.sum();
+
+        BankService.postAll(bank, new int[] {1, 1, 2, 1, 1}, new long[] {-400, 300, 50, -2_000, -900});
+
+        assertEquals(deposits + 1, BankMetrics.DEPOSITS.sum());
+        assertEquals(withdrawals + 2, BankMetrics.WITHDRAWALS.sum());
+        assertEquals(declined + 1, BankMetrics.DECLINED_WITHDRAWALS.sum());
+    }
+
+    @Test
+    public void testLargeBatchMatchesOneByOnePostings() throws ClientExistsException {
+        int accounts = 1_000;
+        Bank batched = new Bank();
+        Bank oneByOne = new Bank();
+        for (int id = 0; id < accounts; id++) {
+            Client client = new Client("Client " + id, Gender.FEMALE, "Boston");
+            client.addAccount(CheckingAccount.ofCents(id, 1_000, 2_000));
+            batched.addClient(client);
+            Client copy = new Client("Client " + id, Gender.FEMALE, "Boston");
+            copy.addAccount(CheckingAccount.ofCents(id, 1_000, 2_000));
+            oneByOne.addClient(copy);
+        }
+
+        SplittableRandom random = new SplittableRandom(3);
+        int[] ids = new int[100_000];
+        long[] amounts = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = random.nextInt(accounts);
+            amounts[i] = random.nextLong(-1_500, 1_000);
+        }
+
+        PostingResults results = BankService.postAll(batched, ids, amounts);
+
+        for (int i = 0; i < ids.length; i++) {
+            Account account = oneByOne.getAccount(ids[i]);
+            boolean applied = true;
+            if (amounts[i] >= 0) {
+                account.depositCents(amounts[i]);
+            } else {
+                applied = account.tryWithdrawCents(-amounts[i]);
+            }
+            assertEquals(applied, results.isApplied(i));
+            assertEquals(account.maximumAmountToWithdrawCents(), results.getMaximumAmountToWithdrawCents(i));
+        }
+        for (int id = 0; id < accounts; id++) {
+            assertEquals(oneByOne.getAccount(id).getBalanceCents(), batched.getAccount(id).getBalanceCents());
+        }
+        assertEquals(oneByOne.getStatistics().getTotalBalanceCents(), batched.getStatistics().getTotalBalanceCents());
+    }
+
+    @Test
+    public void testReportsPrintCentsToStandardOutput() throws ClientExistsException {
+        Bank bank = new Bank();
+        Client client = new Client("John", Gender.MALE, "Boston");
+        client.addAccount(SavingAccount.ofCents(1, 1_005));
+        client.addAccount(CheckingAccount.ofCents(2, -250, 500));
+        bank.addClient(client);
+
+        PrintStream console = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            BankService.printBalance(bank);
+            BankService.printMaximumAmountToWithdraw(bank);
+        } finally {
+            System.setOut(console);
+        }
+
+        assertEquals("\nPrint balance for all clients\n"
+                + "Client: Mr. John\n"
+                + "Account 1 : 10.05\n"
+                + "Account 2 : -2.50\n"
+                + "\nPrint maximum amount to withdraw for all clients\n"
+                + "Client: Mr. John\n"
+                + "Account nr. 1, maximum amount to withdraw: 10.05\n"
+                + "Account nr. 2, maximum amount to withdraw: 2.50\n"
+                + "\n", output.toString(StandardCharsets.UTF_8));
+    }
+}
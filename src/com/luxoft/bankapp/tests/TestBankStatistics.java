@@ -0,0 +1,166 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.BankReportStreams;
+import com.luxoft.bankapp.domain.BankStatistics;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
+import com.luxoft.bankapp.service.BankService;
+
+public class TestBankStatistics {
+
+    @Test
+    public void testStatisticsFollowBankChanges() throws ClientExistsException, NotEnoughFundsException {
+        Bank bank = new Bank();
+        BankStatistics statistics = bank.getStatistics();
+        BankReportStreams bankReportStreams = new BankReportStreams();
+
+        Client client1 = new Client("Smith John", Gender.MALE, "New York");
+        SavingAccount savingAccount = new SavingAccount(1, 1000.0);
+        CheckingAccount checkingAccount = new CheckingAccount(2, 1000.0, 100.0);
+        client1.addAccount(savingAccount);
+        client1.addAccount(checkingAccount);
+
+        Client client2 = new Client("Smith Michelle", Gender.FEMALE, "Los Angeles");
+        client2.addAccount(new SavingAccount(3, 2000.0));
+
+        BankService.addClient(bank, client1);
+        BankService.addClient(bank, client2);
+
+        checkingAccount.withdraw(1050.0);
+        savingAccount.deposit(250.0);
+        client2.addAccount(new CheckingAccount(4, 1500.0, 200.0));
+
+        assertEquals(bankReportStreams.getNumberOfClients(bank), statistics.getNumberOfClients());
+        assertEquals(bankReportStreams.getNumberOfAccounts(bank), statistics.getNumberOfAccounts());
+        assertEquals(bankReportStreams.getBankCreditSumCents(bank), statistics.getBankCreditSumCents());
+        assertEquals(145000, statistics.getBankCreditSumCents());
+        assertEquals(470000, statistics.getTotalBalanceCents());
+        assertEquals(120000, client1.getTotalBalanceCents());
+        assertEquals(350000, client2.getTotalBalanceCents());
+    }
+
+    @Test
+    public void testClientsByCityAreSortedByCity() throws ClientExistsException {
+        Bank bank = new Bank();
+
+        Client client1 = new Client("Smith John", Gender.MALE, "New York");
+        Client client2 = new Client("Smith Michelle", Gender.FEMALE, "Los Angeles");
+        Client client3 = new Client("Doe Jane", Gender.FEMALE, "New York");
+        BankService.addClient(bank, client1);
+        BankService.addClient(bank, client2);
+        BankService.addClient(bank, client3);
+
+        BankStatistics statistics = bank.getStatistics();
+        assertEquals(List.of("Los Angeles", "New York"), new ArrayList<>(statistics.getClientsByCity().keySet()));
+        assertEquals(2, statistics.getClientsInCity("New York").size());
+        assertTrue(statistics.getClientsInCity("New York").contains(client3));
+        assertTrue(statistics.getClientsInCity("Boston").isEmpty());
+    }
+
+    @Test
+    public void testConcurrentDepositsDuringRegistrationAreCountedOnce() throws Exception {
+        Bank bank = new Bank();
+        List<Client> clients = new ArrayList<>();
+        List<SavingAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Client client = new Client("Client " + i, Gender.MALE, "Boston");
+            SavingAccount account = new SavingAccount(i, 0.0);
+            client.addAccount(account);
+            clients.add(client);
+            accounts.add(account);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> depositors = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread depositor = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int round = 0; round < 50; round++) {
+                    for (SavingAccount account : accounts) {
+                        account.depositCents(1);
+                    }
+                }
+            });
+            depositors.add(depositor);
+            depositor.start();
+        }
+
+        start.countDown();
+        for (Client client : clients) {
+            bank.addClient(client);
+        }
+        for (Thread depositor : depositors) {
+            depositor.join();
+        }
+
+        assertEquals(4 * 50 * 200, bank.getStatistics().getTotalBalanceCents());
+        for (Client client : clients) {
+            assertEquals(4 * 50, client.getTotalBalanceCents());
+        }
+    }
+
+    @Test
+    public void testConcurrentDepositsWhileAccountsAreAddedAreCountedOnce() throws Exception {
+        Bank bank = new Bank();
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Client client = new Client("Client " + i, Gender.MALE, "Boston");
+            bank.addClient(client);
+            clients.add(client);
+        }
+        List<SavingAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            accounts.add(SavingAccount.ofCents(i, 0));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> depositors = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread depositor = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int round = 0; round < 20; round++) {
+                    for (SavingAccount account : accounts) {
+                        account.depositCents(1);
+                    }
+                }
+            });
+            depositors.add(depositor);
+            depositor.start();
+        }
+
+        start.countDown();
+        for (int i = 0; i < accounts.size(); i++) {
+            clients.get(i % clients.size()).addAccount(accounts.get(i));
+        }
+        for (Thread depositor : depositors) {
+            depositor.join();
+        }
+
+        assertEquals(4 * 20 * 2_000, bank.getStatistics().getTotalBalanceCents());
+        for (Client client : clients) {
+            assertEquals(4 * 20 * 20, client.getTotalBalanceCents());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.utils.CachedDate;
+
+public class TestCachedDate {
+
+    @Test
+    public void testDateIsRenderedOncePerDay() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-03-09T23:59:58Z"), ZoneOffset.UTC);
+        CachedDate date = new CachedDate(DateTimeFormatter.ISO_LOCAL_DATE, clock);
+
+        String first = date.today();
+        assertEquals("2024-03-09", first);
+        clock.now = Instant.parse("2024-03-09T23:59:59.999Z");
+        assertSame(first, date.today());
+
+        clock.now = Instant.parse("2024-03-10T00:00:00Z");
+        assertEquals("2024-03-10", date.today());
+        clock.now = Instant.parse("2024-03-09T12:00:00Z");
+        assertEquals("2024-03-09", date.today());
+    }
+
+    @Test
+    public void testDaysFollowTheClockTimeZone() {
+        ZoneId newYork = ZoneId.of("America/New_York");
+        MutableClock clock = new MutableClock(Instant.parse("2024-03-10T04:59:59Z"), newYork);
+        CachedDate date = new CachedDate(DateTimeFormatter.ISO_LOCAL_DATE, clock);
+
+        assertEquals("2024-03-09", date.today());
+        clock.now = Instant.parse("2024-03-10T05:00:00Z");
+        assertEquals("2024-03-10", date.today());
+        // the day of the switch to daylight saving time has 23 hours
+        clock.now = Instant.parse("2024-03-11T03:59:59Z");
+        assertEquals("2024-03-10", date.today());
+        clock.now = Instant.parse("2024-03-11T04:00:00Z");
+        assertEquals("2024-03-11", date.today());
+    }
+
+    private static final class MutableClock extends Clock {
+        private final ZoneId zone;
+        private Instant now;
+
+        MutableClock(Instant now, ZoneId zone) {
+            this.now = now;
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new MutableClock(now, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+
+public class TestClientRanking {
+
+    private static final Comparator<Client> RICHEST_FIRST = Comparator
+            .comparingLong(Client::getTotalBalanceCents).reversed()
+            .thenComparing(Client.IDENTITY_ORDER);
+
+    private static final Comparator<Client> POOREST_FIRST = Comparator
+            .comparingLong(Client::getTotalBalanceCents)
+            .thenComparing(Client.IDENTITY_ORDER);
+
+    @Test
+    public void testTopAndBottomMatchAFullSort() throws ClientExistsException {
+        Bank bank = new Bank();
+        List<Client> clients = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 2_000; i++) {
+            Client client = new Client("Client " + i, i % 2 == 0 ? Gender.MALE : Gender.FEMALE, "City " + (i % 7));
+            // few distinct balances, so many clients tie
+            client.addAccount(SavingAccount.ofCents(i, 100 * random.nextInt(50)));
+            bank.addClient(client);
+            clients.add(client);
+        }
+
+        List<Client> richest = clients.stream().sorted(RICHEST_FIRST).collect(Collectors.toList());
+        List<Client> poorest = clients.stream().sorted(POOREST_FIRST).collect(Collectors.toList());
+
+        assertEquals(richest.subList(0, 100), bank.getRichestClients(100));
+        assertEquals(poorest.subList(0, 100), bank.getPoorestClients(100));
+        assertEquals(richest, bank.getRichestClients(5_000));
+        assertTrue(bank.getRichestClients(0).isEmpty());
+
+        List<Client> inRange = poorest.stream()
+                .filter(client -> client.getTotalBalanceCents() >= 1_000 && client.getTotalBalanceCents() <= 2_000)
+                .collect(Collectors.toList());
+        assertEquals(inRange, bank.getClientsWithBalanceBetween(1_000, 2_000));
+    }
+
+    @Test
+    public void testRankingFollowsBalanceChanges() throws ClientExistsException {
+        Bank bank = new Bank();
+        Client john = new Client("John", Gender.MALE, "New York");
+        SavingAccount account = SavingAccount.ofCents(1, 100);
+        john.addAccount(account);
+        Client jane = new Client("Jane", Gender.FEMALE, "New York");
+        jane.addAccount(SavingAccount.ofCents(2, 500));
+        bank.addClient(john);
+        bank.addClient(jane);
+
+        assertEquals(jane, bank.getRichestClients(1).get(0));
+        account.depositCents(1_000);
+        assertEquals(john, bank.getRichestClients(1).get(0));
+        assertEquals(List.of(jane), bank.getClientsWithBalanceBetween(0, 1_000));
+    }
+}
@@ -0,0 +1,183 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.service.BankService;
+import com.luxoft.bankapp.utils.AsyncDispatcher;
+import com.luxoft.bankapp.utils.BackpressurePolicy;
+import com.luxoft.bankapp.utils.ClientRegistrationDispatcher;
+import com.luxoft.bankapp.utils.ClientRegistrationListener;
+import com.luxoft.bankapp.utils.DebugSink;
+import com.luxoft.bankapp.utils.PerListenerDispatcher;
+import com.luxoft.bankapp.utils.SynchronousDispatcher;
+
+public class TestClientRegistrationDispatch {
+
+    @Test
+    public void testAsyncBankDeliversAllNotifications() throws ClientExistsException {
+        Bank bank = new Bank(null, new AsyncDispatcher(16, BackpressurePolicy.BLOCK));
+
+        for (int i = 0; i < 100; i++) {
+            BankService.addClient(bank, new Client("Client " + i, Gender.MALE, "New York"));
+        }
+        bank.close();
+
+        assertEquals(100, bank.getPrintedClients());
+        assertEquals(100, bank.getEmailedClients());
+        assertEquals(100, bank.getDebuggedClients());
+        assertEquals(0, bank.getDroppedNotifications());
+    }
+
+    @Test
+    public void testDebugLinesGoToTheSinkUnlessItIsOff() throws ClientExistsException {
+        List<String> lines = new ArrayList<>();
+        Bank debugged = new Bank(null, new SynchronousDispatcher(), line -> lines.add(line.toString()));
+        Bank quiet = new Bank(null, new SynchronousDispatcher(), DebugSink.OFF);
+
+        debugged.addClient(new Client("John", Gender.MALE, "Boston"));
+        debugged.addClients(List.of(new Client("Jane", Gender.FEMALE, "Boston"), new Client("Anna", Gender.FEMALE, "Boston")));
+        quiet.addClient(new Client("John", Gender.MALE, "Boston"));
+
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("Client John added on: "));
+        assertTrue(lines.get(1).startsWith("2 clients added on: "));
+        assertEquals(3, debugged.getDebuggedClients());
+        assertEquals(0, quiet.getDebuggedClients());
+        assertEquals(1, quiet.getPrintedClients());
+    }
+
+    @Test
+    public void testAsyncDispatcherKeepsOrder() {
+        assertOrderPreserved(new AsyncDispatcher(8, BackpressurePolicy.BLOCK));
+    }
+
+    @Test
+    public void testPerListenerDispatcherKeepsOrder() {
+        assertOrderPreserved(new PerListenerDispatcher(8, BackpressurePolicy.BLOCK));
+    }
+
+    @Test
+    public void testDropPolicyCountsDiscardedNotifications() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Client> seen = Collections.synchronizedList(new ArrayList<>());
+        ClientRegistrationListener slowListener = client -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            seen.add(client);
+        };
+
+        AsyncDispatcher dispatcher = new AsyncDispatcher(2, BackpressurePolicy.DROP);
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(new Client("Client " + i, Gender.FEMALE, "Paris"), List.of(slowListener));
+        }
+        release.countDown();
+        dispatcher.close();
+
+        assertTrue(dispatcher.getDroppedCount() > 0);
+        assertEquals(10, seen.size() + dispatcher.getDroppedCount());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testClosedDispatcherRejects() {
+        AsyncDispatcher dispatcher = new AsyncDispatcher(2, BackpressurePolicy.BLOCK);
+        dispatcher.close();
+        dispatcher.dispatch(new Client("Late Client", Gender.MALE, "Paris"), List.of(client -> { }));
+    }
+
+    @Test
+    public void testRefusedNotificationDoesNotFailTheRegistration() throws ClientExistsException {
+        List<String> lines = new ArrayList<>();
+        Bank bank = new Bank(null, new AsyncDispatcher(2, BackpressurePolicy.BLOCK), line -> lines.add(line.toString()));
+        bank.close();
+
+        Client client = new Client("Late Client", Gender.MALE, "Paris");
+        bank.addClient(client);
+        bank.addClients(List.of(new Client("Later Client", Gender.MALE, "Paris")));
+
+        assertSame(client, bank.getClient(client));
+        assertEquals(2, bank.getClients().size());
+        assertEquals(2, bank.getDroppedNotifications());
+        assertEquals(0, bank.getPrintedClients());
+        assertTrue(lines.get(0).startsWith("Registration notification dropped: "));
+    }
+
+    @Test
+    public void testPerListenerDispatcherLeavesNoLaneRunningAfterClose() throws InterruptedException {
+        List<Thread> workers = Collections.synchronizedList(new ArrayList<>());
+        PerListenerDispatcher dispatcher = new PerListenerDispatcher(8, BackpressurePolicy.BLOCK, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            workers.add(thread);
+            return thread;
+        });
+
+        // every dispatch brings a new listener, so each one races close() to create a lane
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> senders = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread sender = new Thread(() -> {
+                Client client = new Client("Client", Gender.MALE, "Paris");
+                started.countDown();
+                try {
+                    while (true) {
+                        dispatcher.dispatch(client, List.of(new ClientRegistrationListener() {
+                            @Override
+                            public void onClientAdded(Client added) {
+                            }
+                        }));
+                    }
+                } catch (RejectedExecutionException e) {
+                    // closed
+                }
+            });
+            sender.start();
+            senders.add(sender);
+        }
+        started.await();
+        dispatcher.close();
+        for (Thread sender : senders) {
+            sender.join();
+        }
+
+        for (Thread worker : new ArrayList<>(workers)) {
+            TimeUnit.SECONDS.timedJoin(worker, 5);
+            assertFalse(worker.isAlive());
+        }
+    }
+
+    private static void assertOrderPreserved(ClientRegistrationDispatcher dispatcher) {
+        List<Client> first = Collections.synchronizedList(new ArrayList<>());
+        List<Client> second = Collections.synchronizedList(new ArrayList<>());
+        List<Client> expected = new ArrayList<>();
+        List<ClientRegistrationListener> listeners = List.of(first::add, second::add);
+
+        for (int i = 0; i < 500; i++) {
+            Client client = new Client("Client " + i, Gender.MALE, "Boston");
+            expected.add(client);
+            dispatcher.dispatch(client, listeners);
+        }
+        dispatcher.close();
+
+        assertEquals(expected, first);
+        assertEquals(expected, second);
+    }
+}
@@ -0,0 +1,84 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.service.BankService;
+
+public class TestClientRegistry {
+
+    @Test(expected = ClientExistsException.class)
+    public void testSameCustomerAsDifferentObjectIsDetected() throws ClientExistsException {
+        Bank bank = new Bank();
+
+        Client client1 = new Client("Smith John", Gender.MALE, "New York");
+        client1.addAccount(new SavingAccount(1, 1000.0));
+        Client client2 = new Client("Smith John", Gender.MALE, "New York");
+
+        BankService.addClient(bank, client1);
+        BankService.addClient(bank, client2);
+    }
+
+    @Test
+    public void testSameNameInOtherCityIsAnotherCustomer() throws ClientExistsException {
+        Bank bank = new Bank();
+
+        BankService.addClient(bank, new Client("Smith John", Gender.MALE, "New York"));
+        BankService.addClient(bank, new Client("Smith John", Gender.MALE, "Boston"));
+
+        assertEquals(2, bank.getClients().size());
+        assertFalse(new Client("Smith John", Gender.MALE, "New York").equals(new Client("Smith John", Gender.MALE, "Boston")));
+    }
+
+    @Test
+    public void testConcurrentDuplicateRegistrationsLetOneThrough() throws InterruptedException {
+        Bank bank = new Bank();
+        int threads = 8;
+        int clients = 500;
+        AtomicInteger registered = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < clients; i++) {
+                    try {
+                        bank.addClient(new Client("Client " + i, Gender.FEMALE, "Paris"));
+                        registered.incrementAndGet();
+                    } catch (ClientExistsException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(clients, bank.getClients().size());
+        assertEquals(clients, registered.get());
+        assertEquals((threads - 1) * clients, rejected.get());
+    }
+}
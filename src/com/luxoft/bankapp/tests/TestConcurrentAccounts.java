@@ -0,0 +1,174 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.AbstractAccount;
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.AccountType;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
+import com.luxoft.bankapp.exceptions.OverdraftLimitExceededException;
+
+public class TestConcurrentAccounts {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 20_000;
+
+    @Test
+    public void testConcurrentDepositsAreNotLost() throws InterruptedException {
+        SavingAccount savingAccount = new SavingAccount(1, 0.0);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                savingAccount.deposit(1.0);
+            }
+        });
+
+        assertEquals(THREADS * OPERATIONS, savingAccount.getBalance(), 0);
+    }
+
+    @Test
+    public void testConcurrentDepositsAndWithdrawalsAreNotLost() throws InterruptedException {
+        CheckingAccount checkingAccount = new CheckingAccount(2, 1000.0, 100.0);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                checkingAccount.deposit(2.0);
+                try {
+                    checkingAccount.withdraw(1.0);
+                } catch (NotEnoughFundsException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+
+        assertEquals(1000.0 + THREADS * OPERATIONS, checkingAccount.getBalance(), 0);
+    }
+
+    @Test
+    public void testSavingAccountIsNeverOverdrawn() throws InterruptedException {
+        assertWithdrawalsStopAtLimit(new SavingAccount(3, 1000.0), 1000, 0.0);
+    }
+
+    @Test
+    public void testCheckingAccountStopsAtOverdraft() throws InterruptedException {
+        assertWithdrawalsStopAtLimit(new CheckingAccount(4, 1000.0, 500.0), 1500, -500.0);
+    }
+
+    @Test
+    public void testTryWithdrawReportsDeclineWithoutChangingBalance() {
+        CheckingAccount checkingAccount = CheckingAccount.ofCents(5, 1_000, 500);
+
+        assertTrue(checkingAccount.tryWithdrawCents(1_500));
+        assertFalse(checkingAccount.tryWithdrawCents(1));
+        assertEquals(-500, checkingAccount.getBalanceCents());
+    }
+
+    @Test
+    public void testDeclinedWithdrawalExceptionHasNoStackTrace() {
+        CheckingAccount checkingAccount = CheckingAccount.ofCents(6, 1_000, 500);
+
+        try {
+            checkingAccount.withdrawCents(2_000);
+            fail("Expected the withdrawal to be declined");
+        } catch (OverdraftLimitExceededException e) {
+            assertEquals(1_000, e.getBalanceCents());
+            assertEquals(2_000, e.getAmountCents());
+            assertEquals(500, e.getOverdraftCents());
+            assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void testDeclinedWithdrawalReportsTheBalanceItWasCheckedAgainst() {
+        // a deposit lands between the limit check and the exception being built
+        Account account = new AbstractAccount(7, 1_000L) {
+            private boolean deposited;
+
+            @Override
+            protected long maximumAmountToWithdrawCents(long balance) {
+                if (!deposited) {
+                    deposited = true;
+                    depositCents(5_000);
+                }
+                return balance;
+            }
+
+            @Override
+            public AccountType getType() {
+                return AccountType.SAVING;
+            }
+        };
+
+        try {
+            account.withdrawCents(2_000);
+            fail("Expected the withdrawal to be declined");
+        } catch (NotEnoughFundsException e) {
+            assertEquals(1_000, e.getBalanceCents());
+            assertEquals(10.0, e.getBalance(), 0.0);
+            assertEquals(6_000, account.getBalanceCents());
+        }
+    }
+
+    private static void assertWithdrawalsStopAtLimit(Account account, int expectedWithdrawals, double expectedBalance)
+            throws InterruptedException {
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger declined = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS / 10; i++) {
+                try {
+                    account.withdraw(1.0);
+                    approved.incrementAndGet();
+                } catch (NotEnoughFundsException e) {
+                    declined.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(expectedWithdrawals, approved.get());
+        assertEquals(THREADS * (OPERATIONS / 10) - expectedWithdrawals, declined.get());
+        assertEquals(expectedBalance, account.getBalance(), 0);
+    }
+
+    private static void runConcurrently(Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (Throwable t) {
+                    synchronized (failures) {
+                        failures.add(t);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.get(0));
+        }
+    }
+}
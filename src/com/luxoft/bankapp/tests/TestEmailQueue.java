@@ -0,0 +1,82 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.mail.Email;
+import com.luxoft.bankapp.domain.mail.FullQueuePolicy;
+import com.luxoft.bankapp.domain.mail.Queue;
+
+public class TestEmailQueue {
+
+    @Test
+    public void testFifoAcrossWrapAround() throws InterruptedException {
+        Queue queue = new Queue(3, FullQueuePolicy.BLOCK);
+        List<Email> emails = emails(10);
+
+        for (Email email : emails) {
+            queue.add(email);
+            assertSame(email, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testDropPolicyDiscardsWhenFull() throws InterruptedException {
+        Queue queue = new Queue(2, FullQueuePolicy.DROP);
+        List<Email> emails = emails(5);
+
+        assertTrue(queue.add(emails.get(0)));
+        assertTrue(queue.add(emails.get(1)));
+        assertFalse(queue.add(emails.get(2)));
+        assertFalse(queue.add(emails.get(3)));
+
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.getDroppedCount());
+        assertSame(emails.get(0), queue.poll());
+        assertTrue(queue.add(emails.get(4)));
+        assertSame(emails.get(1), queue.poll());
+        assertSame(emails.get(4), queue.poll());
+    }
+
+    @Test
+    public void testSpillPolicyKeepsOrder() throws InterruptedException {
+        Queue queue = new Queue(2, FullQueuePolicy.SPILL);
+        List<Email> emails = emails(6);
+
+        for (Email email : emails.subList(0, 4)) {
+            assertTrue(queue.add(email));
+        }
+        assertEquals(4, queue.size());
+        assertSame(emails.get(0), queue.poll());
+        queue.add(emails.get(4));
+        queue.add(emails.get(5));
+
+        List<Email> drained = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            queue.drainTo(drained, 10);
+        }
+        assertEquals(emails.subList(1, 6), drained);
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    private static List<Email> emails(int count) {
+        List<Email> emails = new ArrayList<>();
+        Client client = new Client("Smith John", Gender.MALE, "New York");
+        for (int i = 0; i < count; i++) {
+            emails.add(new Email(client, "bank", client.getName(), "Email " + i, "Body " + i));
+        }
+        return emails;
+    }
+}
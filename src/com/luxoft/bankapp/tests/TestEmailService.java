@@ -0,0 +1,260 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.mail.Email;
+import com.luxoft.bankapp.domain.mail.EmailService;
+import com.luxoft.bankapp.domain.mail.InMemoryTransport;
+import com.luxoft.bankapp.domain.mail.MailTransport;
+import com.luxoft.bankapp.metrics.BankMetrics;
+
+public class TestEmailService {
+
+    @Test
+    public void testWorkersDeliverEveryEmailInBatches() throws InterruptedException {
+        InMemoryTransport transport = new InMemoryTransport();
+        EmailService emailService = EmailService.builder()
+                .transport(transport)
+                .workers(4)
+                .batchSize(50)
+                .maxBatchDelay(5, TimeUnit.MILLISECONDS)
+                .build();
+
+        for (int i = 0; i < 1000; i++) {
+            emailService.sendNotificationEmail(email(i));
+        }
+        waitForSent(emailService, 1000);
+        emailService.close();
+
+        List<Email> delivered = transport.getDelivered();
+        assertEquals(1000, delivered.size());
+        assertEquals(1000, new HashSet<>(delivered).size());
+        assertTrue(transport.getBatches() < 1000);
+    }
+
+    @Test
+    public void testFailedBatchesAreRetried() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        InMemoryTransport delegate = new InMemoryTransport();
+        MailTransport flakyTransport = batch -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IOException("Mail server unavailable");
+            }
+            delegate.send(batch);
+        };
+
+        EmailService emailService = EmailService.builder()
+                .transport(flakyTransport)
+                .retries(3, 1, 10)
+                .build();
+        emailService.sendNotificationEmail(email(1));
+        waitForSent(emailService, 1);
+        emailService.close();
+
+        assertEquals(3, attempts.get());
+        assertEquals(1, delegate.getDelivered().size());
+        assertEquals(0, emailService.getFailedEmails());
+    }
+
+    @Test
+    public void testBatchIsDroppedAfterLastRetry() throws InterruptedException {
+        EmailService emailService = EmailService.builder()
+                .transport(batch -> {
+                    throw new IOException("Mail server unavailable");
+                })
+                .retries(2, 1, 1)
+                .build();
+        emailService.sendNotificationEmail(email(1));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (emailService.getFailedEmails() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        emailService.close();
+
+        assertEquals(1, emailService.getFailedEmails());
+        assertEquals(0, emailService.getSentEmails());
+    }
+
+    @Test
+    public void testCloseDrainsQueuedEmails() {
+        InMemoryTransport transport = new InMemoryTransport();
+        EmailService emailService = EmailService.builder()
+                .transport(transport)
+                .batchSize(10)
+                .build();
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(emailService.sendNotificationEmail(email(i)));
+        }
+        emailService.close();
+
+        assertTrue(emailService.isTerminated());
+        assertEquals(500, transport.getDelivered().size());
+        assertEquals(500, emailService.getSentEmails());
+        assertEquals(0, emailService.getAbandonedEmails());
+    }
+
+    @Test
+    public void testEmailsAfterShutdownAreRejected() throws InterruptedException {
+        EmailService emailService = EmailService.builder()
+                .transport(new InMemoryTransport())
+                .build();
+        emailService.shutdown();
+
+        assertFalse(emailService.sendNotificationEmail(email(1)));
+        assertEquals(1, emailService.getRejectedEmails());
+        assertTrue(emailService.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testEmailBeingQueuedDuringShutdownIsDelivered() throws IOException, InterruptedException {
+        Path spoolFile = Files.createTempFile("email-spool", ".bin");
+        try {
+            InMemoryTransport transport = new InMemoryTransport();
+            EmailService emailService = EmailService.builder()
+                    .transport(transport)
+                    .spool(spoolFile, 4096)
+                    .build();
+
+            // the sender passes the state check and stalls while the email is spooled
+            CountDownLatch spooling = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Client client = new Client("Client 1", Gender.FEMALE, "Paris");
+            Email email = new Email(client, "bank", client.getName(), "Welcome to our bank!", "Welcome to our bank!") {
+                @Override
+                public String getTo() {
+                    if (spooling.getCount() > 0) {
+                        spooling.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return super.getTo();
+                }
+            };
+
+            AtomicInteger accepted = new AtomicInteger();
+            Thread sender = new Thread(() -> {
+                if (emailService.sendNotificationEmail(email)) {
+                    accepted.incrementAndGet();
+                }
+            });
+            sender.start();
+            assertTrue(spooling.await(5, TimeUnit.SECONDS));
+
+            emailService.shutdown();
+            assertFalse(emailService.awaitTermination(300, TimeUnit.MILLISECONDS));
+            release.countDown();
+            sender.join();
+
+            assertTrue(emailService.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(1, accepted.get());
+            assertEquals(1, emailService.getSentEmails());
+            assertEquals(1, transport.getDelivered().size());
+            emailService.close();
+        } finally {
+            Files.deleteIfExists(spoolFile);
+        }
+    }
+
+    @Test
+    public void testShutdownNowRemovesQueueDepthGauge() {
+        EmailService emailService = EmailService.builder()
+                .transport(new InMemoryTransport())
+                .build();
+        assertTrue(BankMetrics.REGISTRY.snapshot().getGauges().containsKey(BankMetrics.EMAIL_QUEUE_DEPTH));
+
+        emailService.shutdownNow();
+
+        assertFalse(BankMetrics.REGISTRY.snapshot().getGauges().containsKey(BankMetrics.EMAIL_QUEUE_DEPTH));
+    }
+
+    @Test
+    public void testShutdownNowReturnsUndeliveredEmails() throws InterruptedException {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EmailService emailService = EmailService.builder()
+                .transport(batch -> {
+                    sending.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })
+                .batchSize(1)
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            emailService.sendNotificationEmail(email(i));
+        }
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        List<Email> undelivered = emailService.shutdownNow();
+        release.countDown();
+
+        assertEquals(9, undelivered.size());
+        assertEquals(9, emailService.getAbandonedEmails());
+        assertTrue(emailService.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdownNowReturnsInterruptedBatches() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        EmailService emailService = EmailService.builder()
+                .transport(batch -> {
+                    attempts.incrementAndGet();
+                    throw new IOException("Mail server unavailable");
+                })
+                .batchSize(4)
+                .retries(Integer.MAX_VALUE, 60_000, 60_000)
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            emailService.sendNotificationEmail(email(i));
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (attempts.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // the worker is backing off with its first batch, the rest are still queued
+        List<Email> undelivered = emailService.shutdownNow();
+
+        assertEquals(10, undelivered.size());
+        assertEquals(10, new HashSet<>(undelivered).size());
+        assertEquals(10, emailService.getAbandonedEmails());
+        assertEquals(0, emailService.getFailedEmails());
+        assertTrue(emailService.isTerminated());
+    }
+
+    private static void waitForSent(EmailService emailService, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (emailService.getSentEmails() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static Email email(int i) {
+        Client client = new Client("Client " + i, Gender.FEMALE, "Paris");
+        return new Email(client, "bank", client.getName(), "Welcome to our bank!", "Welcome to our bank!");
+    }
+}
@@ -0,0 +1,222 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.mail.Email;
+import com.luxoft.bankapp.domain.mail.EmailService;
+import com.luxoft.bankapp.domain.mail.InMemoryTransport;
+
+public class TestEmailSpool {
+
+    @Test
+    public void testUndeliveredEmailsAreReplayedOnStartup() throws IOException, InterruptedException {
+        Path spoolFile = Files.createTempFile("email-spool", ".bin");
+        try {
+            EmailService failing = EmailService.builder()
+                    .transport(batch -> {
+                        throw new IOException("Mail server unavailable");
+                    })
+                    .retries(Integer.MAX_VALUE, 60_000, 60_000)
+                    .spool(spoolFile, 4096)
+                    .build();
+            for (int i = 0; i < 100; i++) {
+                assertTrue(failing.sendNotificationEmail(email(i)));
+            }
+            failing.shutdownNow();
+            assertTrue(failing.awaitTermination(5, TimeUnit.SECONDS));
+
+            InMemoryTransport transport = new InMemoryTransport();
+            EmailService recovered = EmailService.builder()
+                    .transport(transport)
+                    .spool(spoolFile)
+                    .build();
+            recovered.close();
+
+            List<Email> delivered = transport.getDelivered();
+            Set<String> subjects = new HashSet<>();
+            for (Email email : delivered) {
+                subjects.add(email.getSubject());
+            }
+            assertEquals(100, delivered.size());
+            assertEquals(100, subjects.size());
+            assertEquals(email(42).getClient(), delivered.stream()
+                    .filter(email -> email.getSubject().equals("Email 42")).findFirst().get().getClient());
+
+            InMemoryTransport afterRecovery = new InMemoryTransport();
+            EmailService restarted = EmailService.builder()
+                    .transport(afterRecovery)
+                    .spool(spoolFile)
+                    .build();
+            restarted.close();
+            assertEquals(0, afterRecovery.getDelivered().size());
+        } finally {
+            Files.deleteIfExists(spoolFile);
+        }
+    }
+
+    @Test
+    public void testDeliveredEmailsAreNotReplayed() throws IOException {
+        Path spoolFile = Files.createTempFile("email-spool", ".bin");
+        try {
+            InMemoryTransport transport = new InMemoryTransport();
+            EmailService emailService = EmailService.builder()
+                    .transport(transport)
+                    .workers(4)
+                    .spool(spoolFile)
+                    .build();
+            for (int i = 0; i < 1000; i++) {
+                emailService.sendNotificationEmail(email(i));
+            }
+            emailService.close();
+            assertEquals(1000, transport.getDelivered().size());
+
+            InMemoryTransport afterRestart = new InMemoryTransport();
+            EmailService restarted = EmailService.builder()
+                    .transport(afterRestart)
+                    .spool(spoolFile)
+                    .build();
+            restarted.close();
+            assertEquals(0, afterRestart.getDelivered().size());
+        } finally {
+            Files.deleteIfExists(spoolFile);
+        }
+    }
+
+    @Test
+    public void testSpoolThatIsNeverEmptyKeepsItsSize() throws IOException, InterruptedException {
+        Path spoolFile = Files.createTempFile("email-spool", ".bin");
+        try {
+            // each email is delivered only once the next one is spooled, and the next one is
+            // sent only once the previous one is delivered, so the spool always has a pending
+            // email but never a backlog, and the last one stays pending
+            int count = 500;
+            AtomicInteger accepted = new AtomicInteger();
+            AtomicInteger delivering = new AtomicInteger();
+            EmailService emailService = EmailService.builder()
+                    .transport(batch -> {
+                        int next = delivering.incrementAndGet() + 1;
+                        while (accepted.get() < next) {
+                            if (Thread.interrupted()) {
+                                Thread.currentThread().interrupt();
+                                throw new IOException("Interrupted");
+                            }
+                            Thread.onSpinWait();
+                        }
+                    })
+                    .batchSize(1)
+                    .spool(spoolFile, 4096)
+                    .build();
+            for (int i = 0; i < count; i++) {
+                while (emailService.getSentEmails() < i - 1) {
+                    Thread.yield();
+                }
+                assertTrue(emailService.sendNotificationEmail(email(i)));
+                accepted.incrementAndGet();
+            }
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (emailService.getSentEmails() < count - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(count - 1, emailService.getSentEmails());
+            emailService.shutdownNow();
+            assertTrue(emailService.awaitTermination(5, TimeUnit.SECONDS));
+
+            assertEquals(4096, Files.size(spoolFile));
+
+            InMemoryTransport transport = new InMemoryTransport();
+            EmailService restarted = EmailService.builder()
+                    .transport(transport)
+                    .spool(spoolFile)
+                    .build();
+            restarted.close();
+            assertEquals(1, transport.getDelivered().size());
+            assertEquals("Email " + (count - 1), transport.getDelivered().get(0).getSubject());
+        } finally {
+            Files.deleteIfExists(spoolFile);
+        }
+    }
+
+    @Test
+    public void testCloseReleasesTheSpoolFile() throws IOException {
+        Path spoolFile = Files.createTempFile("email-spool", ".bin");
+        try {
+            for (int run = 0; run < 3; run++) {
+                InMemoryTransport transport = new InMemoryTransport();
+                EmailService emailService = EmailService.builder()
+                        .transport(transport)
+                        .spool(spoolFile, 4096)
+                        .build();
+                assertTrue(emailService.sendNotificationEmail(email(run)));
+                emailService.close();
+
+                assertEquals(1, transport.getDelivered().size());
+                assertEquals(0, openDescriptors(spoolFile));
+            }
+
+            EmailService stopped = EmailService.builder()
+                    .transport(batch -> {
+                        throw new IOException("Mail server unavailable");
+                    })
+                    .retries(Integer.MAX_VALUE, 60_000, 60_000)
+                    .spool(spoolFile, 4096)
+                    .build();
+            assertTrue(stopped.sendNotificationEmail(email(3)));
+            stopped.shutdownNow();
+            assertEquals(0, openDescriptors(spoolFile));
+
+            InMemoryTransport transport = new InMemoryTransport();
+            EmailService reopened = EmailService.builder()
+                    .transport(transport)
+                    .spool(spoolFile)
+                    .build();
+            reopened.close();
+            assertEquals(1, transport.getDelivered().size());
+        } finally {
+            Files.deleteIfExists(spoolFile);
+        }
+    }
+
+    /**
+     * Number of file descriptors of this process open on the file, where /proc shows them.
+     */
+    private static int openDescriptors(Path file) throws IOException {
+        Path descriptors = Path.of("/proc/self/fd");
+        if (!Files.isDirectory(descriptors)) {
+            return 0;
+        }
+        Path target = file.toRealPath();
+        int count = 0;
+        try (DirectoryStream<Path> links = Files.newDirectoryStream(descriptors)) {
+            for (Path link : links) {
+                try {
+                    if (Files.readSymbolicLink(link).equals(target)) {
+                        count++;
+                    }
+                } catch (IOException e) {
+                    // closed while listing
+                }
+            }
+        }
+        return count;
+    }
+
+    private static Email email(int i) {
+        Client client = new Client("Client " + i, i % 2 == 0 ? Gender.MALE : null, "Paris");
+        return new Email(client, "bank", client.getName(), "Email " + i, "Welcome to our bank, client " + i + "!");
+    }
+}
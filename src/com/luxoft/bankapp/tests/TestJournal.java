@@ -0,0 +1,395 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.AbstractAccount;
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.AccountType;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.domain.journal.Journal;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
+
+public class TestJournal {
+
+    @Test
+    public void testReplayRestoresClientsAccountsAndBalances() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            Bank bank = new Bank();
+            try (Journal journal = new Journal(directory)) {
+                bank.setTransactionLog(journal);
+                fill(bank);
+            }
+
+            Bank restored = new Bank();
+            assertEquals(8, Journal.replay(directory, restored));
+
+            assertEquals(balances(bank), balances(restored));
+            assertEquals(2, restored.getStatistics().getNumberOfClients());
+            assertEquals(4, restored.getStatistics().getNumberOfAccounts());
+            assertEquals(bank.getStatistics().getTotalBalanceCents(), restored.getStatistics().getTotalBalanceCents());
+            assertEquals(bank.getStatistics().getBankCreditSumCents(), restored.getStatistics().getBankCreditSumCents());
+            assertEquals(0, restored.getPrintedClients());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testReplayAcrossSegmentsAndReopenedJournal() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            Bank bank = new Bank();
+            Account account = SavingAccount.ofCents(1, 0);
+            try (Journal journal = new Journal(directory, 4096, true)) {
+                bank.setTransactionLog(journal);
+                Client client = new Client("John", Gender.MALE, "New York");
+                client.addAccount(account);
+                bank.addClient(client);
+                for (int i = 0; i < 1_000; i++) {
+                    account.depositCents(1);
+                }
+            }
+            assertTrue(segments(directory).size() > 1);
+
+            Bank restored = new Bank();
+            Journal.replay(directory, restored);
+            Account restoredAccount = restored.getClients().iterator().next().getAccounts().iterator().next();
+            assertEquals(1_000, restoredAccount.getBalanceCents());
+
+            try (Journal journal = new Journal(directory, 4096, false)) {
+                restored.setTransactionLog(journal);
+                restoredAccount.withdrawCents(400);
+            }
+
+            Bank again = new Bank();
+            assertEquals(1_002, Journal.replay(directory, again));
+            assertEquals(600, again.getStatistics().getTotalBalanceCents());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTornRecordAtTheEndIsIgnored() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            Bank bank = new Bank();
+            Account account = SavingAccount.ofCents(1, 100);
+            try (Journal journal = new Journal(directory, 4096, false)) {
+                bank.setTransactionLog(journal);
+                Client client = new Client("John", Gender.MALE, "New York");
+                client.addAccount(account);
+                bank.addClient(client);
+                account.depositCents(50);
+                account.depositCents(25);
+            }
+
+            // damage the checksum of the last record, as a write cut short by a crash would
+            Path segment = segments(directory).get(0);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+                long position = 16;
+                long last = position;
+                while (true) {
+                    header.clear();
+                    channel.read(header, position);
+                    int length = header.flip().getInt();
+                    if (length == 0) {
+                        break;
+                    }
+                    last = position;
+                    position += 8 + length;
+                }
+                channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0xBAD).flip(), last + 4);
+            }
+
+            Bank restored = new Bank();
+            assertEquals(2, Journal.replay(directory, restored));
+            assertEquals(150, restored.getStatistics().getTotalBalanceCents());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testSnapshotReplacesSegmentsAndReplayContinuesAfterIt() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            Bank bank = new Bank();
+            try (Journal journal = new Journal(directory, 4096, false)) {
+                bank.setTransactionLog(journal);
+                fill(bank);
+                Account account = bank.getClients().iterator().next().getAccounts().iterator().next();
+                for (int i = 0; i < 500; i++) {
+                    account.depositCents(3);
+                }
+
+                Path snapshot = journal.snapshot();
+                assertTrue(Files.exists(snapshot));
+                assertEquals(1, segments(directory).stream().filter(file -> file.getFileName().toString().startsWith("journal-")).count());
+
+                account.depositCents(1_000);
+                jane(bank).addAccount(SavingAccount.ofCents(5, 70));
+            }
+
+            Bank restored = new Bank();
+            assertEquals(2, Journal.replay(directory, restored));
+            assertEquals(balances(bank), balances(restored));
+            assertEquals(bank.getStatistics().getTotalBalanceCents(), restored.getStatistics().getTotalBalanceCents());
+            assertEquals(5, restored.getStatistics().getNumberOfAccounts());
+            assertEquals(null, jane(restored).getCity());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testBackgroundSnapshotsKeepUpWithWriters() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            Bank bank = new Bank();
+            Account account = CheckingAccount.ofCents(1, 0, 1_000);
+            try (Journal journal = new Journal(directory, 4096, false)) {
+                bank.setTransactionLog(journal);
+                Client client = new Client("John", Gender.MALE, "New York");
+                client.addAccount(account);
+                bank.addClient(client);
+
+                journal.startSnapshots(1, TimeUnit.MILLISECONDS);
+                for (int i = 0; i < 20_000; i++) {
+                    account.depositCents(2);
+                    account.withdrawCents(1);
+                }
+            }
+
+            Bank restored = new Bank();
+            Journal.replay(directory, restored);
+            assertEquals(20_000, restored.getStatistics().getTotalBalanceCents());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testDepositRacingRegistrationIsJournaledOnce() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            CountDownLatch applied = new CountDownLatch(1);
+            CountDownLatch registered = new CountDownLatch(1);
+            Thread[] depositor = new Thread[1];
+            // holds the deposit between its balance update and its report to the owner
+            Account account = new AbstractAccount(1, 1_000L) {
+                @Override
+                protected long maximumAmountToWithdrawCents(long balance) {
+                    return balance;
+                }
+
+                @Override
+                public AccountType getType() {
+                    if (Thread.currentThread() == depositor[0]) {
+                        applied.countDown();
+                        try {
+                            registered.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return AccountType.SAVING;
+                }
+            };
+            Client client = new Client("John", Gender.MALE, "New York");
+            client.addAccount(account);
+
+            Bank bank = new Bank();
+            try (Journal journal = new Journal(directory)) {
+                bank.setTransactionLog(journal);
+                depositor[0] = new Thread(() -> account.depositCents(500));
+                depositor[0].start();
+                assertTrue(applied.await(5, TimeUnit.SECONDS));
+                bank.addClient(client);
+                registered.countDown();
+                depositor[0].join();
+            }
+
+            Bank restored = new Bank();
+            Journal.replay(directory, restored);
+            assertEquals(1_500, bank.getStatistics().getTotalBalanceCents());
+            assertEquals(1_500, client.getTotalBalanceCents());
+            assertEquals(1_500, restored.getStatistics().getTotalBalanceCents());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testDepositRacingAnAddedAccountIsReplayed() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            Bank bank = new Bank();
+            Client client = new Client("John", Gender.MALE, "New York");
+            client.addAccount(SavingAccount.ofCents(1, 100));
+
+            // deposits while the account is being added to the registered client, right after
+            // its owner took it over
+            Account account = new AbstractAccount(2, 1_000L) {
+                private boolean deposited;
+
+                @Override
+                protected long maximumAmountToWithdrawCents(long balance) {
+                    return balance;
+                }
+
+                @Override
+                public AccountType getType() {
+                    if (!deposited) {
+                        deposited = true;
+                        depositCents(500);
+                    }
+                    return AccountType.SAVING;
+                }
+            };
+            try (Journal journal = new Journal(directory)) {
+                bank.setTransactionLog(journal);
+                bank.addClient(client);
+                client.addAccount(account);
+                account.depositCents(25);
+            }
+
+            Bank restored = new Bank();
+            Journal.replay(directory, restored);
+            assertEquals(1_525, restored.getAccount(2).getBalanceCents());
+            assertEquals(1_625, bank.getStatistics().getTotalBalanceCents());
+            assertEquals(1_625, restored.getStatistics().getTotalBalanceCents());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testClosedJournalStopsRecordingWithoutFailingUpdates() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            Bank bank = new Bank();
+            Account account = SavingAccount.ofCents(1, 0);
+            Journal journal = new Journal(directory);
+            bank.setTransactionLog(journal);
+            Client client = new Client("John", Gender.MALE, "New York");
+            client.addAccount(account);
+            bank.addClient(client);
+            account.depositCents(100);
+            journal.close();
+
+            account.depositCents(50);
+            assertTrue(account.tryWithdrawCents(30));
+            assertEquals(120, account.getBalanceCents());
+            assertEquals(120, bank.getStatistics().getTotalBalanceCents());
+            assertTrue(bank.getTransactionLogFailure() instanceof IllegalStateException);
+
+            Bank restored = new Bank();
+            Journal.replay(directory, restored);
+            assertEquals(100, restored.getAccount(1).getBalanceCents());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testEmptySnapshotRoundTrips() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            // a snapshot of a journal without clients is only its header and checksum
+            Class<?> replayClass = Class.forName("com.luxoft.bankapp.domain.journal.JournalReplay");
+            Constructor<?> emptyState = replayClass.getDeclaredConstructor();
+            emptyState.setAccessible(true);
+            Class<?> snapshotClass = Class.forName("com.luxoft.bankapp.domain.journal.JournalSnapshot");
+            Method write = snapshotClass.getDeclaredMethod("write", Path.class, long.class, replayClass);
+            Method load = snapshotClass.getDeclaredMethod("load", Path.class, replayClass);
+            write.setAccessible(true);
+            load.setAccessible(true);
+
+            Path snapshot = (Path) write.invoke(null, directory, 3L, emptyState.newInstance());
+            assertEquals(3L, load.invoke(null, snapshot, emptyState.newInstance()));
+
+            Bank restored = new Bank();
+            assertEquals(0, Journal.replay(directory, restored));
+            assertEquals(0, restored.getStatistics().getNumberOfClients());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static Client jane(Bank bank) {
+        return bank.getClients().stream().filter(client -> client.getName().equals("Jane")).findFirst().get();
+    }
+
+    private static void fill(Bank bank) throws ClientExistsException, NotEnoughFundsException {
+        Client john = new Client("John", Gender.MALE, "New York");
+        Account saving = new SavingAccount(1, 100);
+        Account checking = new CheckingAccount(2, 100, 20);
+        john.addAccount(saving);
+        john.addAccount(checking);
+        bank.addClient(john);
+
+        Client jane = new Client("Jane", Gender.FEMALE, null);
+        jane.addAccount(new SavingAccount(3, 200));
+        bank.addClient(jane);
+        jane.addAccount(CheckingAccount.ofCents(4, 5_000, 3_000));
+
+        saving.deposit(100);
+        saving.withdraw(10);
+        checking.withdraw(90);
+        checking.tryWithdraw(100);
+        checking.deposit(0.55);
+        checking.withdraw(30);
+    }
+
+    private static Map<Integer, Long> balances(Bank bank) {
+        Map<Integer, Long> balances = new HashMap<>();
+        for (Client client : bank.getClients()) {
+            for (Account account : client.getAccounts()) {
+                balances.put(account.getId(), account.getBalanceCents());
+            }
+        }
+        return balances;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.metrics.BankMetrics;
+import com.luxoft.bankapp.metrics.Counter;
+import com.luxoft.bankapp.metrics.Histogram;
+import com.luxoft.bankapp.metrics.HistogramSnapshot;
+import com.luxoft.bankapp.metrics.MetricsRegistry;
+import com.luxoft.bankapp.metrics.MetricsSnapshot;
+
+public class TestMetrics {
+
+    @Test
+    public void testHistogramPercentilesAreWithinOneSixteenth() {
+        Histogram histogram = new MetricsRegistry().histogram("latency");
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(10_001, snapshot.getCount());
+        assertEquals(10_000, snapshot.getMax());
+        assertEquals(50_005_000, snapshot.getSum());
+        assertEquals(0, snapshot.getValueAtPercentile(0));
+        assertEquals(10_000, snapshot.getValueAtPercentile(100));
+        long median = snapshot.getValueAtPercentile(50);
+        assertTrue(median >= 5_000 && median <= 5_000 + 5_000 / 16);
+        long p99 = snapshot.getValueAtPercentile(99);
+        assertTrue(p99 >= 9_900 && p99 <= 9_900 + 9_900 / 16);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        Histogram histogram = new MetricsRegistry().histogram("small");
+        histogram.record(3);
+        histogram.record(3);
+        histogram.record(7);
+
+        assertEquals(3, histogram.snapshot().getValueAtPercentile(50));
+        assertEquals(7, histogram.snapshot().getValueAtPercentile(90));
+        assertEquals(0, new MetricsRegistry().histogram("empty").snapshot().getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testSnapshotContainsEveryMetric() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("requests").add(3);
+        registry.counter("requests").increment();
+        registry.histogram("latency").record(100);
+        LongSupplier depth = () -> 42;
+        registry.gauge("depth", depth);
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals(4, snapshot.getCounter("requests"));
+        assertEquals(0, snapshot.getCounter("missing"));
+        assertEquals(42L, (long) snapshot.getGauges().get("depth"));
+        assertEquals(1, snapshot.getHistogram("latency").getCount());
+        assertTrue(snapshot.toString().contains("counter requests 4\n"));
+
+        registry.removeGauge("depth", () -> 1);
+        assertTrue(registry.snapshot().getGauges().containsKey("depth"));
+        registry.removeGauge("depth", depth);
+        assertFalse(registry.snapshot().getGauges().containsKey("depth"));
+    }
+
+    @Test
+    public void testDumpReplacesTheFile() throws Exception {
+        Path file = Files.createTempFile("metrics", ".txt");
+        try (MetricsRegistry registry = new MetricsRegistry()) {
+            registry.counter("dumped").increment();
+            registry.dump(file);
+            registry.counter("dumped").increment();
+            registry.dump(file);
+
+            String dump = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            assertTrue(dump.contains("counter dumped 2\n"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testCounterKeepsCountsOfEndedThreads() throws InterruptedException {
+        Counter counter = new MetricsRegistry().counter("churn");
+        for (int i = 0; i < 1_000; i++) {
+            Thread thread = new Thread(() -> counter.add(2));
+            thread.start();
+            thread.join();
+        }
+        assertEquals(2_000, counter.sum());
+    }
+
+    @Test
+    public void testHistogramMaxCoversEveryThread() throws InterruptedException {
+        Histogram histogram = new MetricsRegistry().histogram("threads");
+        for (int i = 1; i <= 8; i++) {
+            long value = i * 1_000;
+            Thread thread = new Thread(() -> histogram.record(value));
+            thread.start();
+            thread.join();
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(8, snapshot.getCount());
+        assertEquals(8_000, snapshot.getMax());
+    }
+
+    @Test
+    public void testFailedDumpIsReportedToTheSink() throws Exception {
+        Path directory = Files.createTempDirectory("metrics");
+        Files.delete(directory);
+        CountDownLatch reported = new CountDownLatch(1);
+        try (MetricsRegistry registry = new MetricsRegistry()) {
+            registry.startDump(directory.resolve("metrics.txt"), 1, TimeUnit.MILLISECONDS, line -> {
+                if (line.toString().startsWith("Cannot dump metrics to ")) {
+                    reported.countDown();
+                }
+            });
+            assertTrue(reported.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testBankOperationsAreCounted() throws Exception {
+        if (!BankMetrics.ENABLED) {
+            return;
+        }
+        long deposits = BankMetrics.DEPOSITS.sum();
+        long withdrawals = BankMetrics.WITHDRAWALS.sum();
+        long declined = BankMetrics.DECLINED_WITHDRAWALS.sum();
+        long added = BankMetrics.ADD_CLIENT_LATENCY.snapshot().getCount();
+
+        Bank bank = new Bank();
+        Client client = new Client("John", Gender.MALE, "Boston");
+        SavingAccount account = new SavingAccount(1, 10);
+        client.addAccount(account);
+        bank.addClient(client);
+        account.depositCents(500);
+        account.tryWithdrawCents(200);
+        account.tryWithdrawCents(1_000_000);
+
+        assertEquals(deposits + 1, BankMetrics.DEPOSITS.sum());
+        assertEquals(withdrawals + 1, BankMetrics.WITHDRAWALS.sum());
+        assertEquals(declined + 1, BankMetrics.DECLINED_WITHDRAWALS.sum());
+        assertEquals(added + 1, BankMetrics.ADD_CLIENT_LATENCY.snapshot().getCount());
+    }
+}
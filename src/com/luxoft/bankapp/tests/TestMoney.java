@@ -0,0 +1,60 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Money;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
+import com.luxoft.bankapp.exceptions.OverdraftLimitExceededException;
+
+public class TestMoney {
+
+    @Test
+    public void testConversions() {
+        assertEquals(12345, Money.toCents(123.45));
+        assertEquals(-50, Money.toCents(-0.5));
+        assertEquals(123.45, Money.toDouble(12345), 0);
+    }
+
+    @Test
+    public void testRepeatedSmallDepositsStayExact() {
+        SavingAccount savingAccount = SavingAccount.ofCents(1, 0);
+        for (int i = 0; i < 1000; i++) {
+            savingAccount.deposit(0.1);
+        }
+
+        assertEquals(10000, savingAccount.getBalanceCents());
+        assertEquals(100.0, savingAccount.getBalance(), 0);
+    }
+
+    @Test
+    public void testExceptionCarriesCents() {
+        SavingAccount savingAccount = SavingAccount.ofCents(1, 1000);
+        try {
+            savingAccount.withdrawCents(1001);
+            fail("Expected NotEnoughFundsException");
+        } catch (NotEnoughFundsException e) {
+            assertEquals(1000, e.getBalanceCents());
+            assertEquals(1001, e.getAmountCents());
+            assertEquals(10.01, e.getAmount(), 0);
+        }
+    }
+
+    @Test
+    public void testOverdraftExceptionCarriesCents() {
+        CheckingAccount checkingAccount = CheckingAccount.ofCents(2, 1000, 250);
+        assertEquals(1250, checkingAccount.maximumAmountToWithdrawCents());
+        try {
+            checkingAccount.withdrawCents(1251);
+            fail("Expected OverdraftLimitExceededException");
+        } catch (OverdraftLimitExceededException e) {
+            assertEquals(250, e.getOverdraftCents());
+            assertEquals(2.5, e.getOverdraft(), 0);
+            assertEquals(1251, e.getAmountCents());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.Bank;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.domain.TransactionLog;
+import com.luxoft.bankapp.exceptions.ClientExistsException;
+import com.luxoft.bankapp.service.MonthEndEngine;
+
+public class TestMonthEndEngine {
+
+    private static final YearMonth OCTOBER = YearMonth.of(2026, 10);
+
+    private static Bank createBank(int accounts) throws ClientExistsException {
+        Bank bank = new Bank();
+        for (int id = 1; id <= accounts; id++) {
+            Client client = new Client("Client " + id, Gender.MALE, "Boston");
+            client.addAccount(id % 2 == 0 ? CheckingAccount.ofCents(id, -120_000, 200_000) : SavingAccount.ofCents(id, 1_200_000));
+            bank.addClient(client);
+        }
+        return bank;
+    }
+
+    private static void addSavingAccount(Bank bank, int id) throws ClientExistsException {
+        Client client = new Client("Client " + id, Gender.FEMALE, "Boston");
+        client.addAccount(SavingAccount.ofCents(id, 1_200_000));
+        bank.addClient(client);
+    }
+
+    /**
+     * Cancels the engine once the bank has seen the given number of balance changes.
+     */
+    private static void cancelAfterChanges(Bank bank, MonthEndEngine engine, int count) {
+        AtomicInteger changes = new AtomicInteger();
+        bank.setTransactionLog(new TransactionLog() {
+            @Override
+            public void clientAdded(Client client, List<Account> accounts, long[] balances) {
+            }
+
+            @Override
+            public void accountAdded(Client client, Account account, long balance) {
+            }
+
+            @Override
+            public void balanceChanged(Account account, long delta) {
+                if (changes.incrementAndGet() == count) {
+                    engine.cancel();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testInterestAndChargesAreApplied() throws Exception {
+        Bank bank = new Bank();
+        Client client = new Client("John", Gender.MALE, "Boston");
+        Account saving = SavingAccount.ofCents(1, 1_200_000);
+        Account overdrawn = CheckingAccount.ofCents(2, -120_000, 200_000);
+        Account positive = CheckingAccount.ofCents(3, 50_000, 200_000);
+        Account empty = SavingAccount.ofCents(4, 0);
+        client.addAccount(saving);
+        client.addAccount(overdrawn);
+        client.addAccount(positive);
+        client.addAccount(empty);
+        bank.addClient(client);
+
+        MonthEndEngine.Result result = MonthEndEngine.builder()
+                .savingInterest(120)
+                .overdraftCharges(1_200, 500)
+                .build()
+                .run(bank, OCTOBER);
+
+        // 1.2% a year is 0.1% a month, 12% a year is 1% a month
+        assertEquals(1_201_200, saving.getBalanceCents());
+        assertEquals(-120_000 - 1_200 - 500, overdrawn.getBalanceCents());
+        assertEquals(50_000, positive.getBalanceCents());
+        assertEquals(0, empty.getBalanceCents());
+        assertEquals(4, result.getProcessedAccounts());
+        assertEquals(1_200, result.getInterestCredited());
+        assertEquals(1_700, result.getChargesDebited());
+        assertEquals(1_200_000 - 120_000 + 50_000 + 1_200 - 1_700, bank.getStatistics().getTotalBalanceCents());
+    }
+
+    @Test
+    public void testCancelledMonthResumesFromCheckpoint() throws Exception {
+        Path checkpoint = Files.createTempFile("month-end", ".checkpoint");
+        Files.delete(checkpoint);
+        try {
+            Bank expected = createBank(20);
+            MonthEndEngine.builder().build().run(expected, OCTOBER);
+
+            Bank bank = createBank(20);
+            MonthEndEngine engine = MonthEndEngine.builder().threads(1).chunkSize(3).checkpoint(checkpoint).build();
+            cancelAfterChanges(bank, engine, 4);
+
+            MonthEndEngine.Result first = engine.run(bank, OCTOBER);
+            assertFalse(first.isComplete());
+            assertEquals(6, first.getProcessedAccounts());
+
+            MonthEndEngine.Result resumed = engine.run(bank, OCTOBER);
+            assertTrue(resumed.isComplete());
+            assertEquals(6, resumed.getSkippedAccounts());
+            assertEquals(14, resumed.getProcessedAccounts());
+            assertEquals(expected.getStatistics().getTotalBalanceCents(), bank.getStatistics().getTotalBalanceCents());
+
+            MonthEndEngine.Result again = engine.run(bank, OCTOBER);
+            assertEquals(20, again.getSkippedAccounts());
+            assertEquals(expected.getStatistics().getTotalBalanceCents(), bank.getStatistics().getTotalBalanceCents());
+
+            assertEquals(20, engine.run(bank, OCTOBER.plusMonths(1)).getProcessedAccounts());
+        } finally {
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+
+    @Test
+    public void testResumeAfterAnAccountWasAddedAppliesTheMonthOnce() throws Exception {
+        Path checkpoint = Files.createTempFile("month-end", ".checkpoint");
+        Files.delete(checkpoint);
+        try {
+            Bank expected = createBank(20);
+            addSavingAccount(expected, 0);
+            MonthEndEngine.builder().build().run(expected, OCTOBER);
+
+            Bank bank = createBank(20);
+            MonthEndEngine engine = MonthEndEngine.builder().threads(1).chunkSize(3).checkpoint(checkpoint).build();
+            cancelAfterChanges(bank, engine, 4);
+            assertEquals(6, engine.run(bank, OCTOBER).getProcessedAccounts());
+
+            // the new lowest id moves every chunk boundary of the resumed run
+            addSavingAccount(bank, 0);
+            MonthEndEngine.Result resumed = engine.run(bank, OCTOBER);
+            assertTrue(resumed.isComplete());
+            assertEquals(6, resumed.getSkippedAccounts());
+            assertEquals(15, resumed.getProcessedAccounts());
+            assertEquals(expected.getStatistics().getTotalBalanceCents(), bank.getStatistics().getTotalBalanceCents());
+        } finally {
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+
+    @Test
+    public void testInterruptedRunWaitsForTheChunkInProgress() throws Exception {
+        Bank bank = createBank(20);
+        long initial = bank.getStatistics().getTotalBalanceCents();
+        MonthEndEngine engine = MonthEndEngine.builder().threads(1).chunkSize(3).build();
+
+        // the first adjustment interrupts the caller, then the chunk carries on
+        Thread caller = Thread.currentThread();
+        AtomicInteger changes = new AtomicInteger();
+        bank.setTransactionLog(new TransactionLog() {
+            @Override
+            public void clientAdded(Client client, List<Account> accounts, long[] balances) {
+            }
+
+            @Override
+            public void accountAdded(Client client, Account account, long balance) {
+            }
+
+            @Override
+            public void balanceChanged(Account account, long delta) {
+                if (changes.incrementAndGet() == 1) {
+                    caller.interrupt();
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+
+        MonthEndEngine.Result result = engine.run(bank, OCTOBER);
+        assertTrue(Thread.interrupted());
+
+        assertFalse(result.isComplete());
+        assertEquals(3, result.getProcessedAccounts());
+        assertEquals(3, changes.get());
+        assertEquals(initial + result.getInterestCredited() - result.getChargesDebited(),
+                bank.getStatistics().getTotalBalanceCents());
+    }
+
+    @Test
+    public void testOnlineDepositsDuringMonthEndAreKept() throws Exception {
+        Bank bank = createBank(20_000);
+        long initial = bank.getStatistics().getTotalBalanceCents();
+
+        Thread online = new Thread(() -> {
+            for (int round = 0; round < 20; round++) {
+                for (int id = 1; id <= 20_000; id += 7) {
+                    bank.getAccount(id).depositCents(1);
+                }
+            }
+        });
+        online.start();
+        MonthEndEngine.Result result = MonthEndEngine.builder().threads(4).chunkSize(1_000).build().run(bank, OCTOBER);
+        online.join();
+
+        long deposits = 20L * ((20_000 + 6) / 7);
+        assertEquals(20_000, result.getProcessedAccounts());
+        assertEquals(initial + deposits + result.getInterestCredited() - result.getChargesDebited(),
+                bank.getStatistics().getTotalBalanceCents());
+        long accountTotal = 0;
+        for (int id = 1; id <= 20_000; id++) {
+            accountTotal += bank.getAccount(id).getBalanceCents();
+        }
+        assertEquals(bank.getStatistics().getTotalBalanceCents(), accountTotal);
+    }
+}
@@ -0,0 +1,98 @@
+package com.luxoft.bankapp.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import com.luxoft.bankapp.domain.Account;
+import com.luxoft.bankapp.domain.CheckingAccount;
+import com.luxoft.bankapp.domain.SavingAccount;
+import com.luxoft.bankapp.exceptions.NotEnoughFundsException;
+import com.luxoft.bankapp.service.Transfer;
+import com.luxoft.bankapp.service.TransferService;
+
+public class TestTransferService {
+
+    private final TransferService transferService = new TransferService();
+
+    @Test
+    public void testTransferMovesFunds() throws NotEnoughFundsException {
+        SavingAccount from = new SavingAccount(1, 100.0);
+        SavingAccount to = new SavingAccount(2, 50.0);
+
+        transferService.transfer(from, to, 30.0);
+
+        assertEquals(70.0, from.getBalance(), 0);
+        assertEquals(80.0, to.getBalance(), 0);
+    }
+
+    @Test
+    public void testTransferUsesOverdraft() {
+        CheckingAccount from = CheckingAccount.ofCents(1, 1_000, 500);
+        SavingAccount to = SavingAccount.ofCents(2, 0);
+
+        assertTrue(transferService.tryTransferCents(from, to, 1_500));
+        assertFalse(transferService.tryTransferCents(from, to, 1));
+        assertEquals(-500, from.getBalanceCents());
+        assertEquals(1_500, to.getBalanceCents());
+    }
+
+    @Test(expected = NotEnoughFundsException.class)
+    public void testDeclinedTransferThrows() throws NotEnoughFundsException {
+        transferService.transferCents(SavingAccount.ofCents(1, 100), SavingAccount.ofCents(2, 0), 101);
+    }
+
+    @Test
+    public void testBatchReportsEachTransfer() {
+        SavingAccount first = SavingAccount.ofCents(1, 100);
+        SavingAccount second = SavingAccount.ofCents(2, 0);
+
+        boolean[] applied = transferService.transferAll(Arrays.asList(
+                Transfer.ofCents(first, second, 60),
+                Transfer.ofCents(first, second, 60),
+                Transfer.ofCents(second, first, 10)));
+
+        assertArrayEquals(new boolean[] {true, false, true}, applied);
+        assertEquals(50, first.getBalanceCents());
+        assertEquals(50, second.getBalanceCents());
+    }
+
+    @Test
+    public void testConcurrentTransfersConserveMoney() throws InterruptedException {
+        Account[] accounts = new Account[16];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = CheckingAccount.ofCents(i, 1_000, 1_000);
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    transferService.tryTransferCents(accounts[random.nextInt(accounts.length)],
+                            accounts[random.nextInt(accounts.length)], random.nextInt(1, 500));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long total = 0;
+        for (Account account : accounts) {
+            total += account.getBalanceCents();
+            assertTrue(account.getBalanceCents() >= -1_000);
+        }
+        assertEquals(16 * 1_000, total);
+    }
+}
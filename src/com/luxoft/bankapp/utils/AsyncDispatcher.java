@@ -0,0 +1,53 @@
+package com.luxoft.bankapp.utils;
+
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.luxoft.bankapp.domain.Client;
+
+/**
+ * Delivers notifications on a single background thread through a bounded queue. Clients are
+ * processed in registration order, and for each client the listeners run in list order.
+ */
+public class AsyncDispatcher implements ClientRegistrationDispatcher {
+
+	private final LongAdder dropped = new LongAdder();
+	private final DispatchLane lane;
+
+	public AsyncDispatcher(int capacity, BackpressurePolicy policy) {
+		this(capacity, policy, DispatchLane.daemonThreads("client-registration-dispatcher"));
+	}
+
+	public AsyncDispatcher(int capacity, BackpressurePolicy policy, ThreadFactory threadFactory) {
+		this.lane = new DispatchLane(capacity, policy, threadFactory, dropped);
+	}
+
+	@Override
+	public void dispatch(Client client, List<ClientRegistrationListener> listeners) {
+		lane.submit(() -> {
+			for (ClientRegistrationListener listener : listeners) {
+				listener.onClientAdded(client);
+			}
+		});
+	}
+
+	@Override
+	public void dispatchAll(List<Client> clients, List<ClientRegistrationListener> listeners) {
+		lane.submit(() -> {
+			for (ClientRegistrationListener listener : listeners) {
+				listener.onClientsAdded(clients);
+			}
+		});
+	}
+
+	@Override
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	@Override
+	public void close() {
+		lane.close();
+	}
+}
@@ -0,0 +1,16 @@
+package com.luxoft.bankapp.utils;
+
+/**
+ * What an asynchronous dispatcher does when its queue is full.
+ */
+public enum BackpressurePolicy {
+	/** The registering thread waits until there is room in the queue. */
+	BLOCK,
+	/** The notification is discarded and counted as dropped. */
+	DROP,
+	/**
+	 * The dispatching thread gets a {@link java.util.concurrent.RejectedExecutionException}.
+	 * The bank still registers the client and counts the notification as dropped.
+	 */
+	REJECT
+}
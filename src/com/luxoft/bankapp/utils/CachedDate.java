@@ -0,0 +1,66 @@
+package com.luxoft.bankapp.utils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Today's date as rendered by a {@link DateTimeFormatter}, formatted once per day and cached.
+ * A call only reads the clock in milliseconds and compares it with the bounds of the cached day,
+ * so it allocates nothing until the day changes.
+ * <p>
+ * Thread-safe. Threads that cross midnight together may each render the new day once.
+ */
+public class CachedDate {
+
+	private final DateTimeFormatter formatter;
+	private final Clock clock;
+	private volatile Day today = new Day(0, 0, null);
+
+	/**
+	 * Dates in the default time zone.
+	 */
+	public CachedDate(DateTimeFormatter formatter) {
+		this(formatter, Clock.systemDefaultZone());
+	}
+
+	public CachedDate(DateTimeFormatter formatter, Clock clock) {
+		this.formatter = formatter;
+		this.clock = clock;
+	}
+
+	/**
+	 * Returns the current date in the clock's time zone, formatted.
+	 */
+	public String today() {
+		long now = clock.millis();
+		Day day = today;
+		if (now < day.start || now >= day.end) {
+			day = render(now);
+			today = day;
+		}
+		return day.text;
+	}
+
+	private Day render(long now) {
+		ZoneId zone = clock.getZone();
+		LocalDate date = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+		long start = date.atStartOfDay(zone).toInstant().toEpochMilli();
+		long end = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+		return new Day(start, end, formatter.format(date));
+	}
+
+	private static final class Day {
+		private final long start;
+		private final long end;
+		private final String text;
+
+		private Day(long start, long end, String text) {
+			this.start = start;
+			this.end = end;
+			this.text = text;
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package com.luxoft.bankapp.utils;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes text and binary values to a channel through one reusable buffer, which is handed to
+ * the channel whenever it fills up. Strings are encoded to UTF-8 and numbers formatted directly
+ * into the buffer, so writing allocates nothing however much is written. The buffer is a plain
+ * array, so each byte is a single array store.
+ * <p>
+ * Not thread-safe. {@link #close()} flushes but leaves the channel open; it belongs to the caller.
+ */
+public class ChannelWriter implements Flushable, Closeable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final int MAX_CHAR_BYTES = 4;
+	private static final int MAX_LONG_CHARS = 20;
+
+	private final WritableByteChannel channel;
+	private final byte[] bytes;
+	private final ByteBuffer buffer;
+	private int position;
+	private long written;
+
+	public ChannelWriter(WritableByteChannel channel) {
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+
+	public ChannelWriter(WritableByteChannel channel, int bufferSize) {
+		if (bufferSize < 64) {
+			throw new IllegalArgumentException("Buffer size must be at least 64 bytes");
+		}
+		this.channel = channel;
+		this.bytes = new byte[bufferSize];
+		this.buffer = ByteBuffer.wrap(bytes);
+	}
+
+	public ChannelWriter writeByte(int value) throws IOException {
+		ensure(1);
+		bytes[position++] = (byte) value;
+		return this;
+	}
+
+	public ChannelWriter writeInt(int value) throws IOException {
+		ensure(Integer.BYTES);
+		for (int shift = 24; shift >= 0; shift -= 8) {
+			bytes[position++] = (byte) (value >>> shift);
+		}
+		return this;
+	}
+
+	public ChannelWriter writeLong(long value) throws IOException {
+		ensure(Long.BYTES);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			bytes[position++] = (byte) (value >>> shift);
+		}
+		return this;
+	}
+
+	/**
+	 * Writes the string as UTF-8, without a length. {@code null} writes nothing.
+	 */
+	public ChannelWriter writeText(CharSequence value) throws IOException {
+		if (value == null) {
+			return this;
+		}
+		int length = value.length();
+		int i = 0;
+		while (i < length) {
+			ensure(MAX_CHAR_BYTES);
+			// runs of ASCII go straight into the array, as far as it has room
+			int end = (int) Math.min(length, (long) i + bytes.length - position);
+			int at = position;
+			char c = 0;
+			while (i < end && (c = value.charAt(i)) < 0x80) {
+				bytes[at++] = (byte) c;
+				i++;
+			}
+			position = at;
+			if (i == end) {
+				continue;
+			}
+
+			if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				putCodePoint(Character.toCodePoint(c, value.charAt(++i)));
+			} else if (Character.isSurrogate(c)) {
+				// an unpaired surrogate cannot be encoded
+				bytes[position++] = '?';
+			} else {
+				putCodePoint(c);
+			}
+			i++;
+		}
+		return this;
+	}
+
+	/**
+	 * Writes the string as its UTF-8 byte length followed by the bytes, or -1 for {@code null}.
+	 */
+	public ChannelWriter writeString(CharSequence value) throws IOException {
+		if (value == null) {
+			return writeInt(-1);
+		}
+		writeInt(utf8Length(value));
+		return writeText(value);
+	}
+
+	/**
+	 * Writes the number in decimal.
+	 */
+	public ChannelWriter writeDecimal(long value) throws IOException {
+		ensure(MAX_LONG_CHARS);
+		if (value == Long.MIN_VALUE) {
+			for (int i = 0; i < 20; i++) {
+				bytes[position++] = (byte) "-9223372036854775808".charAt(i);
+			}
+			return this;
+		}
+		if (value < 0) {
+			bytes[position++] = '-';
+			value = -value;
+		}
+
+		int digits = 1;
+		for (long rest = value / 10; rest > 0; rest /= 10) {
+			digits++;
+		}
+		int end = position + digits;
+		for (int i = end - 1; i >= position; i--) {
+			bytes[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		position = end;
+		return this;
+	}
+
+	/**
+	 * Writes an amount in cents as units with two decimals, such as {@code -12.05}.
+	 */
+	public ChannelWriter writeCents(long cents) throws IOException {
+		if (cents < 0) {
+			writeByte('-');
+		}
+		long units = Math.abs(cents / 100);
+		int fraction = (int) Math.abs(cents % 100);
+		writeDecimal(units);
+		ensure(3);
+		bytes[position++] = '.';
+		bytes[position++] = (byte) ('0' + fraction / 10);
+		bytes[position++] = (byte) ('0' + fraction % 10);
+		return this;
+	}
+
+	/**
+	 * Number of bytes written so far, flushed or not.
+	 */
+	public long getBytesWritten() {
+		return written + position;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		buffer.clear().limit(position);
+		while (buffer.hasRemaining()) {
+			written += channel.write(buffer);
+		}
+		position = 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+
+	private void ensure(int count) throws IOException {
+		if (bytes.length - position < count) {
+			flush();
+		}
+	}
+
+	private void putCodePoint(int codePoint) throws IOException {
+		ensure(MAX_CHAR_BYTES);
+		if (codePoint < 0x800) {
+			bytes[position++] = (byte) (0xC0 | codePoint >> 6);
+		} else if (codePoint < 0x10000) {
+			bytes[position++] = (byte) (0xE0 | codePoint >> 12);
+			bytes[position++] = (byte) (0x80 | (codePoint >> 6 & 0x3F));
+		} else {
+			bytes[position++] = (byte) (0xF0 | codePoint >> 18);
+			bytes[position++] = (byte) (0x80 | (codePoint >> 12 & 0x3F));
+			bytes[position++] = (byte) (0x80 | (codePoint >> 6 & 0x3F));
+		}
+		bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+	}
+
+	private static int utf8Length(CharSequence value) {
+		int bytes = 0;
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				bytes++;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				bytes += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				bytes++;
+			} else {
+				bytes += 3;
+			}
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,40 @@
+package com.luxoft.bankapp.utils;
+
+import java.util.List;
+
+import com.luxoft.bankapp.domain.Client;
+
+/**
+ * Decides where and when {@link ClientRegistrationListener}s run after a client is registered.
+ * Every implementation delivers the notifications of one listener in registration order.
+ */
+public interface ClientRegistrationDispatcher extends AutoCloseable {
+
+	/**
+	 * Notifies the listeners, in list order, that the client was added.
+	 */
+	void dispatch(Client client, List<ClientRegistrationListener> listeners);
+
+	/**
+	 * Notifies the listeners, in list order, of a batch of clients through
+	 * {@link ClientRegistrationListener#onClientsAdded(List)}. The list must not change afterwards.
+	 */
+	default void dispatchAll(List<Client> clients, List<ClientRegistrationListener> listeners) {
+		for (ClientRegistrationListener listener : listeners) {
+			listener.onClientsAdded(clients);
+		}
+	}
+
+	/**
+	 * Number of notifications discarded because of {@link BackpressurePolicy#DROP}.
+	 */
+	default long getDroppedCount() {
+		return 0;
+	}
+
+	/**
+	 * Stops accepting notifications and waits until the pending ones have been delivered.
+	 */
+	@Override
+	void close();
+}
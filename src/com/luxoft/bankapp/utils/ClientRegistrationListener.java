@@ -1,7 +1,19 @@
 package com.luxoft.bankapp.utils;
 
+import java.util.List;
+
 import com.luxoft.bankapp.domain.Client;
 
 public interface ClientRegistrationListener {
 	 void onClientAdded(Client client);
+
+	/**
+	 * Called once for a batch of clients registered together, in registration order.
+	 * Listeners that can handle a batch in one go, such as a single log line, override this.
+	 */
+	default void onClientsAdded(List<Client> clients) {
+		for (Client client : clients) {
+			onClientAdded(client);
+		}
+	}
 }
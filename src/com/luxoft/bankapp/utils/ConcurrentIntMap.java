@@ -0,0 +1,131 @@
+package com.luxoft.bankapp.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A map from primitive {@code int} keys to values that does not box its keys. Lookups take no
+ * lock; writes lock one of a fixed number of segments chosen by the key's hash. Entries cannot
+ * be removed, and {@code null} values are not allowed.
+ */
+public class ConcurrentIntMap<V> {
+
+	private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+	private static final int SEGMENTS = 16;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	public ConcurrentIntMap() {
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment();
+		}
+	}
+
+	/**
+	 * Returns the value for the key, or {@code null}.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int hash = hash(key);
+		return (V) segments[hash & (SEGMENTS - 1)].get(key, hash >>> 4);
+	}
+
+	/**
+	 * Associates the value with the key unless the key already has one, and returns the existing
+	 * value or {@code null} if the value was added.
+	 */
+	@SuppressWarnings("unchecked")
+	public V putIfAbsent(int key, V value) {
+		if (value == null) {
+			throw new NullPointerException("Null values are not allowed");
+		}
+		int hash = hash(key);
+		return (V) segments[hash & (SEGMENTS - 1)].putIfAbsent(key, hash >>> 4, value);
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Open-addressing table with linear probing. A slot is taken once its value is set; the value
+	 * is published with release semantics after the key, so a reader that sees the value also
+	 * sees the key. A resize builds a new table and publishes it in one volatile write.
+	 */
+	private static final class Segment {
+		private volatile Table table = new Table(INITIAL_CAPACITY);
+		private int size;
+
+		Object get(int key, int hash) {
+			Table current = table;
+			int mask = current.keys.length - 1;
+			for (int i = hash & mask; ; i = (i + 1) & mask) {
+				Object value = VALUES.getAcquire(current.values, i);
+				if (value == null) {
+					return null;
+				}
+				if (current.keys[i] == key) {
+					return value;
+				}
+			}
+		}
+
+		synchronized Object putIfAbsent(int key, int hash, Object value) {
+			Table current = table;
+			int mask = current.keys.length - 1;
+			int i = hash & mask;
+			for (; current.values[i] != null; i = (i + 1) & mask) {
+				if (current.keys[i] == key) {
+					return current.values[i];
+				}
+			}
+
+			current.keys[i] = key;
+			VALUES.setRelease(current.values, i, value);
+			if (++size * 2 > current.keys.length) {
+				table = current.resize();
+			}
+			return null;
+		}
+
+		synchronized int size() {
+			return size;
+		}
+	}
+
+	private static final class Table {
+		final int[] keys;
+		final Object[] values;
+
+		Table(int capacity) {
+			keys = new int[capacity];
+			values = new Object[capacity];
+		}
+
+		Table resize() {
+			Table resized = new Table(keys.length * 2);
+			int mask = resized.keys.length - 1;
+			for (int j = 0; j < keys.length; j++) {
+				if (values[j] != null) {
+					int i = hash(keys[j]) >>> 4 & mask;
+					while (resized.values[i] != null) {
+						i = (i + 1) & mask;
+					}
+					resized.keys[i] = keys[j];
+					resized.values[i] = values[j];
+				}
+			}
+			return resized;
+		}
+	}
+}
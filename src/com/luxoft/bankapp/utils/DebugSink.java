@@ -0,0 +1,24 @@
+package com.luxoft.bankapp.utils;
+
+/**
+ * Where debug lines go. A bank given {@link #OFF} does not register its debug listener at all,
+ * so switching debugging off costs nothing per registered client.
+ * <p>
+ * {@link #DEFAULT} is {@link #CONSOLE} unless the JVM runs with {@code -Dbankapp.debug=false}.
+ */
+@FunctionalInterface
+public interface DebugSink {
+
+	DebugSink CONSOLE = line -> ReportWriter.console().text(line).newLine().flush();
+
+	DebugSink OFF = line -> {
+	};
+
+	DebugSink DEFAULT = Boolean.parseBoolean(System.getProperty("bankapp.debug", "true")) ? CONSOLE : OFF;
+
+	/**
+	 * Receives one debug line, without a line separator, on the thread that produced it. The
+	 * line may be a reused buffer, so it must be consumed before returning.
+	 */
+	void log(CharSequence line);
+}
@@ -0,0 +1,125 @@
+package com.luxoft.bankapp.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded FIFO queue drained by a single worker thread, so tasks run in submission order.
+ */
+class DispatchLane {
+
+	private static final Runnable STOP = () -> {
+	};
+
+	private final BlockingQueue<Runnable> queue;
+	private final BackpressurePolicy policy;
+	private final LongAdder dropped;
+	private final Thread worker;
+	private volatile boolean closed;
+
+	DispatchLane(int capacity, BackpressurePolicy policy, ThreadFactory threadFactory, LongAdder dropped) {
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.policy = policy;
+		this.dropped = dropped;
+		this.worker = threadFactory.newThread(this::run);
+		worker.start();
+	}
+
+	void submit(Runnable task) {
+		if (closed) {
+			throw new RejectedExecutionException("Dispatcher is closed");
+		}
+
+		switch (policy) {
+			case BLOCK:
+				try {
+					queue.put(task);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RejectedExecutionException("Interrupted while waiting for room in the dispatch queue", e);
+				}
+				break;
+			case DROP:
+				if (!queue.offer(task)) {
+					dropped.increment();
+				}
+				break;
+			case REJECT:
+				if (!queue.offer(task)) {
+					throw new RejectedExecutionException("Dispatch queue is full");
+				}
+				break;
+		}
+	}
+
+	void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		boolean interrupted = false;
+		while (true) {
+			try {
+				queue.put(STOP);
+				worker.join();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		// tasks that slipped in behind the stop marker still get delivered
+		List<Runnable> remaining = new ArrayList<>();
+		queue.drainTo(remaining);
+		remaining.forEach(DispatchLane::runSafely);
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		while (true) {
+			Runnable task;
+			try {
+				task = queue.take();
+			} catch (InterruptedException e) {
+				if (closed) {
+					return;
+				}
+				continue;
+			}
+
+			if (task == STOP) {
+				return;
+			}
+			runSafely(task);
+		}
+	}
+
+	private static void runSafely(Runnable task) {
+		try {
+			task.run();
+		} catch (RuntimeException e) {
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+		}
+	}
+
+	/**
+	 * Creates daemon threads with the given name, used when the caller does not supply a factory.
+	 */
+	static ThreadFactory daemonThreads(String name) {
+		return runnable -> {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
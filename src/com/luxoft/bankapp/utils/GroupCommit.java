@@ -0,0 +1,90 @@
+package com.luxoft.bankapp.utils;
+
+import java.io.IOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Makes appends to a log durable with as few syncs as possible. Writers that need their data
+ * on disk call {@link #awaitDurable(long)}; the first one becomes the leader and syncs
+ * everything appended so far, while the others wait and are released by that same sync.
+ * Positions are logical: they only grow, even if the underlying file is reused.
+ */
+public class GroupCommit {
+
+	/**
+	 * Forces everything written so far to durable storage.
+	 */
+	public interface SyncAction {
+		void sync() throws IOException;
+	}
+
+	private final SyncAction syncAction;
+	private final LongSupplier appendedPosition;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition synced = lock.newCondition();
+
+	private long durablePosition;
+	private boolean syncing;
+	private long syncCount;
+
+	/**
+	 * @param syncAction       forces the log to disk
+	 * @param appendedPosition returns the logical end of the fully written part of the log
+	 */
+	public GroupCommit(SyncAction syncAction, LongSupplier appendedPosition) {
+		this.syncAction = syncAction;
+		this.appendedPosition = appendedPosition;
+		this.durablePosition = appendedPosition.getAsLong();
+	}
+
+	/**
+	 * Returns once everything up to the given logical position is durable.
+	 */
+	public void awaitDurable(long position) throws IOException {
+		lock.lock();
+		try {
+			while (durablePosition < position) {
+				if (syncing) {
+					synced.awaitUninterruptibly();
+					continue;
+				}
+
+				syncing = true;
+				long target = appendedPosition.getAsLong();
+				IOException failure = null;
+				lock.unlock();
+				try {
+					syncAction.sync();
+				} catch (IOException e) {
+					failure = e;
+				} finally {
+					lock.lock();
+				}
+
+				syncing = false;
+				synced.signalAll();
+				if (failure != null) {
+					throw failure;
+				}
+				durablePosition = Math.max(durablePosition, target);
+				syncCount++;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Number of syncs performed, useful to check how well writes are being grouped.
+	 */
+	public long getSyncCount() {
+		lock.lock();
+		try {
+			return syncCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
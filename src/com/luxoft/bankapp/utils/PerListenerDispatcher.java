@@ -0,0 +1,91 @@
+package com.luxoft.bankapp.utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.luxoft.bankapp.domain.Client;
+
+/**
+ * Gives every listener its own bounded queue and worker thread, so a slow listener does not
+ * hold back the others. Each listener still sees clients in registration order. Lanes are keyed
+ * by listener instance, so the same listener objects must be passed on every dispatch.
+ * <p>
+ * Workers come from the given {@link ThreadFactory}; on runtimes with virtual threads, pass
+ * {@code Thread.ofVirtual().factory()} to avoid a platform thread per listener.
+ */
+public class PerListenerDispatcher implements ClientRegistrationDispatcher {
+
+	private final Map<ClientRegistrationListener, DispatchLane> lanes = new ConcurrentHashMap<>();
+	private final LongAdder dropped = new LongAdder();
+	private final int capacity;
+	private final BackpressurePolicy policy;
+	private final ThreadFactory threadFactory;
+	private volatile boolean closed;
+
+	public PerListenerDispatcher(int capacity, BackpressurePolicy policy) {
+		this(capacity, policy, DispatchLane.daemonThreads("client-registration-listener"));
+	}
+
+	public PerListenerDispatcher(int capacity, BackpressurePolicy policy, ThreadFactory threadFactory) {
+		this.capacity = capacity;
+		this.policy = policy;
+		this.threadFactory = threadFactory;
+	}
+
+	@Override
+	public void dispatch(Client client, List<ClientRegistrationListener> listeners) {
+		if (closed) {
+			throw new RejectedExecutionException("Dispatcher is closed");
+		}
+
+		for (ClientRegistrationListener listener : listeners) {
+			lane(listener).submit(() -> listener.onClientAdded(client));
+		}
+	}
+
+	@Override
+	public void dispatchAll(List<Client> clients, List<ClientRegistrationListener> listeners) {
+		if (closed) {
+			throw new RejectedExecutionException("Dispatcher is closed");
+		}
+
+		for (ClientRegistrationListener listener : listeners) {
+			lane(listener).submit(() -> listener.onClientsAdded(clients));
+		}
+	}
+
+	@Override
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	@Override
+	public void close() {
+		synchronized (lanes) {
+			closed = true;
+		}
+		lanes.values().forEach(DispatchLane::close);
+	}
+
+	/**
+	 * Lanes are created under the same lock {@link #close()} takes, so none is created after
+	 * the dispatcher was closed and left running.
+	 */
+	private DispatchLane lane(ClientRegistrationListener listener) {
+		DispatchLane lane = lanes.get(listener);
+		if (lane != null) {
+			return lane;
+		}
+
+		synchronized (lanes) {
+			if (closed) {
+				throw new RejectedExecutionException("Dispatcher is closed");
+			}
+			return lanes.computeIfAbsent(listener, l -> new DispatchLane(capacity, policy, threadFactory, dropped));
+		}
+	}
+}
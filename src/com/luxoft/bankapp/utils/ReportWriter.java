@@ -0,0 +1,132 @@
+package com.luxoft.bankapp.utils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import com.luxoft.bankapp.domain.Client;
+import com.luxoft.bankapp.domain.Gender;
+
+/**
+ * Writes report lines through a {@link ChannelWriter}: text, ids and amounts in cents are
+ * formatted straight into its reusable buffer, which reaches the channel in large writes, so
+ * printing a report allocates nothing per line. I/O errors are rethrown unchecked, which lets
+ * listeners print.
+ * <p>
+ * {@link #console()} gives each thread its own writer on standard output. Every flush hands the
+ * buffer to whatever {@code System.out} is at that moment in a single write, taking its lock
+ * once per flush rather than once per line. Output is only seen once {@link #flush()} is
+ * called, and a report must be flushed before the same thread starts another one.
+ */
+public class ReportWriter {
+
+	private static final int CONSOLE_BUFFER_SIZE = 16 * 1024;
+
+	private static final ThreadLocal<ReportWriter> CONSOLE = ThreadLocal.withInitial(
+			() -> new ReportWriter(new ChannelWriter(new StandardOutput(), CONSOLE_BUFFER_SIZE)));
+
+	private final ChannelWriter out;
+
+	public ReportWriter(ChannelWriter out) {
+		this.out = out;
+	}
+
+	/**
+	 * This thread's writer on standard output.
+	 */
+	public static ReportWriter console() {
+		return CONSOLE.get();
+	}
+
+	public ReportWriter text(CharSequence text) {
+		try {
+			out.writeText(text);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return this;
+	}
+
+	public ReportWriter number(long number) {
+		try {
+			out.writeDecimal(number);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return this;
+	}
+
+	/**
+	 * Writes an amount in cents with two decimals, such as {@code 1250.05}.
+	 */
+	public ReportWriter cents(long cents) {
+		try {
+			out.writeCents(cents);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return this;
+	}
+
+	/**
+	 * Writes the client the way {@link Client#getClientGreeting()} shows it.
+	 */
+	public ReportWriter greeting(Client client) {
+		Gender gender = client.getGender();
+		if (gender != null) {
+			text(gender.getGreeting()).text(" ");
+		}
+		return text(client.getName());
+	}
+
+	public ReportWriter newLine() {
+		try {
+			out.writeByte('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return this;
+	}
+
+	public void flush() {
+		try {
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Copies each write into a reusable array for the current {@code System.out}, so output
+	 * still follows {@link System#setOut}.
+	 */
+	private static final class StandardOutput implements WritableByteChannel {
+
+		private final byte[] bytes = new byte[CONSOLE_BUFFER_SIZE];
+
+		@Override
+		public int write(ByteBuffer source) {
+			int written = 0;
+			PrintStream stdout = System.out;
+			while (source.hasRemaining()) {
+				int length = Math.min(source.remaining(), bytes.length);
+				source.get(bytes, 0, length);
+				stdout.write(bytes, 0, length);
+				written += length;
+			}
+			stdout.flush();
+			return written;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
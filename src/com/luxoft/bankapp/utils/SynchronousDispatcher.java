@@ -0,0 +1,22 @@
+package com.luxoft.bankapp.utils;
+
+import java.util.List;
+
+import com.luxoft.bankapp.domain.Client;
+
+/**
+ * Runs the listeners on the registering thread, before {@code addClient} returns.
+ */
+public class SynchronousDispatcher implements ClientRegistrationDispatcher {
+
+	@Override
+	public void dispatch(Client client, List<ClientRegistrationListener> listeners) {
+		for (ClientRegistrationListener listener : listeners) {
+			listener.onClientAdded(client);
+		}
+	}
+
+	@Override
+	public void close() {
+	}
+}